@@ -24,4 +24,10 @@ public @interface Extension {
     ReduceType reduceType() default ReduceType.UNKNOWN;
 
     ProtocolType protocolType() default ProtocolType.LOCAL;
+
+    /**
+     * The TTL in milliseconds of the cached remote invoke result, 0 means not cacheable.
+     * Only for the idempotent REMOTE extensions.
+     */
+    long cacheTtl() default 0;
 }
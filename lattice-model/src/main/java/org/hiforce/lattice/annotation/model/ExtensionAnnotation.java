@@ -28,4 +28,8 @@ public class ExtensionAnnotation {
     @Getter
     @Setter
     private ProtocolType protocolType;
+
+    @Getter
+    @Setter
+    private long cacheTtl;
 }
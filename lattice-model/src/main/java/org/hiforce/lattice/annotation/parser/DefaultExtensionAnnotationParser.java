@@ -37,6 +37,11 @@ public class DefaultExtensionAnnotationParser extends ExtensionAnnotationParser<
         return annotation.protocolType();
     }
 
+    @Override
+    public long getCacheTtl(Extension annotation) {
+        return annotation.cacheTtl();
+    }
+
     @Override
     public Class<Extension> getAnnotationClass() {
         return Extension.class;
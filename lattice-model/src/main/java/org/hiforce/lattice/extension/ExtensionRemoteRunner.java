@@ -1,5 +1,13 @@
 package org.hiforce.lattice.extension;
 
+import org.hiforce.lattice.model.ability.IBusinessExt;
+import org.hiforce.lattice.model.ability.execute.ExtensionCallback;
+import org.hiforce.lattice.model.business.IBizObject;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author Rocky Yu
  * @since 2022/9/30
@@ -9,4 +17,35 @@ public abstract class ExtensionRemoteRunner<R> extends ExtensionRunner<R> {
     public ExtensionRemoteRunner(String extensionCode) {
         super(extensionCode);
     }
+
+    /**
+     * @return whether the runner can be issued before its turn in the reduce order.
+     */
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    /**
+     * Issue the remote invocation without blocking, the result will be joined
+     * in priority order at reduce time.
+     */
+    @Nonnull
+    public CompletableFuture<List<R>> runAllMatchedAsync(
+            IBizObject bizObject, ExtensionCallback<IBusinessExt, R> callback, RunnerExecuteResult executeResult) {
+        CompletableFuture<List<R>> future = new CompletableFuture<>();
+        try {
+            future.complete(runAllMatched(bizObject, callback, executeResult));
+        } catch (Throwable th) {
+            future.completeExceptionally(th);
+        }
+        return future;
+    }
+
+    /**
+     * Join the future issued by {@link #runAllMatchedAsync}, on the thread running the reduce.
+     */
+    public List<R> joinAsync(CompletableFuture<List<R>> future, IBizObject bizObject,
+                             ExtensionCallback<IBusinessExt, R> callback, RunnerExecuteResult executeResult) {
+        return future.join();
+    }
 }
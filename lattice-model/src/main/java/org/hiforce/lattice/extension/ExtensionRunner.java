@@ -27,6 +27,14 @@ public abstract class ExtensionRunner<R> {
 
     public abstract void setAbility(IAbility ability);
 
+    /**
+     * @return the runner bound to the ability, the cached runner is shared by the
+     * concurrent invocations so it is copied rather than mutated if it keeps the ability.
+     */
+    public ExtensionRunner<R> bindAbility(IAbility ability) {
+        return this;
+    }
+
     public ExtensionRunner(String extensionCode) {
         this.extensionCode = extensionCode;
     }
@@ -33,6 +33,13 @@ public class RunnerItemEntry<R> {
         this.ability = ability;
     }
 
+    /**
+     * @return the entry of the cached runner bound to the ability of the current invocation.
+     */
+    public RunnerItemEntry<R> bindAbility(IAbility ability) {
+        return new RunnerItemEntry<>(ability, template, runner.bindAbility(ability));
+    }
+
     @Override
     public String toString() {
         return "[" + template.getCode() + "|"
@@ -41,6 +41,13 @@ public class AbilityContext implements Serializable {
     @Setter
     private Method extMethod;
 
+    /**
+     * The cacheTtl of the invoked {@link org.hiforce.lattice.model.register.ExtensionSpec}.
+     */
+    @Getter
+    @Setter
+    private long extCacheTtl;
+
 
     public AbilityContext(IBizObject bizObject) {
         this.bizObject = bizObject;
@@ -1,5 +1,6 @@
 package org.hiforce.lattice.model.context;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import lombok.Getter;
 import org.hiforce.lattice.cache.invoke.InvokeCache;
@@ -7,6 +8,8 @@ import org.hiforce.lattice.model.business.ITemplate;
 import org.hiforce.lattice.model.register.TemplateSpec;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
@@ -19,10 +22,30 @@ public class BizSessionContext {
     private static final ThreadLocal<BizSessionContext> SESSION_CONTEXT_THREAD_LOCAL =
             ThreadLocal.withInitial(BizSessionContext::new);
 
+    private static final int MAX_POOLED_TEMPLATES = 64;
+
     @Getter
     private final Map<String, List<TemplateSpec<? extends ITemplate>>>
             effectiveTemplates = Maps.newConcurrentMap();
 
+    private final Deque<List<TemplateSpec<? extends ITemplate>>> pooledTemplates = new ArrayDeque<>();
+
+    /**
+     * @return an empty effective templates list, reused from the released ones if any.
+     */
+    public List<TemplateSpec<? extends ITemplate>> borrowTemplates() {
+        List<TemplateSpec<? extends ITemplate>> templates = pooledTemplates.poll();
+        return null == templates ? Lists.newArrayList() : templates;
+    }
+
+    public void releaseTemplates(List<TemplateSpec<? extends ITemplate>> templates) {
+        if (null == templates || pooledTemplates.size() >= MAX_POOLED_TEMPLATES) {
+            return;
+        }
+        templates.clear();
+        pooledTemplates.push(templates);
+    }
+
     @SuppressWarnings("unused")
     public <T> void addExtObject(Class<? super T> klass, Object id, @Nullable T instance) {
         InvokeCache.instance().put(klass, id, instance);
@@ -48,6 +71,17 @@ public class BizSessionContext {
         return context;
     }
 
+    /**
+     * Release the effective templates of the current thread, the context is kept for the next session.
+     */
+    public static void release() {
+        BizSessionContext context = SESSION_CONTEXT_THREAD_LOCAL.get();
+        for (List<TemplateSpec<? extends ITemplate>> templates : context.effectiveTemplates.values()) {
+            context.releaseTemplates(templates);
+        }
+        context.effectiveTemplates.clear();
+    }
+
     public static void destroy() {
         SESSION_CONTEXT_THREAD_LOCAL.set(null);
         SESSION_CONTEXT_THREAD_LOCAL.remove();
@@ -36,6 +36,10 @@ public class ExtensionSpec extends BaseSpec {
     @Setter
     private ProtocolType protocolType = ProtocolType.LOCAL;
 
+    @Getter
+    @Setter
+    private long cacheTtl;
+
     @Getter
     @Setter
     private String groupCode;
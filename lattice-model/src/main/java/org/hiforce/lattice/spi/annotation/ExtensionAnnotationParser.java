@@ -22,6 +22,10 @@ public abstract class ExtensionAnnotationParser<T extends Annotation> extends La
 
     public abstract ProtocolType getProtocolType(T annotation);
 
+    public long getCacheTtl(T annotation) {
+        return 0;
+    }
+
     public ExtensionAnnotation buildAnnotationInfo(T annotation) {
         if (null == annotation) {
             return null;
@@ -32,6 +36,7 @@ public abstract class ExtensionAnnotationParser<T extends Annotation> extends La
         info.setDesc(getDesc(annotation));
         info.setReduceType(getReduceType(annotation));
         info.setProtocolType(getProtocolType(annotation));
+        info.setCacheTtl(getCacheTtl(annotation));
         return info;
     }
 }
@@ -11,6 +11,7 @@ import java.net.URL;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author Rocky Yu
@@ -18,8 +19,12 @@ import java.util.Objects;
  */
 public class LatticeClassLoader extends ClassLoader {
 
+    static {
+        registerAsParallelCapable();
+    }
+
     @Getter
-    private final List<ClassLoader> customLoaders = Lists.newArrayList();
+    private final List<ClassLoader> customLoaders = new CopyOnWriteArrayList<>();
 
     public LatticeClassLoader(ClassLoader parent) {
         super(parent);
@@ -0,0 +1,20 @@
+package org.hiforce.lattice.spi.config;
+
+import org.hiforce.lattice.model.config.BusinessConfig;
+
+/**
+ * The listener of the business config changes pushed by a {@link BusinessConfigLoadSpi}.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+@FunctionalInterface
+public interface BusinessConfigListener {
+
+    /**
+     * @param bizCode the code of the changed business.
+     * @param config  the latest config of the business, null if the config removed from the loader,
+     *                then the config of the other loaders takes effect.
+     */
+    void onChanged(String bizCode, BusinessConfig config);
+}
@@ -21,4 +21,15 @@ public interface BusinessConfigLoadSpi {
      * @return the business config list.
      */
     List<BusinessConfig> loadBusinessConfigs(List<String> bizCodes);
+
+    /**
+     * Subscribe the config changes of the businesses, a subsequent call replaces the former subscription.
+     * The loader not supports the change pushing just ignore it.
+     *
+     * @param bizCodes the codes of the subscribed businesses.
+     * @param listener the listener to be notified with the latest config.
+     */
+    default void subscribe(List<String> bizCodes, BusinessConfigListener listener) {
+
+    }
 }
@@ -3,6 +3,7 @@ package org.hiforce.lattice.utils;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -25,7 +26,8 @@ public class BusinessExtUtils {
 
     private static final Map<Class<?>, Set<String>> CODE_MAP = new ConcurrentHashMap<>();
 
-    private static final Table<Class<?>, String, Method> EXT_METHOD_MAP = HashBasedTable.create();
+    private static final Table<Class<?>, String, Method> EXT_METHOD_MAP =
+            Tables.synchronizedTable(HashBasedTable.create());
 
     public static Method getExtensionMethod(IBusinessExt businessExt, String extCode, String scenario) {
         if (null == businessExt) {
@@ -77,6 +79,13 @@ public class BusinessExtUtils {
         return supportedCodes;
     }
 
+    public static void removeClassLoaderCache(ClassLoader classLoader) {
+        CODE_MAP.keySet().removeIf(p -> p.getClassLoader() == classLoader);
+        synchronized (EXT_METHOD_MAP) {
+            EXT_METHOD_MAP.rowKeySet().removeIf(p -> p.getClassLoader() == classLoader);
+        }
+    }
+
     private static Set<String> distinctSupportCodes(IBusinessExt businessExt) {
         Set<String> codes = Sets.newConcurrentHashSet();
         if (null == businessExt) {
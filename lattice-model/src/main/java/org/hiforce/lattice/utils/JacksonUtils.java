@@ -104,4 +104,19 @@ public class JacksonUtils {
         return null;
     }
 
+    /**
+     * Parse the UTF-8 json bytes with the streaming parser, without decoding to a String first.
+     */
+    public static <T> T deserializeIgnoreException(byte[] json, Class<T> transferClass) {
+        try {
+            if (null == json || json.length == 0 || transferClass == null) {
+                return null;
+            }
+            return objectMapper.readValue(json, transferClass);
+        } catch (Exception e) {
+            logger.error(" deserializeIgnoreException use JacksonUtils error , json length is : " + json.length, e);
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,85 @@
+package org.hiforce.lattice.remote.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * An isolated copy of the classpath, so the plugin container and the client runtime get
+ * their own Lattice, Dubbo and Spring singletons in one JVM. The service providers under
+ * the hidden package are left out, keeping the plugin businesses out of the client runtime.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public class BenchmarkClassLoader extends URLClassLoader {
+
+    private static final String SERVICES = "META-INF/services/";
+
+    private final String hiddenPackage;
+
+    public BenchmarkClassLoader(URL[] urls, String hiddenPackage) {
+        // the parent of the application class loader, only the JDK classes are shared.
+        super(urls, ClassLoader.getSystemClassLoader().getParent());
+        this.hiddenPackage = hiddenPackage;
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        Enumeration<URL> resources = super.findResources(name);
+        if (null == hiddenPackage || !name.startsWith(SERVICES)) {
+            return resources;
+        }
+        List<URL> filtered = new ArrayList<>();
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            List<String> lines = readLines(url);
+            List<String> kept = lines.stream()
+                    .filter(p -> !p.trim().startsWith(hiddenPackage))
+                    .collect(Collectors.toList());
+            if (kept.size() == lines.size()) {
+                filtered.add(url);
+            } else if (!kept.isEmpty()) {
+                filtered.add(toUrl(name, String.join("\n", kept).getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        return Collections.enumeration(filtered);
+    }
+
+    private static List<String> readLines(URL url) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    private static URL toUrl(String name, byte[] content) throws IOException {
+        return new URL("lattice-benchmark", null, -1, "/" + name, new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new URLConnection(url) {
+                    @Override
+                    public void connect() {
+
+                    }
+
+                    @Override
+                    public InputStream getInputStream() {
+                        return new ByteArrayInputStream(content);
+                    }
+                };
+            }
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package org.hiforce.lattice.remote.benchmark;
+
+import org.hiforce.lattice.model.business.BizContext;
+import org.hiforce.lattice.remote.benchmark.ability.BenchAbility;
+import org.hiforce.lattice.remote.benchmark.ability.BenchAbilityExt;
+import org.hiforce.lattice.remote.benchmark.plugin.BenchBusiness;
+import org.hiforce.lattice.remote.client.LatticeRemoteClient;
+import org.hiforce.lattice.remote.client.model.RemoteBusiness;
+import org.hiforce.lattice.remote.client.model.RemoteExtension;
+import org.hiforce.lattice.runtime.Lattice;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drive the REMOTE extension through the Dubbo extension runner in its own
+ * {@link BenchmarkClassLoader}, the plugin businesses are invisible here.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public final class BenchmarkClient {
+
+    private BenchmarkClient() {
+
+    }
+
+    /**
+     * @param onMeasure invoked once all the workers finished the warm-up.
+     * @return the measured latencies in nanos, the elapsed nanos and the errors.
+     */
+    public static Map<String, Object> run(Map<String, String> properties, int concurrency, int requests,
+                                          int warmup, int payloadSize, int responseSize, Runnable onMeasure) throws Exception {
+        BenchmarkEnv.start("lattice-benchmark-client", properties);
+        RemoteBusiness business = new RemoteBusiness();
+        business.setBizCode(BenchBusiness.CODE);
+        business.getExtensions().add(RemoteExtension.of(BenchAbilityExt.EXT_BENCH_ECHO, true));
+        LatticeRemoteClient.getInstance().registerRemoteBusiness(business);
+        Lattice.getInstance().setSimpleMode(true);
+        Lattice.getInstance().start();
+
+        byte[] payload = new byte[payloadSize];
+        for (int i = 0; i < payloadSize; i++) {
+            payload[i] = (byte) i;
+        }
+        AtomicLong errors = new AtomicLong();
+        AtomicLong startNanos = new AtomicLong();
+        CyclicBarrier barrier = new CyclicBarrier(concurrency, () -> {
+            onMeasure.run();
+            errors.set(0);
+            startNanos.set(System.nanoTime());
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < warmup / concurrency; i++) {
+                    call(worker, i, payload, responseSize, errors);
+                }
+                barrier.await();
+                long[] latencies = new long[requests / concurrency];
+                for (int i = 0; i < latencies.length; i++) {
+                    long start = System.nanoTime();
+                    call(worker, i, payload, responseSize, errors);
+                    latencies[i] = System.nanoTime() - start;
+                }
+                return latencies;
+            }));
+        }
+        List<long[]> latencies = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            latencies.add(future.get());
+        }
+        long elapsed = System.nanoTime() - startNanos.get();
+        executor.shutdown();
+
+        long[] merged = new long[latencies.stream().mapToInt(p -> p.length).sum()];
+        int offset = 0;
+        for (long[] values : latencies) {
+            System.arraycopy(values, 0, merged, offset, values.length);
+            offset += values.length;
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("latencies", merged);
+        result.put("elapsedNanos", elapsed);
+        result.put("errors", errors.get());
+        return result;
+    }
+
+    private static void call(int worker, int index, byte[] payload, int responseSize, AtomicLong errors) {
+        long bizId = (long) worker << 32 | index;
+        try {
+            byte[] result = new BenchAbility(() -> new BenchBizContext(bizId)).echo(payload, responseSize);
+            if (null == result || result.length != responseSize) {
+                errors.incrementAndGet();
+            }
+        } catch (Exception ex) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private static class BenchBizContext extends BizContext {
+
+        private static final long serialVersionUID = 2811695373466519337L;
+
+        private final long bizId;
+
+        BenchBizContext(long bizId) {
+            this.bizId = bizId;
+        }
+
+        @Override
+        public Serializable getBizId() {
+            return bizId;
+        }
+
+        @Override
+        public String getBizCode() {
+            return BenchBusiness.CODE;
+        }
+
+        @Override
+        public String getScenario() {
+            return null;
+        }
+    }
+}
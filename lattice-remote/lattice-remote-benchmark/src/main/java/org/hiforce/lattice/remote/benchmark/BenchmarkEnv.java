@@ -0,0 +1,30 @@
+package org.hiforce.lattice.remote.benchmark;
+
+import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+import org.hiforce.lattice.runtime.config.LatticeSpringConfig;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public final class BenchmarkEnv {
+
+    private BenchmarkEnv() {
+
+    }
+
+    public static AnnotationConfigApplicationContext start(String name, Map<String, String> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource(name, new HashMap<>(properties)));
+        // the properties first, the runner env reads them on init.
+        context.register(LatticeRemoteClientProperties.class, LatticeSpringConfig.class);
+        context.refresh();
+        return context;
+    }
+}
@@ -0,0 +1,38 @@
+package org.hiforce.lattice.remote.benchmark;
+
+import org.apache.dubbo.rpc.Protocol;
+import org.apache.dubbo.rpc.ProtocolServer;
+import org.apache.dubbo.rpc.model.ApplicationModel;
+import org.apache.dubbo.rpc.protocol.dubbo.DubboProtocol;
+import org.hiforce.lattice.remote.container.LatticePluginContainer;
+
+import java.util.Map;
+
+/**
+ * Boot the plugin container in its own {@link BenchmarkClassLoader}.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public final class BenchmarkProvider {
+
+    private BenchmarkProvider() {
+
+    }
+
+    /**
+     * @return the port of the exported Dubbo protocol.
+     */
+    public static int start(Map<String, String> properties) {
+        BenchmarkEnv.start("lattice-benchmark-provider", properties);
+        LatticePluginContainer.getInstance().start();
+        // the protocol itself rather than the wrappers, which keep the servers of the delegate.
+        Protocol protocol = ApplicationModel.defaultModel().getExtensionLoader(Protocol.class)
+                .getExtension(DubboProtocol.NAME, false);
+        return protocol.getServers().stream()
+                .map(ProtocolServer::getAddress)
+                .map(p -> Integer.parseInt(p.substring(p.lastIndexOf(':') + 1)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("The plugin container exported nothing."));
+    }
+}
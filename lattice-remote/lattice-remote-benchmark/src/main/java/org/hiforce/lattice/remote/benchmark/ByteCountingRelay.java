@@ -0,0 +1,110 @@
+package org.hiforce.lattice.remote.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local TCP relay in front of the provider, counting the bytes on the wire.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+@Slf4j
+public class ByteCountingRelay implements Closeable {
+
+    private final int targetPort;
+
+    private final ServerSocket serverSocket;
+
+    private final LongAdder requestBytes = new LongAdder();
+
+    private final LongAdder responseBytes = new LongAdder();
+
+    private volatile boolean closed;
+
+    public ByteCountingRelay(int targetPort) throws IOException {
+        this.targetPort = targetPort;
+        // Dubbo replaces the loopback host of the direct URL with the local address.
+        this.serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(this::accept, "lattice-benchmark-relay");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    public void reset() {
+        requestBytes.reset();
+        responseBytes.reset();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket client = serverSocket.accept();
+                Socket server = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                client.setTcpNoDelay(true);
+                server.setTcpNoDelay(true);
+                pump(client, server, requestBytes);
+                pump(server, client, responseBytes);
+            } catch (IOException ex) {
+                if (!closed) {
+                    log.warn("[Lattice-Benchmark] relay accept failed: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void pump(Socket from, Socket to, LongAdder counter) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    counter.add(read);
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            } catch (IOException ignored) {
+
+            } finally {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        }, "lattice-benchmark-relay-pump");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(serverSocket);
+    }
+}
@@ -0,0 +1,130 @@
+package org.hiforce.lattice.remote.benchmark;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+/**
+ * The end-to-end benchmark of the remote extensions. The plugin container and the client
+ * runtime are booted in one JVM, each in its own {@link BenchmarkClassLoader}, and talk
+ * over the Dubbo protocol on loopback without any registry, through a relay counting the
+ * bytes on the wire.
+ * <p>
+ * Usage: {@code RemoteBenchmark [concurrency=8] [requests=100000] [warmup=20000] [payload=256]
+ * [response=256] [lattice.remote.xxx=value ...]}, the lattice properties are applied to
+ * both the client and the container, e.g. {@code lattice.remote.codec=binary}.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public class RemoteBenchmark {
+
+    private static final String PLUGIN_PACKAGE = "org.hiforce.lattice.remote.benchmark.plugin.";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        Map<String, String> properties = new TreeMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Expect key=value, but got: " + arg);
+            }
+            String key = arg.substring(0, index);
+            (key.startsWith("lattice.") ? properties : options).put(key, arg.substring(index + 1));
+        }
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "100000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "20000"));
+        int payload = Integer.parseInt(options.getOrDefault("payload", "256"));
+        int response = Integer.parseInt(options.getOrDefault("response", "256"));
+
+        // both the Dubbo copies would bind the same QoS port.
+        System.setProperty("dubbo.application.qos-enable", "false");
+        URL[] classpath = getClasspath();
+        Map<String, String> providerProperties = new HashMap<>(properties);
+        providerProperties.put("lattice.remote.registry.address", "N/A");
+        int providerPort = (Integer) runIn(new BenchmarkClassLoader(classpath, null), () ->
+                invoke(BenchmarkProvider.class.getName(), "start", new Class[]{Map.class}, providerProperties));
+
+        try (ByteCountingRelay relay = new ByteCountingRelay(providerPort)) {
+            Map<String, String> clientProperties = new HashMap<>(properties);
+            clientProperties.put("lattice.remote.registry.address", "N/A");
+            clientProperties.put("lattice.remote.reference.url", "dubbo://127.0.0.1:" + relay.getPort());
+            clientProperties.put("lattice.remote.injvm.enabled", "false");
+            Runnable onMeasure = relay::reset;
+            @SuppressWarnings("unchecked")
+            Map<String, Object> result = (Map<String, Object>) runIn(new BenchmarkClassLoader(classpath, PLUGIN_PACKAGE), () ->
+                    invoke(BenchmarkClient.class.getName(), "run",
+                            new Class[]{Map.class, int.class, int.class, int.class, int.class, int.class, Runnable.class},
+                            clientProperties, concurrency, requests, warmup, payload, response, onMeasure));
+            report(properties, concurrency, payload, response, result, relay);
+        }
+        System.exit(0);
+    }
+
+    private static void report(Map<String, String> properties, int concurrency, int payload, int response,
+                               Map<String, Object> result, ByteCountingRelay relay) {
+        long[] latencies = (long[]) result.get("latencies");
+        long elapsed = (Long) result.get("elapsedNanos");
+        Arrays.sort(latencies);
+        int calls = latencies.length;
+        double avg = Arrays.stream(latencies).average().orElse(0);
+        System.out.printf("[Lattice-Benchmark] concurrency=%d, calls=%d, payload=%dB, response=%dB, properties=%s%n",
+                concurrency, calls, payload, response, properties);
+        System.out.printf("  throughput : %.1f calls/s, errors: %d%n", calls * 1e9 / elapsed, (Long) result.get("errors"));
+        System.out.printf("  latency(us): avg=%.1f, p50=%.1f, p90=%.1f, p99=%.1f, p99.9=%.1f, max=%.1f%n",
+                avg / 1e3, percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), calls == 0 ? 0 : latencies[calls - 1] / 1e3);
+        System.out.printf("  bytes/call : request=%.1f, response=%.1f, total=%.1f%n",
+                (double) relay.getRequestBytes() / calls, (double) relay.getResponseBytes() / calls,
+                (double) (relay.getRequestBytes() + relay.getResponseBytes()) / calls);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e3;
+    }
+
+    private static URL[] getClasspath() throws MalformedURLException {
+        String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+        URL[] urls = new URL[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            urls[i] = new File(entries[i]).toURI().toURL();
+        }
+        return urls;
+    }
+
+    private static Object runIn(ClassLoader classLoader, Callable<Object> callable) throws Exception {
+        Thread current = Thread.currentThread();
+        ClassLoader origin = current.getContextClassLoader();
+        current.setContextClassLoader(classLoader);
+        try {
+            return callable.call();
+        } finally {
+            current.setContextClassLoader(origin);
+        }
+    }
+
+    private static Object invoke(String className, String methodName, Class<?>[] types, Object... args) throws Exception {
+        Class<?> klass = Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+        Method method = klass.getMethod(methodName, types);
+        try {
+            return method.invoke(null, args);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
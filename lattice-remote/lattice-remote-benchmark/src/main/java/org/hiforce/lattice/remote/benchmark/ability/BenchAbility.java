@@ -0,0 +1,30 @@
+package org.hiforce.lattice.remote.benchmark.ability;
+
+import org.hiforce.lattice.annotation.Ability;
+import org.hiforce.lattice.model.business.IBizObject;
+import org.hiforce.lattice.runtime.ability.BaseLatticeAbility;
+import org.hiforce.lattice.runtime.ability.reduce.Reducers;
+
+import java.util.Objects;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+@Ability(name = "BenchAbility", code = "lattice.bench.ability")
+public class BenchAbility extends BaseLatticeAbility<BlankBenchAbilityExt> {
+
+    public BenchAbility(IBizObject bizObject) {
+        super(bizObject);
+    }
+
+    public byte[] echo(byte[] payload, int responseSize) {
+        return reduceExecute(extension -> extension.echo(payload, responseSize),
+                Reducers.firstOf(Objects::nonNull));
+    }
+
+    @Override
+    public BlankBenchAbilityExt getDefaultRealization() {
+        return new BlankBenchAbilityExt();
+    }
+}
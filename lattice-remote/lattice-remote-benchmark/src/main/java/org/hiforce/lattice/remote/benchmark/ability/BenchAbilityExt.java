@@ -0,0 +1,19 @@
+package org.hiforce.lattice.remote.benchmark.ability;
+
+import org.hiforce.lattice.annotation.Extension;
+import org.hiforce.lattice.annotation.model.ProtocolType;
+import org.hiforce.lattice.annotation.model.ReduceType;
+import org.hiforce.lattice.model.ability.IBusinessExt;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public interface BenchAbilityExt extends IBusinessExt {
+
+    String EXT_BENCH_ECHO = "lattice.bench.echo";
+
+    @Extension(code = EXT_BENCH_ECHO, name = "Benchmark echo",
+            reduceType = ReduceType.FIRST, protocolType = ProtocolType.REMOTE)
+    byte[] echo(byte[] payload, int responseSize);
+}
@@ -0,0 +1,15 @@
+package org.hiforce.lattice.remote.benchmark.ability;
+
+import org.hiforce.lattice.model.ability.BusinessExt;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public class BlankBenchAbilityExt extends BusinessExt implements BenchAbilityExt {
+
+    @Override
+    public byte[] echo(byte[] payload, int responseSize) {
+        return null;
+    }
+}
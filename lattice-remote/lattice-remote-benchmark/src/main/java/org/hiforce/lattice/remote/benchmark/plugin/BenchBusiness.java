@@ -0,0 +1,15 @@
+package org.hiforce.lattice.remote.benchmark.plugin;
+
+import org.hiforce.lattice.annotation.Business;
+
+/**
+ * The business served by the plugin container, hidden from the client runtime.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+@Business(code = BenchBusiness.CODE, name = "Benchmark Business")
+public class BenchBusiness {
+
+    public static final String CODE = "lattice.bench";
+}
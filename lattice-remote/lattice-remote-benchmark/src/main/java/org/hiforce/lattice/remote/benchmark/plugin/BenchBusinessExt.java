@@ -0,0 +1,23 @@
+package org.hiforce.lattice.remote.benchmark.plugin;
+
+import org.hiforce.lattice.annotation.Realization;
+import org.hiforce.lattice.remote.benchmark.ability.BlankBenchAbilityExt;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+@Realization(codes = BenchBusiness.CODE)
+public class BenchBusinessExt extends BlankBenchAbilityExt {
+
+    @Override
+    public byte[] echo(byte[] payload, int responseSize) {
+        byte[] result = new byte[responseSize];
+        if (null != payload && payload.length > 0) {
+            for (int i = 0; i < responseSize; i++) {
+                result[i] = payload[i % payload.length];
+            }
+        }
+        return result;
+    }
+}
@@ -1,6 +1,13 @@
 package org.hiforce.lattice.remote.client;
 
+import org.hiforce.lattice.remote.client.codec.CodeDictionary;
+import org.hiforce.lattice.remote.client.model.RemoteCall;
+import org.hiforce.lattice.remote.client.model.RemoteCallResult;
+
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -10,4 +17,76 @@ import java.io.Serializable;
 public interface LatticeRemoteInvoker {
 
     Serializable invoke(String bizCode, String scenario, String extCode, Object... params);
+
+    /**
+     * The non-blocking variant of {@link #invoke}, the Dubbo consumer will return
+     * the future as soon as the request has been sent.
+     */
+    default CompletableFuture<Serializable> invokeAsync(String bizCode, String scenario, String extCode, Object... params) {
+        CompletableFuture<Serializable> future = new CompletableFuture<>();
+        try {
+            future.complete(invoke(bizCode, scenario, extCode, params));
+        } catch (Throwable th) {
+            future.completeExceptionally(th);
+        }
+        return future;
+    }
+
+    /**
+     * Invoke several extensions of the same business in one round trip,
+     * the results are in the same order as the calls.
+     */
+    default List<RemoteCallResult> invokeBatch(List<RemoteCall> calls) {
+        List<RemoteCallResult> results = new ArrayList<>(calls.size());
+        for (RemoteCall call : calls) {
+            try {
+                results.add(RemoteCallResult.success(
+                        invoke(call.getBizCode(), call.getScenario(), call.getExtCode(), call.getParams())));
+            } catch (Throwable th) {
+                results.add(RemoteCallResult.failed(th.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    default CompletableFuture<List<RemoteCallResult>> invokeBatchAsync(List<RemoteCall> calls) {
+        CompletableFuture<List<RemoteCallResult>> future = new CompletableFuture<>();
+        try {
+            future.complete(invokeBatch(calls));
+        } catch (Throwable th) {
+            future.completeExceptionally(th);
+        }
+        return future;
+    }
+
+    /**
+     * @return the dense IDs of the codes served by the provider, null if the encoded invocation not supported.
+     */
+    default CodeDictionary getCodeDictionary() {
+        return null;
+    }
+
+    /**
+     * Invoke with the codes replaced by the IDs of the negotiated dictionary, and the params
+     * encoded by the named {@link org.hiforce.lattice.remote.client.codec.RemoteCodec}.
+     *
+     * @param fingerprint the fingerprint of the negotiated dictionary.
+     * @param scenarioId  -1 for the empty scenario.
+     * @return the encoded result.
+     */
+    default byte[] invokeEncoded(String codec, long fingerprint,
+                                 int bizCodeId, int scenarioId, int extCodeId, byte[] params) {
+        throw new UnsupportedOperationException("The encoded invocation not supported.");
+    }
+
+    default CompletableFuture<byte[]> invokeEncodedAsync(String codec, long fingerprint,
+                                                         int bizCodeId, int scenarioId, int extCodeId, byte[] params) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        try {
+            future.complete(invokeEncoded(codec, fingerprint, bizCodeId, scenarioId, extCodeId, params));
+        } catch (Throwable th) {
+            future.completeExceptionally(th);
+        }
+        return future;
+    }
 }
@@ -0,0 +1,53 @@
+package org.hiforce.lattice.remote.client;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The protocol of the multiplexed remote endpoint: one endpoint per plugin container,
+ * publishing the bizCodes it serves and routed by the bizCode of each call.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public final class LatticeRemoteMultiplex {
+
+    /**
+     * The group of the multiplexed endpoint.
+     */
+    public static final String GROUP = "lattice-mux";
+
+    /**
+     * The endpoint parameter holding the served bizCodes.
+     */
+    public static final String BUSINESSES_KEY = "lattice.businesses";
+
+    /**
+     * The attachment holding the bizCode of the call.
+     */
+    public static final String BIZ_CODE_KEY = "lattice.bizCode";
+
+    private LatticeRemoteMultiplex() {
+
+    }
+
+    public static String joinBizCodes(Collection<String> bizCodes) {
+        return new TreeSet<>(bizCodes).stream().collect(Collectors.joining(","));
+    }
+
+    public static Set<String> parseBizCodes(String value) {
+        if (StringUtils.isEmpty(value)) {
+            return Collections.emptySet();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toSet());
+    }
+}
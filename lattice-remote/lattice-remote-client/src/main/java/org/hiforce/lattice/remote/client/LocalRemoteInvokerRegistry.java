@@ -0,0 +1,58 @@
+package org.hiforce.lattice.remote.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The remote invokers available in the current JVM, keyed by bizCode. The remote runners
+ * invoke them directly, without serialization and the network. Also used as the stand-in
+ * of the plugin container in tests.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+public class LocalRemoteInvokerRegistry {
+
+    private static volatile LocalRemoteInvokerRegistry instance;
+
+    private static final Object lock = new Object();
+
+    private final Map<String, LatticeRemoteInvoker> invokers = new ConcurrentHashMap<>();
+
+    private LocalRemoteInvokerRegistry() {
+
+    }
+
+    public static LocalRemoteInvokerRegistry getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new LocalRemoteInvokerRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void register(String bizCode, LatticeRemoteInvoker invoker) {
+        invokers.put(bizCode, invoker);
+    }
+
+    public void unregister(String bizCode) {
+        invokers.remove(bizCode);
+    }
+
+    public void clear() {
+        invokers.clear();
+    }
+
+    public LatticeRemoteInvoker getInvoker(String bizCode) {
+        return invokers.get(bizCode);
+    }
+
+    public Set<String> getBizCodes() {
+        return Collections.unmodifiableSet(invokers.keySet());
+    }
+}
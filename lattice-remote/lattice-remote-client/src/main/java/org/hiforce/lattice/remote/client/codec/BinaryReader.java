@@ -0,0 +1,88 @@
+package org.hiforce.lattice.remote.client.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+class BinaryReader {
+
+    private final byte[] buffer;
+
+    private int position;
+
+    BinaryReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() {
+        if (position >= buffer.length) {
+            throw new IllegalStateException("Unexpected end of the encoded data");
+        }
+        return buffer[position++];
+    }
+
+    int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    int readZigZagInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readZigZagLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readFixedLong() {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value |= (readByte() & 0xFFL) << (i << 3);
+        }
+        return value;
+    }
+
+    int readFixedInt() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value |= (readByte() & 0xFF) << (i << 3);
+        }
+        return value;
+    }
+
+    byte[] readBytes() {
+        int length = readVarInt();
+        if (length < 0 || position + length > buffer.length) {
+            throw new IllegalStateException("Malformed length: " + length);
+        }
+        byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return value;
+    }
+
+    String readString() {
+        int length = readVarInt();
+        if (length < 0 || position + length > buffer.length) {
+            throw new IllegalStateException("Malformed length: " + length);
+        }
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+}
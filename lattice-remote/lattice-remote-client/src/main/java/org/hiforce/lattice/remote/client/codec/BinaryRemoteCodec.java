@@ -0,0 +1,336 @@
+package org.hiforce.lattice.remote.client.codec;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The reference codec. The parameters are written in the order of the schema without type tags,
+ * varint encoded when integral. The values of OBJECT type are prefixed by a one byte tag. The
+ * results fall back to Java serialization if not one of the built-in types, while the params
+ * never do, the provider would deserialize whatever the caller sent. The params not encodable
+ * are rejected by {@link UnsupportedValueException}, to be sent by the plain invocation instead.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class BinaryRemoteCodec implements RemoteCodec {
+
+    public static final String NAME = "binary";
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_TRUE = 1;
+    private static final int TAG_FALSE = 2;
+    private static final int TAG_BYTE = 3;
+    private static final int TAG_SHORT = 4;
+    private static final int TAG_CHAR = 5;
+    private static final int TAG_INT = 6;
+    private static final int TAG_LONG = 7;
+    private static final int TAG_FLOAT = 8;
+    private static final int TAG_DOUBLE = 9;
+    private static final int TAG_STRING = 10;
+    private static final int TAG_BYTES = 11;
+    private static final int TAG_ARRAY_LIST = 12;
+    private static final int TAG_HASH_MAP = 13;
+    private static final int TAG_LINKED_HASH_MAP = 14;
+    private static final int TAG_HASH_SET = 15;
+    private static final int TAG_LINKED_HASH_SET = 16;
+    private static final int TAG_SERIALIZED = 31;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encodeParams(ExtensionSchema schema, Object[] params) {
+        ValueType[] types = schema.getParamTypes();
+        int length = null == params ? 0 : params.length;
+        if (length != types.length) {
+            throw new IllegalArgumentException(
+                    String.format("Expect %d params but %d provided", types.length, length));
+        }
+        BinaryWriter writer = new BinaryWriter(types.length * 8);
+        for (int i = 0; i < types.length; i++) {
+            writeValue(writer, types[i], params[i], false);
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Object[] decodeParams(ExtensionSchema schema, byte[] data) {
+        ValueType[] types = schema.getParamTypes();
+        BinaryReader reader = new BinaryReader(data);
+        Object[] params = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            params[i] = readValue(reader, types[i], false);
+        }
+        return params;
+    }
+
+    @Override
+    public byte[] encodeResult(ExtensionSchema schema, Object result) {
+        BinaryWriter writer = new BinaryWriter(16);
+        writeObject(writer, result, true);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Object decodeResult(ExtensionSchema schema, byte[] data) {
+        return readObject(new BinaryReader(data), true);
+    }
+
+    private void writeValue(BinaryWriter writer, ValueType type, Object value, boolean serializable) {
+        if (type == ValueType.OBJECT) {
+            writeObject(writer, value, serializable);
+            return;
+        }
+        if (!type.isPrimitive()) {
+            if (null == value) {
+                writer.writeByte(0);
+                return;
+            }
+            writer.writeByte(1);
+        }
+        switch (type) {
+            case BOOLEAN:
+            case BOXED_BOOLEAN:
+                writer.writeByte((Boolean) value ? 1 : 0);
+                break;
+            case BYTE:
+            case BOXED_BYTE:
+                writer.writeByte((Byte) value);
+                break;
+            case SHORT:
+            case BOXED_SHORT:
+                writer.writeZigZagInt((Short) value);
+                break;
+            case CHAR:
+            case BOXED_CHAR:
+                writer.writeVarInt((Character) value);
+                break;
+            case INT:
+            case BOXED_INT:
+                writer.writeZigZagInt((Integer) value);
+                break;
+            case LONG:
+            case BOXED_LONG:
+                writer.writeZigZagLong((Long) value);
+                break;
+            case FLOAT:
+            case BOXED_FLOAT:
+                writer.writeFixedInt(Float.floatToIntBits((Float) value));
+                break;
+            case DOUBLE:
+            case BOXED_DOUBLE:
+                writer.writeFixedLong(Double.doubleToLongBits((Double) value));
+                break;
+            case STRING:
+                writer.writeString((String) value);
+                break;
+            case BYTES:
+                writer.writeBytes((byte[]) value);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported value type: " + type);
+        }
+    }
+
+    private Object readValue(BinaryReader reader, ValueType type, boolean serializable) {
+        if (type == ValueType.OBJECT) {
+            return readObject(reader, serializable);
+        }
+        if (!type.isPrimitive() && reader.readByte() == 0) {
+            return null;
+        }
+        switch (type) {
+            case BOOLEAN:
+            case BOXED_BOOLEAN:
+                return reader.readByte() != 0;
+            case BYTE:
+            case BOXED_BYTE:
+                return (byte) reader.readByte();
+            case SHORT:
+            case BOXED_SHORT:
+                return (short) reader.readZigZagInt();
+            case CHAR:
+            case BOXED_CHAR:
+                return (char) reader.readVarInt();
+            case INT:
+            case BOXED_INT:
+                return reader.readZigZagInt();
+            case LONG:
+            case BOXED_LONG:
+                return reader.readZigZagLong();
+            case FLOAT:
+            case BOXED_FLOAT:
+                return Float.intBitsToFloat(reader.readFixedInt());
+            case DOUBLE:
+            case BOXED_DOUBLE:
+                return Double.longBitsToDouble(reader.readFixedLong());
+            case STRING:
+                return reader.readString();
+            case BYTES:
+                return reader.readBytes();
+            default:
+                throw new IllegalStateException("Unsupported value type: " + type);
+        }
+    }
+
+    /**
+     * @param serializable whether the value not of the built-in types falls back to Java serialization.
+     */
+    private void writeObject(BinaryWriter writer, Object value, boolean serializable) {
+        if (null == value) {
+            writer.writeByte(TAG_NULL);
+        } else if (value instanceof Boolean) {
+            writer.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Byte) {
+            writer.writeByte(TAG_BYTE);
+            writer.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            writer.writeByte(TAG_SHORT);
+            writer.writeZigZagInt((Short) value);
+        } else if (value instanceof Character) {
+            writer.writeByte(TAG_CHAR);
+            writer.writeVarInt((Character) value);
+        } else if (value instanceof Integer) {
+            writer.writeByte(TAG_INT);
+            writer.writeZigZagInt((Integer) value);
+        } else if (value instanceof Long) {
+            writer.writeByte(TAG_LONG);
+            writer.writeZigZagLong((Long) value);
+        } else if (value instanceof Float) {
+            writer.writeByte(TAG_FLOAT);
+            writer.writeFixedInt(Float.floatToIntBits((Float) value));
+        } else if (value instanceof Double) {
+            writer.writeByte(TAG_DOUBLE);
+            writer.writeFixedLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof String) {
+            writer.writeByte(TAG_STRING);
+            writer.writeString((String) value);
+        } else if (value instanceof byte[]) {
+            writer.writeByte(TAG_BYTES);
+            writer.writeBytes((byte[]) value);
+        } else if (value.getClass() == ArrayList.class) {
+            writer.writeByte(TAG_ARRAY_LIST);
+            writeElements(writer, (Collection<?>) value, serializable);
+        } else if (value.getClass() == HashSet.class || value.getClass() == LinkedHashSet.class) {
+            writer.writeByte(value.getClass() == HashSet.class ? TAG_HASH_SET : TAG_LINKED_HASH_SET);
+            writeElements(writer, (Collection<?>) value, serializable);
+        } else if (value.getClass() == HashMap.class || value.getClass() == LinkedHashMap.class) {
+            writer.writeByte(value.getClass() == HashMap.class ? TAG_HASH_MAP : TAG_LINKED_HASH_MAP);
+            Map<?, ?> map = (Map<?, ?>) value;
+            writer.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeObject(writer, entry.getKey(), serializable);
+                writeObject(writer, entry.getValue(), serializable);
+            }
+        } else if (!serializable) {
+            throw new UnsupportedValueException(value.getClass());
+        } else {
+            writer.writeByte(TAG_SERIALIZED);
+            writer.writeBytes(serialize(value));
+        }
+    }
+
+    private void writeElements(BinaryWriter writer, Collection<?> elements, boolean serializable) {
+        writer.writeVarInt(elements.size());
+        for (Object element : elements) {
+            writeObject(writer, element, serializable);
+        }
+    }
+
+    private Object readObject(BinaryReader reader, boolean serializable) {
+        int tag = reader.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_BYTE:
+                return (byte) reader.readByte();
+            case TAG_SHORT:
+                return (short) reader.readZigZagInt();
+            case TAG_CHAR:
+                return (char) reader.readVarInt();
+            case TAG_INT:
+                return reader.readZigZagInt();
+            case TAG_LONG:
+                return reader.readZigZagLong();
+            case TAG_FLOAT:
+                return Float.intBitsToFloat(reader.readFixedInt());
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(reader.readFixedLong());
+            case TAG_STRING:
+                return reader.readString();
+            case TAG_BYTES:
+                return reader.readBytes();
+            case TAG_ARRAY_LIST:
+                return readElements(reader, new ArrayList<>(), serializable);
+            case TAG_HASH_SET:
+                return readElements(reader, new HashSet<>(), serializable);
+            case TAG_LINKED_HASH_SET:
+                return readElements(reader, new LinkedHashSet<>(), serializable);
+            case TAG_HASH_MAP:
+                return readEntries(reader, new HashMap<>(), serializable);
+            case TAG_LINKED_HASH_MAP:
+                return readEntries(reader, new LinkedHashMap<>(), serializable);
+            case TAG_SERIALIZED:
+                if (!serializable) {
+                    throw new IllegalStateException("The serialized value is not accepted in the params");
+                }
+                return deserialize(reader.readBytes());
+            default:
+                throw new IllegalStateException("Unknown value tag: " + tag);
+        }
+    }
+
+    private <C extends Collection<Object>> C readElements(BinaryReader reader, C elements, boolean serializable) {
+        int size = reader.readVarInt();
+        for (int i = 0; i < size; i++) {
+            elements.add(readObject(reader, serializable));
+        }
+        return elements;
+    }
+
+    private <M extends Map<Object, Object>> M readEntries(BinaryReader reader, M entries, boolean serializable) {
+        int size = reader.readVarInt();
+        for (int i = 0; i < size; i++) {
+            entries.put(readObject(reader, serializable), readObject(reader, serializable));
+        }
+        return entries;
+    }
+
+    private byte[] serialize(Object value) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(128);
+        try (ObjectOutputStream stream = new ObjectOutputStream(output)) {
+            stream.writeObject(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize " + value.getClass().getName(), e);
+        }
+        return output.toByteArray();
+    }
+
+    private Object deserialize(byte[] data) {
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+                if (null == classLoader) {
+                    return super.resolveClass(desc);
+                }
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException ex) {
+                    return super.resolveClass(desc);
+                }
+            }
+        }) {
+            return stream.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to deserialize the value", e);
+        }
+    }
+}
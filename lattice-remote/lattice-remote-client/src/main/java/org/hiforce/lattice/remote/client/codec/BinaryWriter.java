@@ -0,0 +1,96 @@
+package org.hiforce.lattice.remote.client.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+class BinaryWriter {
+
+    private byte[] buffer;
+
+    private int position;
+
+    BinaryWriter(int capacity) {
+        this.buffer = new byte[Math.max(16, capacity)];
+    }
+
+    private void ensure(int size) {
+        if (position + size > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + size));
+        }
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeZigZagInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    void writeZigZagLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeFixedLong(long value) {
+        ensure(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[position++] = (byte) (value >>> (i << 3));
+        }
+    }
+
+    void writeFixedInt(int value) {
+        ensure(4);
+        for (int i = 0; i < 4; i++) {
+            buffer[position++] = (byte) (value >>> (i << 3));
+        }
+    }
+
+    void writeBytes(byte[] value) {
+        writeVarInt(value.length);
+        ensure(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+    }
+
+    void writeString(String value) {
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                ascii = false;
+                break;
+            }
+        }
+        if (!ascii) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        writeVarInt(length);
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+}
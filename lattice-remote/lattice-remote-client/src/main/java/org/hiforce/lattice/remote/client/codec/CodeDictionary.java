@@ -0,0 +1,77 @@
+package org.hiforce.lattice.remote.client.codec;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The dense IDs of the bizCodes, scenarios and extCodes served by a plugin container,
+ * negotiated when the remote reference is built. The IDs are assigned in the sorted order
+ * of the codes, so the containers serving the same plugins share one dictionary.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class CodeDictionary implements Serializable {
+
+    private static final long serialVersionUID = -2093420213587624005L;
+
+    /**
+     * The error raised by the provider if the fingerprint not matched.
+     */
+    public static final String MISMATCH = "LATTICE-CODE-DICTIONARY-MISMATCH";
+
+    @Getter
+    private final String[] codes;
+
+    @Getter
+    private final long fingerprint;
+
+    private transient Map<String, Integer> ids;
+
+    private CodeDictionary(String[] codes, long fingerprint) {
+        this.codes = codes;
+        this.fingerprint = fingerprint;
+    }
+
+    public static CodeDictionary of(Collection<String> codes) {
+        String[] sorted = new TreeSet<>(codes).toArray(new String[0]);
+        long hash = 0xcbf29ce484222325L;
+        for (String code : sorted) {
+            for (byte b : code.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return new CodeDictionary(sorted, hash);
+    }
+
+    /**
+     * @return the ID of the code, -1 if absent.
+     */
+    public int getId(String code) {
+        if (null == code) {
+            return -1;
+        }
+        Map<String, Integer> map = ids;
+        if (null == map) {
+            map = new HashMap<>(codes.length * 2);
+            for (int i = 0; i < codes.length; i++) {
+                map.put(codes[i], i);
+            }
+            ids = map;
+        }
+        return map.getOrDefault(code, -1);
+    }
+
+    public String getCode(int id) {
+        return id < 0 || id >= codes.length ? null : codes[id];
+    }
+}
@@ -0,0 +1,38 @@
+package org.hiforce.lattice.remote.client.codec;
+
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The parameter types of the extension method. Both the client and the provider derive
+ * it from the method signature, so the parameters can be encoded without type tags.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class ExtensionSchema {
+
+    private static final Map<Method, ExtensionSchema> SCHEMA_CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Getter
+    private final ValueType[] paramTypes;
+
+    private ExtensionSchema(ValueType[] paramTypes) {
+        this.paramTypes = paramTypes;
+    }
+
+    public static ExtensionSchema of(Method method) {
+        return SCHEMA_CACHE.computeIfAbsent(method, k -> {
+            Class<?>[] types = k.getParameterTypes();
+            ValueType[] paramTypes = new ValueType[types.length];
+            for (int i = 0; i < types.length; i++) {
+                paramTypes[i] = ValueType.of(types[i]);
+            }
+            return new ExtensionSchema(paramTypes);
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package org.hiforce.lattice.remote.client.codec;
+
+/**
+ * The codec of the remote extension parameters and results, loaded with
+ * {@link java.util.ServiceLoader} and selected by name.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public interface RemoteCodec {
+
+    String getName();
+
+    byte[] encodeParams(ExtensionSchema schema, Object[] params);
+
+    Object[] decodeParams(ExtensionSchema schema, byte[] data);
+
+    byte[] encodeResult(ExtensionSchema schema, Object result);
+
+    Object decodeResult(ExtensionSchema schema, byte[] data);
+}
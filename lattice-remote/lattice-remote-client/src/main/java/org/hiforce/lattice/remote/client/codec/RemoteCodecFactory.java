@@ -0,0 +1,44 @@
+package org.hiforce.lattice.remote.client.codec;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class RemoteCodecFactory {
+
+    private static volatile RemoteCodecFactory instance;
+
+    private static final Object lock = new Object();
+
+    private final Map<String, RemoteCodec> codecs = new ConcurrentHashMap<>();
+
+    private RemoteCodecFactory() {
+        register(new BinaryRemoteCodec());
+        for (RemoteCodec codec : ServiceLoader.load(RemoteCodec.class, RemoteCodecFactory.class.getClassLoader())) {
+            register(codec);
+        }
+    }
+
+    public static RemoteCodecFactory getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new RemoteCodecFactory();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void register(RemoteCodec codec) {
+        codecs.put(codec.getName(), codec);
+    }
+
+    public RemoteCodec getCodec(String name) {
+        return null == name ? null : codecs.get(name);
+    }
+}
@@ -0,0 +1,23 @@
+package org.hiforce.lattice.remote.client.codec;
+
+import lombok.Getter;
+
+/**
+ * The param value can't be encoded by the codec, the invocation should be sent
+ * by the plain invocation instead.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public class UnsupportedValueException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = -3527118349902647716L;
+
+    @Getter
+    private final Class<?> valueClass;
+
+    public UnsupportedValueException(Class<?> valueClass) {
+        super("The param value can't be encoded: " + valueClass.getName());
+        this.valueClass = valueClass;
+    }
+}
@@ -0,0 +1,56 @@
+package org.hiforce.lattice.remote.client.codec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public enum ValueType {
+
+    BOOLEAN(boolean.class),
+    BYTE(byte.class),
+    SHORT(short.class),
+    CHAR(char.class),
+    INT(int.class),
+    LONG(long.class),
+    FLOAT(float.class),
+    DOUBLE(double.class),
+    BOXED_BOOLEAN(Boolean.class),
+    BOXED_BYTE(Byte.class),
+    BOXED_SHORT(Short.class),
+    BOXED_CHAR(Character.class),
+    BOXED_INT(Integer.class),
+    BOXED_LONG(Long.class),
+    BOXED_FLOAT(Float.class),
+    BOXED_DOUBLE(Double.class),
+    STRING(String.class),
+    BYTES(byte[].class),
+    /**
+     * Self-described by a tag, for the types not known until runtime.
+     */
+    OBJECT(Object.class);
+
+    private static final Map<Class<?>, ValueType> TYPES = new HashMap<>();
+
+    static {
+        for (ValueType type : values()) {
+            TYPES.put(type.javaType, type);
+        }
+    }
+
+    private final Class<?> javaType;
+
+    ValueType(Class<?> javaType) {
+        this.javaType = javaType;
+    }
+
+    public boolean isPrimitive() {
+        return javaType.isPrimitive();
+    }
+
+    public static ValueType of(Class<?> javaType) {
+        return TYPES.getOrDefault(javaType, OBJECT);
+    }
+}
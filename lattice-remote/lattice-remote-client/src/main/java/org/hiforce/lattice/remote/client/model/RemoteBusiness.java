@@ -27,6 +27,14 @@ public class RemoteBusiness implements Serializable {
     @Setter
     private boolean forceStrongDependency = true;
 
+    /**
+     * Route the calls of one bizId to the same provider by consistent hashing, so the
+     * provider side per entity caches stay hot.
+     */
+    @Getter
+    @Setter
+    private boolean bizIdAffinity;
+
     @Getter
     private final Set<RemoteExtension> extensions = Sets.newHashSet();
 }
@@ -0,0 +1,40 @@
+package org.hiforce.lattice.remote.client.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/20
+ */
+public class RemoteCall implements Serializable {
+
+    private static final long serialVersionUID = -4010930725745407719L;
+
+    @Getter
+    @Setter
+    private String bizCode;
+
+    @Getter
+    @Setter
+    private String scenario;
+
+    @Getter
+    @Setter
+    private String extCode;
+
+    @Getter
+    @Setter
+    private Object[] params;
+
+    public static RemoteCall of(String bizCode, String scenario, String extCode, Object... params) {
+        RemoteCall call = new RemoteCall();
+        call.setBizCode(bizCode);
+        call.setScenario(scenario);
+        call.setExtCode(extCode);
+        call.setParams(params);
+        return call;
+    }
+}
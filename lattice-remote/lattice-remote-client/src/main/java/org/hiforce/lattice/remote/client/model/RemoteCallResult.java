@@ -0,0 +1,41 @@
+package org.hiforce.lattice.remote.client.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/20
+ */
+public class RemoteCallResult implements Serializable {
+
+    private static final long serialVersionUID = 7363285862640612203L;
+
+    @Getter
+    @Setter
+    private boolean success;
+
+    @Getter
+    @Setter
+    private Serializable value;
+
+    @Getter
+    @Setter
+    private String errorMessage;
+
+    public static RemoteCallResult success(Serializable value) {
+        RemoteCallResult result = new RemoteCallResult();
+        result.setSuccess(true);
+        result.setValue(value);
+        return result;
+    }
+
+    public static RemoteCallResult failed(String errorMessage) {
+        RemoteCallResult result = new RemoteCallResult();
+        result.setSuccess(false);
+        result.setErrorMessage(errorMessage);
+        return result;
+    }
+}
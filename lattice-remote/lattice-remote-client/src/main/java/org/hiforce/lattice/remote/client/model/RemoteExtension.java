@@ -22,6 +22,22 @@ public class RemoteExtension implements Serializable {
     @Setter
     private boolean strongDependency;
 
+    /**
+     * The TTL in milliseconds of the cached invoke result, 0 means
+     * following the cacheTtl of the @Extension.
+     */
+    @Getter
+    @Setter
+    private long cacheTtl;
+
+    /**
+     * Send a hedged duplicate request after the observed p95 latency,
+     * only for the weak dependency extensions.
+     */
+    @Getter
+    @Setter
+    private boolean hedged;
+
     public static RemoteExtension of(String extCode, boolean strongDependency) {
         RemoteExtension extension = new RemoteExtension();
         extension.setExtCode(extCode);
@@ -29,6 +45,12 @@ public class RemoteExtension implements Serializable {
         return extension;
     }
 
+    public static RemoteExtension of(String extCode, boolean strongDependency, long cacheTtl) {
+        RemoteExtension extension = of(extCode, strongDependency);
+        extension.setCacheTtl(cacheTtl);
+        return extension;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -22,6 +22,107 @@ public class LatticeRemoteClientProperties implements InitializingBean {
     @Setter
     private String registryAddress;
 
+    /**
+     * Connect the remote references to this provider URL directly instead of
+     * subscribing the registry, e.g. dubbo://127.0.0.1:20880 for local testing.
+     */
+    @Getter
+    @Setter
+    private String referenceUrl;
+
+    /**
+     * Issue the remote extension runners asynchronously and join them at reduce time.
+     */
+    @Getter
+    @Setter
+    private boolean asyncInvoke;
+
+    /**
+     * How long a remote call issued in a RemoteBatchScope waits for the other calls
+     * of the same business to join its batch.
+     */
+    @Getter
+    @Setter
+    private long batchLingerMillis = 2;
+
+    @Getter
+    @Setter
+    private int batchMaxSize = 16;
+
+    /**
+     * The period of preparing the newly registered or failed remote references.
+     */
+    @Getter
+    @Setter
+    private long referenceRefreshSeconds = 30;
+
+    /**
+     * The max entries of the remote extension result cache.
+     */
+    @Getter
+    @Setter
+    private int resultCacheSize = 10000;
+
+    /**
+     * Bound the weak dependency remote extensions by the timeout adapted from their latency,
+     * and fall back to the default realization once exceeded.
+     */
+    @Getter
+    @Setter
+    private boolean adaptiveTimeout;
+
+    @Getter
+    @Setter
+    private long minTimeoutMillis = 50;
+
+    @Getter
+    @Setter
+    private long maxTimeoutMillis = 1000;
+
+    /**
+     * Invoke the remote extensions directly if the plugin container is in the same JVM.
+     */
+    @Getter
+    @Setter
+    private boolean injvmInvoke = true;
+
+    /**
+     * The name of the codec encoding the remote extension params and results, empty means
+     * the generic Dubbo serialization.
+     */
+    @Getter
+    @Setter
+    private String codec;
+
+    /**
+     * Export one endpoint per plugin container routed by bizCode, instead of one per business.
+     */
+    @Getter
+    @Setter
+    private boolean multiplexInvoke;
+
+    /**
+     * Run the provider invocations on bounded executors per business, shedding the overflow.
+     */
+    @Getter
+    @Setter
+    private boolean bulkheadEnabled;
+
+    @Getter
+    @Setter
+    private int bulkheadThreads = 16;
+
+    @Getter
+    @Setter
+    private int bulkheadQueueSize = 64;
+
+    /**
+     * Run the bulkheads on virtual threads if supported by the JDK.
+     */
+    @Getter
+    @Setter
+    private boolean bulkheadVirtual;
+
     @Autowired
     private Environment environment;
 
@@ -32,6 +133,22 @@ public class LatticeRemoteClientProperties implements InitializingBean {
     @Override
     public void afterPropertiesSet() throws Exception {
         instance = this;
+        asyncInvoke = environment.getProperty("lattice.remote.async.enabled", Boolean.class, false);
+        batchLingerMillis = environment.getProperty("lattice.remote.batch.linger", Long.class, 2L);
+        batchMaxSize = environment.getProperty("lattice.remote.batch.size", Integer.class, 16);
+        resultCacheSize = environment.getProperty("lattice.remote.cache.size", Integer.class, 10000);
+        adaptiveTimeout = environment.getProperty("lattice.remote.timeout.adaptive", Boolean.class, false);
+        minTimeoutMillis = environment.getProperty("lattice.remote.timeout.min", Long.class, 50L);
+        maxTimeoutMillis = environment.getProperty("lattice.remote.timeout.max", Long.class, 1000L);
+        injvmInvoke = environment.getProperty("lattice.remote.injvm.enabled", Boolean.class, true);
+        codec = environment.getProperty("lattice.remote.codec");
+        bulkheadEnabled = environment.getProperty("lattice.remote.bulkhead.enabled", Boolean.class, false);
+        bulkheadThreads = environment.getProperty("lattice.remote.bulkhead.threads", Integer.class, 16);
+        bulkheadQueueSize = environment.getProperty("lattice.remote.bulkhead.queue", Integer.class, 64);
+        bulkheadVirtual = environment.getProperty("lattice.remote.bulkhead.virtual", Boolean.class, false);
+        multiplexInvoke = environment.getProperty("lattice.remote.multiplex.enabled", Boolean.class, false);
+        referenceUrl = environment.getProperty("lattice.remote.reference.url");
+        referenceRefreshSeconds = environment.getProperty("lattice.remote.reference.refresh", Long.class, 30L);
         registryAddress = environment.getProperty("lattice.remote.registry.address");
         if (StringUtils.isEmpty(registryAddress)) {
             registryAddress = environment.getProperty("dubbo.registry.address");
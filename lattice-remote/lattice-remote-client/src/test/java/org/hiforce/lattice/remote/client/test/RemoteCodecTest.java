@@ -0,0 +1,128 @@
+package org.hiforce.lattice.remote.client.test;
+
+import org.hiforce.lattice.remote.client.codec.BinaryRemoteCodec;
+import org.hiforce.lattice.remote.client.codec.CodeDictionary;
+import org.hiforce.lattice.remote.client.codec.ExtensionSchema;
+import org.hiforce.lattice.remote.client.codec.RemoteCodec;
+import org.hiforce.lattice.remote.client.codec.UnsupportedValueException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Round trip the params and results through the binary codec, check the params are never
+ * Java serialized, and compare it with the Java serialization of the codes and params.
+ */
+public class RemoteCodecTest {
+
+    private static final int ITERATIONS = 200_000;
+
+    public interface FeeExt {
+        Serializable calculate(String orderType, long orderId, int amount, Integer discount, boolean vip,
+                               double rate, byte[] token, List<String> tags, Object extra);
+    }
+
+    public static void main(String[] args) throws Exception {
+        RemoteCodec codec = new BinaryRemoteCodec();
+        Method method = FeeExt.class.getMethod("calculate", String.class, long.class, int.class, Integer.class,
+                boolean.class, double.class, byte[].class, List.class, Object.class);
+        ExtensionSchema schema = ExtensionSchema.of(method);
+
+        Map<String, Object> extra = new LinkedHashMap<>();
+        extra.put("channel", "app");
+        extra.put("amount", 1230L);
+        Object[] params = new Object[]{"中文-order", -12345678901L, 42, null, true, 0.125,
+                new byte[]{1, 2, 3}, new ArrayList<>(Arrays.asList("a", "b", null)), extra};
+
+        Object[] decoded = codec.decodeParams(schema, codec.encodeParams(schema, params));
+        check(Arrays.deepEquals(params, decoded), "params round trip");
+        for (Object result : Arrays.asList(null, "fee", 7, -7L, 1.5f, 'c', (short) 3, (byte) 4, Boolean.FALSE,
+                new HashSet<>(Arrays.asList(1, 2)), new HashMap<>(Collections.singletonMap("k", 1)),
+                new BigDecimal("99.01"))) {
+            Object value = codec.decodeResult(schema, codec.encodeResult(schema, result));
+            check(Objects.equals(result, value), "result round trip: " + result);
+        }
+
+        Object[] unsupported = params.clone();
+        unsupported[8] = Collections.singletonMap("amount", new BigDecimal("12.30"));
+        check(rejected(() -> codec.encodeParams(schema, unsupported)) instanceof UnsupportedValueException,
+                "the param not of the built-in types is not encoded");
+        Object[] objectParam = new Object[]{null, 0L, 0, null, false, 0.0, null, null, "extra"};
+        byte[] encoded = codec.encodeParams(schema, objectParam);
+        // replace the tagged string of the last param by a serialized value
+        int prefix = encoded.length - 2 - "extra".length();
+        byte[] serialized = codec.encodeResult(schema, new BigDecimal("12.30"));
+        byte[] forged = Arrays.copyOf(encoded, prefix + serialized.length);
+        System.arraycopy(serialized, 0, forged, prefix, serialized.length);
+        check(rejected(() -> codec.decodeParams(schema, forged)) instanceof IllegalStateException,
+                "the serialized param is rejected by the provider");
+
+        CodeDictionary dictionary = CodeDictionary.of(Arrays.asList("business.b", "business.a", "ext.fee"));
+        CodeDictionary other = CodeDictionary.of(Arrays.asList("ext.fee", "business.a", "business.b"));
+        check(dictionary.getFingerprint() == other.getFingerprint(), "dictionary fingerprint");
+        check("business.a".equals(dictionary.getCode(dictionary.getId("business.a"))), "dictionary id");
+        check(dictionary.getId("absent") == -1, "dictionary absent");
+        System.out.println("Round trip passed.");
+
+        Object[] simple = new Object[]{"NORMAL", 1234567L, 42, 5, false, 0.5, new byte[8],
+                new ArrayList<>(Arrays.asList("x", "y")), "extra"};
+        int binaryBytes = 0;
+        int javaBytes = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                byte[] data = codec.encodeParams(schema, simple);
+                binaryBytes = data.length + 3 * 4 + 8;
+                codec.decodeParams(schema, data);
+            }
+            long binaryCost = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                byte[] data = javaSerialize(new Object[]{"business.a", null, "ext.fee", simple});
+                javaBytes = data.length;
+                javaDeserialize(data);
+            }
+            long javaCost = System.nanoTime() - start;
+            if (round == 1) {
+                System.out.printf("binary: %d bytes/call, %.2f us/call%n", binaryBytes, binaryCost / 1000.0 / ITERATIONS);
+                System.out.printf("java serialization: %d bytes/call, %.2f us/call%n", javaBytes, javaCost / 1000.0 / ITERATIONS);
+            }
+        }
+    }
+
+    private static RuntimeException rejected(Runnable task) {
+        try {
+            task.run();
+            return null;
+        } catch (RuntimeException ex) {
+            return ex;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+
+    private static byte[] javaSerialize(Object value) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(output)) {
+            stream.writeObject(value);
+        }
+        return output.toByteArray();
+    }
+
+    private static Object javaDeserialize(byte[] data) throws Exception {
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return stream.readObject();
+        }
+    }
+}
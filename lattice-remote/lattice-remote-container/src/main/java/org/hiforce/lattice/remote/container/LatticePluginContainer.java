@@ -4,11 +4,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.dubbo.config.*;
 import org.hiforce.lattice.model.register.BusinessSpec;
 import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.LatticeRemoteMultiplex;
+import org.hiforce.lattice.remote.client.LocalRemoteInvokerRegistry;
 import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+import org.hiforce.lattice.remote.container.bulkhead.BulkheadRemoteInvoker;
 import org.hiforce.lattice.remote.container.service.LatticeRemoteInvokerImpl;
+import org.hiforce.lattice.remote.container.service.RemoteDispatchTable;
 import org.hiforce.lattice.runtime.Lattice;
 import org.hiforce.lattice.runtime.ability.register.TemplateRegister;
 
+import java.util.Collections;
+import java.util.stream.Collectors;
+
 /**
  * @author Rocky Yu
  * @since 2022/9/30
@@ -17,8 +24,31 @@ public class LatticePluginContainer {
 
     private static LatticePluginContainer instance;
 
+    private final LatticeRemoteInvoker localInvoker = new LatticeRemoteInvokerImpl();
+
+    private volatile LatticeRemoteInvoker exportedInvoker;
+
+    private volatile ServiceConfig<LatticeRemoteInvoker> multiplexedService;
+
     private LatticePluginContainer() {
+        Lattice.getInstance().addStartListener(() -> {
+            RemoteDispatchTable.getInstance().rebuild();
+            registerLocalInvokers();
+            refreshMultiplexedService();
+        });
+    }
 
+    /**
+     * Make the businesses of the container invokable in the same JVM.
+     */
+    private void registerLocalInvokers() {
+        LocalRemoteInvokerRegistry registry = LocalRemoteInvokerRegistry.getInstance();
+        registry.getBizCodes().stream()
+                .filter(p -> registry.getInvoker(p) == localInvoker)
+                .forEach(registry::unregister);
+        for (BusinessSpec businessSpec : TemplateRegister.getInstance().getBusinesses()) {
+            registry.register(businessSpec.getCode(), localInvoker);
+        }
     }
 
     public static LatticePluginContainer getInstance() {
@@ -36,6 +66,9 @@ public class LatticePluginContainer {
             return;
         }
 
+        exportedInvoker = LatticeRemoteClientProperties.getInstance().isBulkheadEnabled() ?
+                new BulkheadRemoteInvoker(localInvoker) : localInvoker;
+
         ApplicationConfig application = new ApplicationConfig();
         application.setName("lattice-plugin-server");
         application.setId("lattice-plugin-server");
@@ -56,16 +89,66 @@ public class LatticePluginContainer {
                 LatticeRemoteClientProperties.getInstance().getRegistryAddress());
 
 
+        if (LatticeRemoteClientProperties.getInstance().isMultiplexInvoke()) {
+            ServiceConfig<LatticeRemoteInvoker> service = new ServiceConfig<>();
+            service.setApplication(application);
+            service.setRegistry(registry);
+            service.setProtocol(protocol);
+            exportMultiplexedService(service);
+            return;
+        }
+
         for (BusinessSpec businessSpec : TemplateRegister.getInstance().getBusinesses()) {
             ServiceConfig<LatticeRemoteInvoker> service = new ServiceConfig<>();
             service.setApplication(application);
             service.setRegistry(registry); // Use setRegistries() for multi-registry case
             service.setProtocol(protocol); // Use setProtocols() for multi-protocol case
             service.setInterface(LatticeRemoteInvoker.class);
-            service.setRef(new LatticeRemoteInvokerImpl());
+            service.setRef(exportedInvoker);
             service.setVersion("1.0.0");
             service.setGroup(String.format("lattice-%s", businessSpec.getCode()));
             service.export();
         }
     }
+
+    /**
+     * Export one endpoint for all the businesses of the container, publishing the served
+     * bizCodes for the consumers to route by.
+     */
+    private void exportMultiplexedService(ServiceConfig<LatticeRemoteInvoker> service) {
+        service.setInterface(LatticeRemoteInvoker.class);
+        service.setRef(exportedInvoker);
+        service.setVersion("1.0.0");
+        service.setGroup(LatticeRemoteMultiplex.GROUP);
+        service.setParameters(Collections.singletonMap(LatticeRemoteMultiplex.BUSINESSES_KEY, getServedBizCodes()));
+        service.export();
+        multiplexedService = service;
+    }
+
+    /**
+     * Re-export the multiplexed endpoint if the served businesses changed on reload. The new one
+     * is exported before the old one is unexported, so the endpoint is never missing in between.
+     */
+    private synchronized void refreshMultiplexedService() {
+        ServiceConfig<LatticeRemoteInvoker> current = multiplexedService;
+        if (null == current) {
+            return;
+        }
+        String served = getServedBizCodes();
+        if (StringUtils.equals(served, current.getParameters().get(LatticeRemoteMultiplex.BUSINESSES_KEY))) {
+            return;
+        }
+        ServiceConfig<LatticeRemoteInvoker> service = new ServiceConfig<>();
+        service.setApplication(current.getApplication());
+        service.setRegistry(current.getRegistry());
+        service.setProtocol(current.getProtocol());
+        exportMultiplexedService(service);
+        current.unexport();
+    }
+
+    private String getServedBizCodes() {
+        return LatticeRemoteMultiplex.joinBizCodes(TemplateRegister.getInstance().getBusinesses().stream()
+                .map(BusinessSpec::getCode)
+                .collect(Collectors.toList()));
+    }
 }
@@ -0,0 +1,113 @@
+package org.hiforce.lattice.remote.container.bulkhead;
+
+import org.apache.dubbo.rpc.AsyncContext;
+import org.apache.dubbo.rpc.RpcContext;
+import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.codec.CodeDictionary;
+import org.hiforce.lattice.remote.client.model.RemoteCall;
+import org.hiforce.lattice.remote.client.model.RemoteCallResult;
+import org.hiforce.lattice.remote.container.service.RemoteDispatchTable;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The exported invoker of the plugin container, running the invocations on the bulkhead
+ * of their business instead of the shared Dubbo protocol threads. The blocking methods
+ * complete through the Dubbo {@link AsyncContext}, so the protocol threads are released
+ * as soon as the invocation is dispatched.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class BulkheadRemoteInvoker implements LatticeRemoteInvoker {
+
+    private final LatticeRemoteInvoker delegate;
+
+    public BulkheadRemoteInvoker(LatticeRemoteInvoker delegate) {
+        this.delegate = delegate;
+    }
+
+    private static <T> CompletableFuture<T> submit(String bizCode, Supplier<T> task) {
+        RemoteBulkhead bulkhead = RemoteBulkheadRegistry.getInstance().getBulkhead(bizCode);
+        if (null == bulkhead) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new RejectedExecutionException(
+                    "[Lattice] The business is not served by the container: " + bizCode));
+            return future;
+        }
+        return bulkhead.submit(task);
+    }
+
+    private static <T> T reply(CompletableFuture<T> future) {
+        AsyncContext context = RpcContext.startAsync();
+        future.whenComplete((value, th) -> {
+            context.signalContextSwitch();
+            if (null != th) {
+                context.write(th instanceof CompletionException && null != th.getCause() ? th.getCause() : th);
+            } else {
+                context.write(value);
+            }
+        });
+        return null;
+    }
+
+    @Override
+    public Serializable invoke(String bizCode, String scenario, String extCode, Object... params) {
+        return reply(invokeAsync(bizCode, scenario, extCode, params));
+    }
+
+    @Override
+    public CompletableFuture<Serializable> invokeAsync(String bizCode, String scenario, String extCode, Object... params) {
+        return submit(bizCode, () -> delegate.invoke(bizCode, scenario, extCode, params));
+    }
+
+    @Override
+    public List<RemoteCallResult> invokeBatch(List<RemoteCall> calls) {
+        return reply(invokeBatchAsync(calls));
+    }
+
+    @Override
+    public CompletableFuture<List<RemoteCallResult>> invokeBatchAsync(List<RemoteCall> calls) {
+        if (null == calls || calls.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        List<CompletableFuture<RemoteCallResult>> futures = calls.stream()
+                .map(call -> submit(call.getBizCode(), () -> delegate.invokeBatch(Collections.singletonList(call)).get(0))
+                        .exceptionally(th -> RemoteCallResult.failed(
+                                (th instanceof CompletionException && null != th.getCause() ? th.getCause() : th).getMessage())))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    @Override
+    public CodeDictionary getCodeDictionary() {
+        return delegate.getCodeDictionary();
+    }
+
+    @Override
+    public byte[] invokeEncoded(String codec, long fingerprint,
+                                int bizCodeId, int scenarioId, int extCodeId, byte[] params) {
+        return reply(invokeEncodedAsync(codec, fingerprint, bizCodeId, scenarioId, extCodeId, params));
+    }
+
+    @Override
+    public CompletableFuture<byte[]> invokeEncodedAsync(String codec, long fingerprint,
+                                                        int bizCodeId, int scenarioId, int extCodeId, byte[] params) {
+        CodeDictionary dictionary = RemoteDispatchTable.getInstance().getCodeDictionary();
+        if (dictionary.getFingerprint() != fingerprint) {
+            CompletableFuture<byte[]> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException(CodeDictionary.MISMATCH));
+            return future;
+        }
+        String bizCode = dictionary.getCode(bizCodeId);
+        return submit(bizCode, () -> delegate.invokeEncoded(codec, fingerprint, bizCodeId, scenarioId, extCodeId, params));
+    }
+}
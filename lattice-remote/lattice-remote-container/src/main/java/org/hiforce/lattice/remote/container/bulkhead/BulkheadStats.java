@@ -0,0 +1,70 @@
+package org.hiforce.lattice.remote.container.bulkhead;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * The snapshot of the metrics of a {@link RemoteBulkhead}.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class BulkheadStats implements Serializable {
+
+    private static final long serialVersionUID = -2405431712186519270L;
+
+    @Getter
+    private final String bizCode;
+
+    @Getter
+    private final int maxConcurrency;
+
+    @Getter
+    private final int queueLimit;
+
+    @Getter
+    private final boolean virtual;
+
+    @Getter
+    private final int active;
+
+    @Getter
+    private final int queueDepth;
+
+    @Getter
+    private final long rejected;
+
+    @Getter
+    private final long completed;
+
+    /**
+     * From admission to completion, including the queueing time.
+     */
+    @Getter
+    private final double avgLatencyMillis;
+
+    @Getter
+    private final double maxLatencyMillis;
+
+    BulkheadStats(String bizCode, int maxConcurrency, int queueLimit, boolean virtual, int active, int queueDepth,
+                  long rejected, long completed, double avgLatencyMillis, double maxLatencyMillis) {
+        this.bizCode = bizCode;
+        this.maxConcurrency = maxConcurrency;
+        this.queueLimit = queueLimit;
+        this.virtual = virtual;
+        this.active = active;
+        this.queueDepth = queueDepth;
+        this.rejected = rejected;
+        this.completed = completed;
+        this.avgLatencyMillis = avgLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[active=%d/%d, queued=%d/%d, rejected=%d, completed=%d, avg=%.2fms, max=%.2fms%s]",
+                bizCode, active, maxConcurrency, queueDepth, queueLimit, rejected, completed,
+                avgLatencyMillis, maxLatencyMillis, virtual ? ", virtual" : "");
+    }
+}
@@ -0,0 +1,177 @@
+package org.hiforce.lattice.remote.container.bulkhead;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The isolated executor of one business in the plugin container. At most
+ * {@code maxConcurrency} invocations run at once and at most {@code queueLimit} wait,
+ * the others are shed immediately.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+@Slf4j
+public class RemoteBulkhead {
+
+    @Getter
+    private final String bizCode;
+
+    @Getter
+    private final int maxConcurrency;
+
+    @Getter
+    private final int queueLimit;
+
+    @Getter
+    private final boolean virtual;
+
+    private final Semaphore admission;
+
+    private final Semaphore concurrency;
+
+    private final ExecutorService executor;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder latencyNanos = new LongAdder();
+
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    public RemoteBulkhead(String bizCode, int maxConcurrency, int queueLimit, boolean preferVirtual) {
+        this.bizCode = bizCode;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.queueLimit = Math.max(0, queueLimit);
+        this.admission = new Semaphore(this.maxConcurrency + this.queueLimit);
+        ExecutorService virtualExecutor = preferVirtual ? newVirtualThreadExecutor() : null;
+        this.virtual = null != virtualExecutor;
+        if (virtual) {
+            this.executor = virtualExecutor;
+            this.concurrency = new Semaphore(this.maxConcurrency);
+        } else {
+            // the queue is bounded by the admission.
+            this.executor = Executors.newFixedThreadPool(this.maxConcurrency, newThreadFactory(bizCode));
+            this.concurrency = null;
+        }
+    }
+
+    /**
+     * @return the future of the task, completed exceptionally with a
+     * {@link RejectedExecutionException} if the business is saturated.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException(String.format(
+                    "[Lattice] The business %s is overloaded, active: %d, queued: %d",
+                    bizCode, active.get(), queued.get())));
+            return future;
+        }
+        queued.incrementAndGet();
+        long start = System.nanoTime();
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            executor.execute(() -> run(task, future, start, classLoader));
+        } catch (RejectedExecutionException ex) {
+            queued.decrementAndGet();
+            admission.release();
+            rejected.increment();
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    private <T> void run(Supplier<T> task, CompletableFuture<T> future, long start, ClassLoader classLoader) {
+        boolean running = false;
+        T value = null;
+        Throwable error = null;
+        Thread current = Thread.currentThread();
+        ClassLoader origin = current.getContextClassLoader();
+        try {
+            if (null != concurrency) {
+                concurrency.acquire();
+            }
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            running = true;
+            current.setContextClassLoader(classLoader);
+            value = task.get();
+        } catch (InterruptedException ex) {
+            queued.decrementAndGet();
+            current.interrupt();
+            error = ex;
+        } catch (Throwable th) {
+            error = th;
+        } finally {
+            current.setContextClassLoader(origin);
+            if (running) {
+                active.decrementAndGet();
+                if (null != concurrency) {
+                    concurrency.release();
+                }
+            }
+            admission.release();
+            long cost = System.nanoTime() - start;
+            completed.increment();
+            latencyNanos.add(cost);
+            maxLatencyNanos.accumulate(cost);
+        }
+        if (null != error) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(value);
+        }
+    }
+
+    public BulkheadStats getStats() {
+        long count = completed.sum();
+        return new BulkheadStats(bizCode, maxConcurrency, queueLimit, virtual, active.get(), queued.get(),
+                rejected.sum(), count, count == 0 ? 0 : latencyNanos.sum() / count / 1000_000.0,
+                maxLatencyNanos.get() / 1000_000.0);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory newThreadFactory(String bizCode) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, String.format("lattice-biz-%s-%d", bizCode, counter.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return the virtual thread per task executor, null if not supported by the running JDK.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception ex) {
+            log.info("[Lattice] virtual threads not supported, fall back to the platform threads.");
+            return null;
+        }
+    }
+}
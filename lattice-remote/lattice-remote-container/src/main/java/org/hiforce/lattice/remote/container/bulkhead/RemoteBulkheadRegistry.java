@@ -0,0 +1,71 @@
+package org.hiforce.lattice.remote.container.bulkhead;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+import org.hiforce.lattice.remote.container.service.RemoteDispatchTable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * The bulkheads of the businesses served by the plugin container, one per bizCode.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class RemoteBulkheadRegistry {
+
+    private static volatile RemoteBulkheadRegistry instance;
+
+    private static final Object lock = new Object();
+
+    private final ConcurrentMap<String, RemoteBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    private RemoteBulkheadRegistry() {
+
+    }
+
+    public static RemoteBulkheadRegistry getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new RemoteBulkheadRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return the bulkhead of the business, null if the business is not served by the {@link RemoteDispatchTable}.
+     */
+    public RemoteBulkhead getBulkhead(String bizCode) {
+        if (!RemoteDispatchTable.getInstance().isServed(bizCode)) {
+            return null;
+        }
+        return bulkheads.computeIfAbsent(bizCode, this::newBulkhead);
+    }
+
+    private RemoteBulkhead newBulkhead(String bizCode) {
+        Optional<LatticeRemoteClientProperties> properties = Optional.ofNullable(LatticeRemoteClientProperties.getInstance());
+        return new RemoteBulkhead(bizCode,
+                properties.map(LatticeRemoteClientProperties::getBulkheadThreads).orElse(16),
+                properties.map(LatticeRemoteClientProperties::getBulkheadQueueSize).orElse(64),
+                properties.map(LatticeRemoteClientProperties::isBulkheadVirtual).orElse(false));
+    }
+
+    public List<BulkheadStats> getStats() {
+        return bulkheads.values().stream()
+                .map(RemoteBulkhead::getStats)
+                .collect(Collectors.toList());
+    }
+
+    public BulkheadStats getStats(String bizCode) {
+        return Optional.ofNullable(bulkheads.get(StringUtils.defaultString(bizCode)))
+                .map(RemoteBulkhead::getStats)
+                .orElse(null);
+    }
+}
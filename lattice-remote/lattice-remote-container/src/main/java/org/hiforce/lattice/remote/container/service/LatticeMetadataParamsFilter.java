@@ -0,0 +1,21 @@
+package org.hiforce.lattice.remote.container.service;
+
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.metadata.MetadataParamsFilter;
+import org.hiforce.lattice.remote.client.LatticeRemoteMultiplex;
+
+/**
+ * Keep the served bizCodes of the multiplexed endpoint in the service metadata, so they
+ * reach the consumers under the application level service discovery as well.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+@Activate
+public class LatticeMetadataParamsFilter implements MetadataParamsFilter {
+
+    @Override
+    public String[] serviceParamsIncluded() {
+        return new String[]{LatticeRemoteMultiplex.BUSINESSES_KEY};
+    }
+}
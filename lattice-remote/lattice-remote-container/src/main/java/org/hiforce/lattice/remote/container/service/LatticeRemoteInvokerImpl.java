@@ -1,15 +1,20 @@
 package org.hiforce.lattice.remote.container.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
-import org.hiforce.lattice.model.ability.IBusinessExt;
-import org.hiforce.lattice.model.register.RealizationSpec;
 import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
-import org.hiforce.lattice.runtime.Lattice;
-import org.hiforce.lattice.utils.BusinessExtUtils;
+import org.hiforce.lattice.remote.client.codec.CodeDictionary;
+import org.hiforce.lattice.remote.client.codec.ExtensionSchema;
+import org.hiforce.lattice.remote.client.codec.RemoteCodec;
+import org.hiforce.lattice.remote.client.codec.RemoteCodecFactory;
+import org.hiforce.lattice.remote.client.model.RemoteCall;
+import org.hiforce.lattice.remote.client.model.RemoteCallResult;
 
 import java.io.Serializable;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * @author Rocky Yu
@@ -18,45 +23,79 @@ import java.lang.reflect.Method;
 @Slf4j
 public class LatticeRemoteInvokerImpl implements LatticeRemoteInvoker {
 
+    private static final int LOG_SAMPLE_RATE = 1024;
+
+    private static final AtomicLong INVOKE_COUNTER = new AtomicLong();
+
+    /**
+     * The calls run in order on the calling thread, the
+     * {@link org.hiforce.lattice.remote.container.bulkhead.BulkheadRemoteInvoker}
+     * runs each of them on the bulkhead of its business instead.
+     */
+    @Override
+    public List<RemoteCallResult> invokeBatch(List<RemoteCall> calls) {
+        if (null == calls || calls.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return calls.stream().map(this::invokeCall).collect(Collectors.toList());
+    }
+
+    private RemoteCallResult invokeCall(RemoteCall call) {
+        try {
+            return RemoteCallResult.success(invoke(call.getBizCode(), call.getScenario(), call.getExtCode(), call.getParams()));
+        } catch (Throwable th) {
+            return RemoteCallResult.failed(th.getMessage());
+        }
+    }
+
     @Override
-    @SuppressWarnings("all")
     public Serializable invoke(String bizCode, String scenario, String extCode, Object... params) {
-        log.info("[Lattice]Remote Invoked, bizCode={}, scenario={}, extCode={} ", bizCode, scenario, extCode);
-        RealizationSpec realizationSpec = Lattice.getInstance().getAllRealizations().stream()
-                .filter(p -> StringUtils.equals(bizCode, p.getCode()))
-                .filter(p -> isScenarioMatched(scenario, p.getScenario()))
-                .filter(p -> p.getExtensionCodes().contains(extCode))
-                .findFirst().orElse(null);
-        if (null == realizationSpec) {
+        if (INVOKE_COUNTER.getAndIncrement() % LOG_SAMPLE_RATE == 0) {
+            log.info("[Lattice]Remote Invoked(sampled 1/{}), bizCode={}, scenario={}, extCode={} ",
+                    LOG_SAMPLE_RATE, bizCode, scenario, extCode);
+        }
+        MethodHandle handle = RemoteDispatchTable.getInstance().getHandle(bizCode, scenario, extCode);
+        if (null == handle) {
             log.warn("[Lattice] The realization not found. bizCode={}, scenario={}, extCode={} ", bizCode, scenario, extCode);
             return null;
         }
         try {
-            IBusinessExt businessExt = realizationSpec.getBusinessExt().getBusinessExtByCode(extCode, scenario);
-            log.debug("[Lattice] The BusinessExt={}, bizCode={}, scenario={}, extCode={}",
-                    businessExt, bizCode, scenario, extCode);
-
-            Method method = BusinessExtUtils.getExtensionMethod(businessExt, extCode, scenario);
-            Serializable value = (Serializable) method.invoke(businessExt, params);
+            Serializable value = (Serializable) (Object) handle.invokeExact(null == params ? new Object[0] : params);
             log.debug("[Lattice] Remote invoke bizCode={}, scenario={}, extCode={}, result={}",
-                    bizCode, scenario, extCode,
-                    null == value ? null : value.toString());
+                    bizCode, scenario, extCode, value);
             return value;
-        } catch (Exception e) {
+        } catch (Throwable e) {
             log.info("[Lattice] Remote invoke runtime exception occurred. ex=bizCode={}, scenario={}, extCode={}, ex={}",
                     bizCode, scenario, extCode, e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
-    private boolean isScenarioMatched(String targetScenario, String specScenario) {
-        if (StringUtils.isEmpty(targetScenario) && StringUtils.isEmpty(specScenario)) {
-            return true;
+    @Override
+    public CodeDictionary getCodeDictionary() {
+        return RemoteDispatchTable.getInstance().getCodeDictionary();
+    }
+
+    @Override
+    public byte[] invokeEncoded(String codecName, long fingerprint,
+                                int bizCodeId, int scenarioId, int extCodeId, byte[] params) {
+        CodeDictionary dictionary = RemoteDispatchTable.getInstance().getCodeDictionary();
+        if (dictionary.getFingerprint() != fingerprint) {
+            throw new IllegalStateException(CodeDictionary.MISMATCH);
         }
-        if (null == targetScenario || null == specScenario) {
-            return false;
+        RemoteCodec codec = RemoteCodecFactory.getInstance().getCodec(codecName);
+        if (null == codec) {
+            throw new IllegalStateException("The remote codec not found: " + codecName);
         }
-        return StringUtils.equals(targetScenario, specScenario);
-
+        String bizCode = dictionary.getCode(bizCodeId);
+        String scenario = dictionary.getCode(scenarioId);
+        String extCode = dictionary.getCode(extCodeId);
+        ExtensionSchema schema = RemoteDispatchTable.getInstance().getSchema(bizCode, scenario, extCode);
+        if (null == schema) {
+            log.warn("[Lattice] The realization not found. bizCode={}, scenario={}, extCode={} ", bizCode, scenario, extCode);
+            return codec.encodeResult(null, null);
+        }
+        Serializable value = invoke(bizCode, scenario, extCode, codec.decodeParams(schema, params));
+        return codec.encodeResult(schema, value);
     }
 }
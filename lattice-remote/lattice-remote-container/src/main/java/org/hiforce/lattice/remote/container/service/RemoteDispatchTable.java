@@ -0,0 +1,185 @@
+package org.hiforce.lattice.remote.container.service;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.model.ability.IBusinessExt;
+import org.hiforce.lattice.model.register.RealizationSpec;
+import org.hiforce.lattice.remote.client.codec.CodeDictionary;
+import org.hiforce.lattice.remote.client.codec.ExtensionSchema;
+import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.utils.BusinessExtUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The immutable (bizCode, scenario, extCode) to bound extension MethodHandle table,
+ * rebuilt each time the Lattice has been started or reloaded.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/20
+ */
+@Slf4j
+public class RemoteDispatchTable {
+
+    private static volatile RemoteDispatchTable instance;
+
+    private static final Object lock = new Object();
+
+    private volatile Map<DispatchKey, DispatchEntry> entries = ImmutableMap.of();
+
+    private volatile Set<String> bizCodes = ImmutableSet.of();
+
+    @Getter
+    private volatile CodeDictionary codeDictionary = CodeDictionary.of(Collections.emptyList());
+
+    private RemoteDispatchTable() {
+
+    }
+
+    public static RemoteDispatchTable getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new RemoteDispatchTable();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return the handle of type (Object[])Object, or null if no realization matched.
+     */
+    public MethodHandle getHandle(String bizCode, String scenario, String extCode) {
+        DispatchEntry entry = entries.get(new DispatchKey(bizCode, scenario, extCode));
+        return null == entry ? null : entry.handle;
+    }
+
+    public ExtensionSchema getSchema(String bizCode, String scenario, String extCode) {
+        DispatchEntry entry = entries.get(new DispatchKey(bizCode, scenario, extCode));
+        return null == entry ? null : entry.schema;
+    }
+
+    /**
+     * @return whether any realization of the business is served by the table.
+     */
+    public boolean isServed(String bizCode) {
+        return null != bizCode && bizCodes.contains(bizCode);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<DispatchKey, DispatchEntry> table = new HashMap<>();
+        Set<String> codes = new HashSet<>();
+        Set<String> served = new HashSet<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (RealizationSpec realization : Lattice.getInstance().getAllRealizations()) {
+            for (String extCode : realization.getExtensionCodes()) {
+                DispatchKey key = new DispatchKey(realization.getCode(), realization.getScenario(), extCode);
+                if (table.containsKey(key)) {
+                    continue;
+                }
+                try {
+                    DispatchEntry entry = buildEntry(lookup, realization, extCode);
+                    if (null != entry) {
+                        table.put(key, entry);
+                        served.add(realization.getCode());
+                        codes.add(realization.getCode());
+                        codes.add(extCode);
+                        if (StringUtils.isNotEmpty(realization.getScenario())) {
+                            codes.add(realization.getScenario());
+                        }
+                    }
+                } catch (Exception ex) {
+                    log.warn("[Lattice] Failed to build the remote dispatch handle, bizCode={}, scenario={}, extCode={}, ex={}",
+                            realization.getCode(), realization.getScenario(), extCode, ex.getMessage());
+                }
+            }
+        }
+        entries = ImmutableMap.copyOf(table);
+        bizCodes = ImmutableSet.copyOf(served);
+        codeDictionary = CodeDictionary.of(codes);
+        log.info("[Lattice] Remote dispatch table rebuilt, size: {}, cost: {}ms",
+                table.size(), System.currentTimeMillis() - start);
+    }
+
+    private DispatchEntry buildEntry(MethodHandles.Lookup lookup, RealizationSpec realization, String extCode)
+            throws IllegalAccessException {
+        IBusinessExt businessExt = realization.getBusinessExt().getBusinessExtByCode(extCode, realization.getScenario());
+        if (null == businessExt) {
+            return null;
+        }
+        Method method = BusinessExtUtils.getExtensionMethod(businessExt, extCode, realization.getScenario());
+        if (null == method) {
+            return null;
+        }
+        method.setAccessible(true);
+        int paramCount = method.getParameterCount();
+        MethodHandle handle = lookup.unreflect(method)
+                .asFixedArity()
+                .bindTo(businessExt)
+                .asType(MethodType.genericMethodType(paramCount))
+                .asSpreader(Object[].class, paramCount);
+        return new DispatchEntry(handle, ExtensionSchema.of(method));
+    }
+
+    private static class DispatchEntry {
+
+        private final MethodHandle handle;
+
+        private final ExtensionSchema schema;
+
+        DispatchEntry(MethodHandle handle, ExtensionSchema schema) {
+            this.handle = handle;
+            this.schema = schema;
+        }
+    }
+
+    private static class DispatchKey {
+
+        private final String bizCode;
+
+        private final String scenario;
+
+        private final String extCode;
+
+        private final int hash;
+
+        DispatchKey(String bizCode, String scenario, String extCode) {
+            this.bizCode = bizCode;
+            this.scenario = StringUtils.isEmpty(scenario) ? null : scenario;
+            this.extCode = extCode;
+            this.hash = Objects.hash(bizCode, this.scenario, extCode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            DispatchKey that = (DispatchKey) o;
+            return hash == that.hash && Objects.equals(bizCode, that.bizCode)
+                    && Objects.equals(scenario, that.scenario) && Objects.equals(extCode, that.extCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.hiforce.lattice.remote.container.test;
+
+import org.hiforce.lattice.annotation.Extension;
+import org.hiforce.lattice.model.ability.BusinessExt;
+import org.hiforce.lattice.model.ability.IBusinessExt;
+import org.hiforce.lattice.model.register.RealizationSpec;
+import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.model.RemoteCall;
+import org.hiforce.lattice.remote.client.model.RemoteCallResult;
+import org.hiforce.lattice.remote.container.bulkhead.BulkheadRemoteInvoker;
+import org.hiforce.lattice.remote.container.bulkhead.RemoteBulkheadRegistry;
+import org.hiforce.lattice.remote.container.service.LatticeRemoteInvokerImpl;
+import org.hiforce.lattice.remote.container.service.RemoteDispatchTable;
+import org.hiforce.lattice.runtime.Lattice;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Check the batch invocation of the provider, the batch keeps one result per call, in order,
+ * each running on its own business.
+ */
+public class RemoteBatchTest {
+
+    private static final String BIZ_CODE = "business.quote";
+
+    private static final String EXT_CODE = "ext.quote";
+
+    public interface QuoteExt extends IBusinessExt {
+
+        @Extension(code = EXT_CODE)
+        String quote(String sku);
+    }
+
+    public static class QuoteRealization extends BusinessExt implements QuoteExt {
+
+        @Override
+        public String quote(String sku) {
+            if (null == sku) {
+                throw new IllegalArgumentException("sku required");
+            }
+            return sku + "@" + Thread.currentThread().getName();
+        }
+    }
+
+    public static void main(String[] args) {
+        Lattice.getInstance().setSimpleMode(true);
+        Lattice.getInstance().start();
+        RealizationSpec realization = new RealizationSpec();
+        realization.setCode(BIZ_CODE);
+        realization.getExtensionCodes().add(EXT_CODE);
+        realization.setBusinessExt(new QuoteRealization());
+        Lattice.getInstance().getAllRealizations().add(realization);
+        RemoteDispatchTable.getInstance().rebuild();
+        check(RemoteDispatchTable.getInstance().isServed(BIZ_CODE), "business served");
+
+        List<RemoteCall> calls = Arrays.asList(
+                RemoteCall.of(BIZ_CODE, null, EXT_CODE, "sku-1"),
+                RemoteCall.of(BIZ_CODE, null, EXT_CODE, (Object) null),
+                RemoteCall.of(BIZ_CODE, null, EXT_CODE, "sku-3"),
+                RemoteCall.of("business.unknown", null, EXT_CODE, "sku-4"));
+
+        String caller = Thread.currentThread().getName();
+        List<RemoteCallResult> direct = new LatticeRemoteInvokerImpl().invokeBatch(calls);
+        check(direct.size() == calls.size(), "one result per call");
+        check(String.valueOf(direct.get(0).getValue()).equals("sku-1@" + caller), "first call on the caller thread");
+        check(!direct.get(1).isSuccess(), "failed call kept in place");
+        check(String.valueOf(direct.get(2).getValue()).startsWith("sku-3@"), "third call in order");
+        check(direct.get(3).isSuccess() && null == direct.get(3).getValue(), "unknown realization returns null");
+
+        LatticeRemoteInvoker bulkhead = new BulkheadRemoteInvoker(new LatticeRemoteInvokerImpl());
+        List<RemoteCallResult> isolated = bulkhead.invokeBatchAsync(calls).join();
+        check(isolated.size() == calls.size(), "one result per call on the bulkheads");
+        check(String.valueOf(isolated.get(0).getValue()).startsWith("sku-1@lattice-biz-" + BIZ_CODE),
+                "call run on the business bulkhead");
+        check(!isolated.get(1).isSuccess(), "failed call kept in place on the bulkheads");
+        check(String.valueOf(isolated.get(2).getValue()).startsWith("sku-3@lattice-biz-" + BIZ_CODE),
+                "third call in order on the bulkheads");
+        check(!isolated.get(3).isSuccess(), "unserved business rejected");
+        check(null == RemoteBulkheadRegistry.getInstance().getStats("business.unknown"),
+                "no bulkhead created for the unserved business");
+        System.out.println("Remote batch checks passed.");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+}
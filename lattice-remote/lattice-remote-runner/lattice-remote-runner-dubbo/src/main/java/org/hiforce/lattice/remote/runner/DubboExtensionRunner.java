@@ -1,14 +1,11 @@
 package org.hiforce.lattice.remote.runner;
 
-import com.google.common.collect.Maps;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.dubbo.config.ApplicationConfig;
-import org.apache.dubbo.config.ReferenceConfig;
-import org.apache.dubbo.config.RegistryConfig;
 import org.hiforce.lattice.exception.LatticeRuntimeException;
 import org.hiforce.lattice.extension.ExtensionRemoteRunner;
+import org.hiforce.lattice.extension.ExtensionRunner;
 import org.hiforce.lattice.extension.ExtensionRunnerType;
 import org.hiforce.lattice.model.ability.IAbility;
 import org.hiforce.lattice.model.ability.IBusinessExt;
@@ -16,15 +13,30 @@ import org.hiforce.lattice.model.ability.execute.ExtensionCallback;
 import org.hiforce.lattice.model.business.IBizObject;
 import org.hiforce.lattice.model.register.TemplateSpec;
 import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.model.RemoteCall;
 import org.hiforce.lattice.remote.client.model.RemoteExtension;
-import org.hiforce.lattice.remote.runner.init.LatticeDubboRunnerEnv;
-import org.hiforce.lattice.remote.runner.key.DubboInvokeCacheKey;
+import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+import org.hiforce.lattice.remote.runner.batch.RemoteBatchScope;
+import org.hiforce.lattice.remote.runner.batch.RemoteCallBatcher;
+import org.hiforce.lattice.remote.runner.cache.RemoteReferenceCache;
+import org.hiforce.lattice.remote.runner.codec.EncodedInvocation;
+import org.hiforce.lattice.remote.runner.cache.RemoteResultCache;
+import org.hiforce.lattice.remote.runner.cache.RemoteResultKey;
+import org.hiforce.lattice.remote.runner.latency.LatencyTracker;
+import org.hiforce.lattice.remote.runner.latency.RemoteLatencyRegistry;
 import org.hiforce.lattice.utils.JacksonUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Rocky Yu
@@ -34,8 +46,10 @@ import java.util.Map;
 @Slf4j
 public class DubboExtensionRunner<R> extends ExtensionRemoteRunner<R> {
 
-    private static Map<DubboInvokeCacheKey, LatticeRemoteInvoker>
-            INVOKE_CACHE = Maps.newHashMap();
+    /**
+     * The result marker of the weak dependency exceeded its timeout budget.
+     */
+    private static final List TIMED_OUT = Collections.unmodifiableList(new ArrayList<>());
 
     @Getter
     @Setter
@@ -53,10 +67,29 @@ public class DubboExtensionRunner<R> extends ExtensionRemoteRunner<R> {
     @Setter
     private RemoteExtension remoteExtension;
 
+    @Getter
+    @Setter
+    private boolean bizIdAffinity;
+
     public DubboExtensionRunner(String extensionCode) {
         super(extensionCode);
     }
 
+    @Override
+    public ExtensionRunner<R> bindAbility(IAbility ability) {
+        if (this.ability == ability) {
+            return this;
+        }
+        DubboExtensionRunner<R> runner = new DubboExtensionRunner<>(getExtensionCode());
+        runner.setModel(getModel());
+        runner.setAbility(ability);
+        runner.setTemplate(template);
+        runner.setScenario(scenario);
+        runner.setRemoteExtension(remoteExtension);
+        runner.setBizIdAffinity(bizIdAffinity);
+        return runner;
+    }
+
 
     @Override
     public Object runFirstMatched(IBizObject bizObject, ExtensionCallback callback, RunnerExecuteResult executeResult) {
@@ -67,8 +100,12 @@ public class DubboExtensionRunner<R> extends ExtensionRemoteRunner<R> {
          */
         List<Object> extParams = ability.getContext().getInvokeParams();
         executeResult.setRunnerType(getType());
+        if (isAdaptiveTimeout() && !remoteExtension.isStrongDependency()) {
+            return joinAsync(runAllMatchedAsync(bizObject, callback, executeResult),
+                    bizObject, callback, executeResult).get(0);
+        }
         try {
-            return invoke(extParams);
+            return invoke(extParams, getRouteKey(bizObject));
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             if (remoteExtension.isStrongDependency()) {
@@ -80,31 +117,273 @@ public class DubboExtensionRunner<R> extends ExtensionRemoteRunner<R> {
         }
     }
 
-    private Object invoke(List<Object> params) {
-        String bizCode = template.getCode();
-        String scenario = getScenario();
+    @NotNull
+    @Override
+    public CompletableFuture<List<R>> runAllMatchedAsync(
+            IBizObject bizObject, ExtensionCallback callback, RunnerExecuteResult executeResult) {
+        List<Object> extParams = ability.getContext().getInvokeParams();
+        executeResult.setRunnerType(getType());
+        Object[] args = extParams.toArray();
+        Method extMethod = ability.getContext().getExtMethod();
+        String routeKey = getRouteKey(bizObject);
+        long cacheTtl = getCacheTtl();
+        CompletableFuture<Serializable> future = cacheTtl > 0 ?
+                RemoteResultCache.getInstance().get(buildResultKey(extMethod, args), cacheTtl, () -> issueHedged(args, extMethod, routeKey)) :
+                issueHedged(args, extMethod, routeKey);
+        CompletableFuture<List<R>> result = future.handle((value, ex) -> {
+            executeResult.setExecute(true);
+            if (null != ex) {
+                Throwable cause = ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex;
+                log.error(cause.getMessage(), cause);
+                if (remoteExtension.isStrongDependency()) {
+                    throw new LatticeRuntimeException("LATTICE-RMI-DUBBO-0001", cause.getMessage());
+                }
+                return Collections.singletonList(null);
+            }
+            return Collections.singletonList((R) value);
+        });
+        if (!isAdaptiveTimeout() || remoteExtension.isStrongDependency()) {
+            return result;
+        }
+        // the cached future is shared by the coalesced callers, its latency is not the own one.
+        return withTimeoutBudget(result, cacheTtl > 0 ? null : future);
+    }
+
+    /**
+     * Bound the weak dependency by the adaptive timeout, the future is completed with
+     * {@link #TIMED_OUT} once exceeded, and {@link #joinAsync} falls back to the default realization.
+     * The exceeded call is not cancelled but left to finish, so its latency is still tracked and the
+     * budget grows with a slowing provider, instead of being fixed by the fast calls only.
+     */
+    private CompletableFuture<List<R>> withTimeoutBudget(
+            CompletableFuture<List<R>> result, CompletableFuture<Serializable> remote) {
+        LatticeRemoteClientProperties properties = LatticeRemoteClientProperties.getInstance();
+        LatencyTracker tracker = getLatencyTracker();
+        long budget = tracker.getTimeoutBudget(properties.getMinTimeoutMillis(), properties.getMaxTimeoutMillis());
+        CompletableFuture<List<R>> guarded = new CompletableFuture<>();
+        result.whenComplete((value, ex) -> {
+            if (null == ex) {
+                guarded.complete(value);
+            } else {
+                guarded.completeExceptionally(ex);
+            }
+        });
+        long start = System.currentTimeMillis();
+        ScheduledFuture<?> timeout = RemoteLatencyRegistry.getInstance().schedule(() -> {
+            if (guarded.complete((List<R>) TIMED_OUT)) {
+                tracker.incrementTimeout();
+                log.warn("[Lattice-Remote] remote invoke exceeded the budget {}ms, bizCode: {}, extCode: {}",
+                        budget, template.getCode(), getExtensionCode());
+                if (null == remote) {
+                    tracker.record(budget);
+                    return;
+                }
+                // the success is recorded by the call itself, the failure after the budget is recorded here.
+                remote.whenComplete((value, ex) -> {
+                    if (null != ex) {
+                        tracker.record(System.currentTimeMillis() - start);
+                    }
+                });
+            }
+        }, budget);
+        guarded.whenComplete((value, ex) -> timeout.cancel(false));
+        return guarded;
+    }
+
+    /**
+     * Fall back to the default realization on the joining thread once the budget exceeded,
+     * so the callback runs with the InvokeCache and session of the caller.
+     */
+    @Override
+    public List<R> joinAsync(CompletableFuture<List<R>> future, IBizObject bizObject,
+                             ExtensionCallback<IBusinessExt, R> callback, RunnerExecuteResult executeResult) {
+        List<R> result = future.join();
+        if (result != TIMED_OUT) {
+            return result;
+        }
+        executeResult.setExecute(true);
+        log.warn("[Lattice-Remote] fall back to the default realization. bizCode: {}, extCode: {}",
+                template.getCode(), getExtensionCode());
+        return Collections.singletonList(callback.apply(ability.getDefaultRealization()));
+    }
+
+    /**
+     * Send a duplicate request of the weak dependency if the first one
+     * has not completed after the observed p95 latency, the duplicate drops the bizId affinity.
+     */
+    private CompletableFuture<Serializable> issueHedged(Object[] args, Method extMethod, String routeKey) {
+        CompletableFuture<Serializable> primary = issueAsync(args, extMethod, routeKey);
+        LatencyTracker tracker = getLatencyTracker();
+        if (!remoteExtension.isHedged() || remoteExtension.isStrongDependency() || !tracker.isWarmedUp()) {
+            return primary;
+        }
+        CompletableFuture<Serializable> hedged = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<Serializable>> backup = new AtomicReference<>();
+        primary.whenComplete((value, ex) -> complete(hedged, value, ex));
+        ScheduledFuture<?> hedge = RemoteLatencyRegistry.getInstance().schedule(() -> {
+            if (hedged.isDone()) {
+                return;
+            }
+            tracker.incrementHedge();
+            // without the route key, the hedge is not pinned to the provider of the slow primary.
+            backup.set(issueAsync(args, extMethod, null));
+            backup.get().whenComplete((value, ex) -> complete(hedged, value, ex));
+        }, Math.max(1, tracker.getP95()));
+        hedged.whenComplete((value, ex) -> {
+            hedge.cancel(false);
+            primary.cancel(false);
+            Optional.ofNullable(backup.get()).ifPresent(p -> p.cancel(false));
+        });
+        return hedged;
+    }
+
+    private static void complete(CompletableFuture<Serializable> future, Serializable value, Throwable ex) {
+        if (null == ex) {
+            future.complete(value);
+        } else {
+            future.completeExceptionally(ex);
+        }
+    }
+
+    private CompletableFuture<Serializable> issueAsync(Object[] args, Method extMethod, String routeKey) {
+        try {
+            LatticeRemoteInvoker remoteInvoker = getRemoteInvoker(template.getCode(), routeKey);
+            LatencyTracker tracker = getLatencyTracker();
+            long start = System.currentTimeMillis();
+            RemoteBatchScope scope = RemoteBatchScope.current();
+            EncodedInvocation encoded = null != scope ? null : EncodedInvocation.prepare(
+                    remoteInvoker, template.getCode(), getScenario(), getExtensionCode(), extMethod);
+            CompletableFuture<Serializable> future;
+            if (null != scope) {
+                future = RemoteCallBatcher.getInstance().submit(remoteInvoker, routeKey,
+                        RemoteCall.of(template.getCode(), getScenario(), getExtensionCode(), args), scope);
+            } else if (null != encoded) {
+                future = encoded.invokeAsync(args).handle((value, ex) -> {
+                    if (null == ex) {
+                        return CompletableFuture.completedFuture(value);
+                    }
+                    if (EncodedInvocation.isMismatch(ex)) {
+                        RemoteReferenceCache.getInstance().renegotiate(template.getCode());
+                        return remoteInvoker.invokeAsync(template.getCode(), getScenario(), getExtensionCode(), args);
+                    }
+                    CompletableFuture<Serializable> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(ex);
+                    return failed;
+                }).thenCompose(p -> p);
+            } else {
+                future = remoteInvoker.invokeAsync(template.getCode(), getScenario(), getExtensionCode(), args);
+            }
+            future.whenComplete((value, ex) -> {
+                if (null == ex) {
+                    tracker.record(System.currentTimeMillis() - start);
+                }
+            });
+            return future;
+        } catch (Exception ex) {
+            CompletableFuture<Serializable> future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+            return future;
+        }
+    }
 
-        DubboInvokeCacheKey key = new DubboInvokeCacheKey(bizCode, scenario, getExtensionCode());
+    @Override
+    public boolean isAsyncSupported() {
+        return Optional.ofNullable(LatticeRemoteClientProperties.getInstance())
+                .map(LatticeRemoteClientProperties::isAsyncInvoke)
+                .orElse(false);
+    }
 
-        LatticeRemoteInvoker remoteInvoker = INVOKE_CACHE.get(key);
-        if (null == remoteInvoker) {
+    private boolean isAdaptiveTimeout() {
+        return Optional.ofNullable(LatticeRemoteClientProperties.getInstance())
+                .map(LatticeRemoteClientProperties::isAdaptiveTimeout)
+                .orElse(false);
+    }
 
-            ApplicationConfig application = LatticeDubboRunnerEnv.getInstance().getApplication();
-            RegistryConfig registry = LatticeDubboRunnerEnv.getInstance().getRegistry();
+    private LatencyTracker getLatencyTracker() {
+        return RemoteLatencyRegistry.getInstance().getTracker(template.getCode(), getExtensionCode());
+    }
 
-            ReferenceConfig<LatticeRemoteInvoker> reference = new ReferenceConfig<>();
-            reference.setApplication(application);
-            reference.setRegistry(registry); // 多个注册中心可以用setRegistries()
-            reference.setInterface(LatticeRemoteInvoker.class);
-            reference.setVersion("1.0.0");
-            reference.setGroup("lattice-" + bizCode);
-            remoteInvoker = reference.get();
-            INVOKE_CACHE.put(key, remoteInvoker);
+    private Object invoke(List<Object> params, String routeKey) {
+        Object[] args = params.toArray();
+        long cacheTtl = getCacheTtl();
+        if (cacheTtl <= 0) {
+            return doInvoke(args, routeKey);
         }
+        try {
+            return RemoteResultCache.getInstance().get(buildResultKey(ability.getContext().getExtMethod(), args), cacheTtl,
+                    () -> CompletableFuture.completedFuture(doInvoke(args, routeKey))).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private Serializable doInvoke(Object[] args, String routeKey) {
+        String bizCode = template.getCode();
+        LatticeRemoteInvoker remoteInvoker = getRemoteInvoker(bizCode, routeKey);
         log.info("[Lattice-Remote] remote invoke bizCode: {}, extCode: {}, params: {} ",
-                bizCode, getExtensionCode(), (null == params ? null : JacksonUtils.serializeWithoutException(params)));
-        return remoteInvoker.invoke(bizCode, scenario,
-                getExtensionCode(), (Object[]) params.toArray());
+                bizCode, getExtensionCode(), JacksonUtils.serializeWithoutException(args));
+        long start = System.currentTimeMillis();
+        RemoteBatchScope scope = RemoteBatchScope.current();
+        if (null != scope) {
+            Serializable value = joinBatched(RemoteCallBatcher.getInstance().submit(remoteInvoker, routeKey,
+                    RemoteCall.of(bizCode, getScenario(), getExtensionCode(), args), scope));
+            getLatencyTracker().record(System.currentTimeMillis() - start);
+            return value;
+        }
+        EncodedInvocation encoded = EncodedInvocation.prepare(remoteInvoker, bizCode, getScenario(),
+                getExtensionCode(), ability.getContext().getExtMethod());
+        Serializable value;
+        try {
+            value = null == encoded ? remoteInvoker.invoke(bizCode, getScenario(), getExtensionCode(), args) :
+                    encoded.invoke(args);
+        } catch (RuntimeException ex) {
+            if (!EncodedInvocation.isMismatch(ex)) {
+                throw ex;
+            }
+            RemoteReferenceCache.getInstance().renegotiate(bizCode);
+            value = remoteInvoker.invoke(bizCode, getScenario(), getExtensionCode(), args);
+        }
+        getLatencyTracker().record(System.currentTimeMillis() - start);
+        return value;
+    }
+
+    private static Serializable joinBatched(CompletableFuture<Serializable> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private long getCacheTtl() {
+        if (remoteExtension.getCacheTtl() > 0) {
+            return remoteExtension.getCacheTtl();
+        }
+        return null == ability.getContext() ? 0 : ability.getContext().getExtCacheTtl();
+    }
+
+    private RemoteResultKey buildResultKey(Method extMethod, Object[] args) {
+        return RemoteResultKey.of(template.getCode(), getScenario(), getExtensionCode(), extMethod, args);
+    }
+
+    private LatticeRemoteInvoker getRemoteInvoker(String bizCode, String routeKey) {
+        return RemoteReferenceCache.getInstance().getRemoteInvoker(bizCode, routeKey);
+    }
+
+    /**
+     * @return the bizId as the consistent hash key if the business enables the bizId affinity.
+     */
+    private String getRouteKey(IBizObject bizObject) {
+        if (!bizIdAffinity || null == bizObject) {
+            return null;
+        }
+        return Optional.ofNullable(bizObject.getBizId()).map(String::valueOf).orElse(null);
     }
 
     @NotNull
@@ -35,7 +35,7 @@ public class DubboRunnerBuilder implements RemoteExtensionRunnerBuilder {
         if (remoteBusiness.isForceSupportAllCodes()) {
             log.info("[Lattice-Remote] Force build the remote invoke runner for bizCode: {}", bizCode);
             return buildDubboExtensionRunner(RemoteExtension.of(extCode, true),
-                    ability, templateSpec, extCode, scenario);
+                    remoteBusiness, ability, templateSpec, extCode, scenario);
         }
         if (CollectionUtils.isEmpty(remoteBusiness.getExtensions())) {
             log.debug("[Lattice-Remote] Won't build remote invoke runner " +
@@ -52,17 +52,18 @@ public class DubboRunnerBuilder implements RemoteExtensionRunnerBuilder {
             return null;
         }
         log.debug("[Lattice-Remote] Create the remote runner for bizCode: {}, extCode: {}", bizCode, extCode);
-        return buildDubboExtensionRunner(extension, ability, templateSpec, extCode, scenario);
+        return buildDubboExtensionRunner(extension, remoteBusiness, ability, templateSpec, extCode, scenario);
     }
 
     private <R> DubboExtensionRunner<R> buildDubboExtensionRunner(
-            RemoteExtension extension,
+            RemoteExtension extension, RemoteBusiness remoteBusiness,
             IAbility ability, TemplateSpec templateSpec, String extCode, String scenario) {
         DubboExtensionRunner<R> runner = new DubboExtensionRunner<R>(extCode);
         runner.setRemoteExtension(extension);
         runner.setAbility(ability);
         runner.setTemplate(templateSpec);
         runner.setScenario(scenario);
+        runner.setBizIdAffinity(remoteBusiness.isBizIdAffinity());
         return runner;
     }
 }
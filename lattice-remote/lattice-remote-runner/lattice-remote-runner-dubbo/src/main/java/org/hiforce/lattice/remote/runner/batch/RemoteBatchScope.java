@@ -0,0 +1,69 @@
+package org.hiforce.lattice.remote.runner.batch;
+
+import lombok.Getter;
+import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+
+import java.util.Optional;
+
+/**
+ * The explicit window of coalescing the remote extension calls. The calls issued by the threads
+ * in a scope are collected per business by the {@link RemoteCallBatcher}, and sent as one
+ * batch RPC once the linger elapsed or the batch is full, e.g.
+ * <pre>
+ * try (RemoteBatchScope ignored = RemoteBatchScope.open()) {
+ *     ability.doSomething(...);
+ * }
+ * </pre>
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public class RemoteBatchScope implements AutoCloseable {
+
+    private static final ThreadLocal<RemoteBatchScope> CURRENT = new ThreadLocal<>();
+
+    @Getter
+    private final long lingerMillis;
+
+    @Getter
+    private final int maxBatchSize;
+
+    private final RemoteBatchScope previous;
+
+    private RemoteBatchScope(long lingerMillis, int maxBatchSize, RemoteBatchScope previous) {
+        this.lingerMillis = lingerMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.previous = previous;
+    }
+
+    public static RemoteBatchScope open() {
+        Optional<LatticeRemoteClientProperties> properties = Optional.ofNullable(LatticeRemoteClientProperties.getInstance());
+        return open(properties.map(LatticeRemoteClientProperties::getBatchLingerMillis).orElse(2L),
+                properties.map(LatticeRemoteClientProperties::getBatchMaxSize).orElse(16));
+    }
+
+    public static RemoteBatchScope open(long lingerMillis, int maxBatchSize) {
+        RemoteBatchScope scope = new RemoteBatchScope(Math.max(0, lingerMillis), Math.max(1, maxBatchSize), CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return the innermost scope opened by the current thread, null if none.
+     */
+    public static RemoteBatchScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Restore the outer scope, the calls already collected are still sent by their batch.
+     */
+    @Override
+    public void close() {
+        if (null == previous) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.hiforce.lattice.remote.runner.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.model.RemoteCall;
+import org.hiforce.lattice.remote.client.model.RemoteCallResult;
+import org.hiforce.lattice.remote.runner.latency.RemoteLatencyRegistry;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collect the remote calls issued in the {@link RemoteBatchScope}s per business and route key,
+ * and send each batch with one {@link LatticeRemoteInvoker#invokeBatchAsync}, the results are
+ * demultiplexed into the futures of the calls in order.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+@Slf4j
+public class RemoteCallBatcher {
+
+    private static volatile RemoteCallBatcher instance;
+
+    private static final Object lock = new Object();
+
+    private final Map<String, PendingBatch> pendingBatches = new HashMap<>();
+
+    private RemoteCallBatcher() {
+
+    }
+
+    public static RemoteCallBatcher getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new RemoteCallBatcher();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param invoker  the invoker of the business, the one of the first call sends the batch.
+     * @param routeKey the consistent hash key of the call, the calls of other keys go to other batches.
+     * @return the future completed once the batch of the call returned.
+     */
+    public CompletableFuture<Serializable> submit(
+            LatticeRemoteInvoker invoker, String routeKey, RemoteCall call, RemoteBatchScope scope) {
+        String key = call.getBizCode() + "#" + (null == routeKey ? "" : routeKey);
+        CompletableFuture<Serializable> future = new CompletableFuture<>();
+        PendingBatch batch;
+        boolean created = false;
+        boolean full = false;
+        synchronized (pendingBatches) {
+            batch = pendingBatches.get(key);
+            if (null == batch) {
+                batch = new PendingBatch(invoker);
+                pendingBatches.put(key, batch);
+                created = true;
+            }
+            batch.calls.add(call);
+            batch.futures.add(future);
+            if (batch.calls.size() >= scope.getMaxBatchSize()) {
+                pendingBatches.remove(key);
+                full = true;
+            }
+        }
+        if (full) {
+            batch.send();
+        } else if (created) {
+            PendingBatch pending = batch;
+            RemoteLatencyRegistry.getInstance().schedule(() -> flush(key, pending), scope.getLingerMillis());
+        }
+        return future;
+    }
+
+    private void flush(String key, PendingBatch batch) {
+        synchronized (pendingBatches) {
+            if (!pendingBatches.remove(key, batch)) {
+                return;
+            }
+        }
+        batch.send();
+    }
+
+    private static class PendingBatch {
+
+        private final LatticeRemoteInvoker invoker;
+
+        private final List<RemoteCall> calls = new ArrayList<>();
+
+        private final List<CompletableFuture<Serializable>> futures = new ArrayList<>();
+
+        PendingBatch(LatticeRemoteInvoker invoker) {
+            this.invoker = invoker;
+        }
+
+        void send() {
+            try {
+                if (calls.size() == 1) {
+                    RemoteCall call = calls.get(0);
+                    invoker.invokeAsync(call.getBizCode(), call.getScenario(), call.getExtCode(), call.getParams())
+                            .whenComplete((value, ex) -> complete(futures.get(0), value, ex));
+                    return;
+                }
+                log.debug("[Lattice-Remote] batch invoke bizCode: {}, calls: {}", calls.get(0).getBizCode(), calls.size());
+                invoker.invokeBatchAsync(calls).whenComplete((results, ex) -> {
+                    if (null != ex) {
+                        failAll(ex);
+                        return;
+                    }
+                    for (int i = 0; i < futures.size(); i++) {
+                        RemoteCallResult result = null == results || i >= results.size() ? null : results.get(i);
+                        if (null == result) {
+                            futures.get(i).completeExceptionally(new IllegalStateException("Missing batch result: " + i));
+                        } else if (result.isSuccess()) {
+                            futures.get(i).complete(result.getValue());
+                        } else {
+                            futures.get(i).completeExceptionally(new RuntimeException(result.getErrorMessage()));
+                        }
+                    }
+                });
+            } catch (Throwable th) {
+                failAll(th);
+            }
+        }
+
+        private void failAll(Throwable th) {
+            futures.forEach(p -> p.completeExceptionally(th));
+        }
+
+        private static void complete(CompletableFuture<Serializable> future, Serializable value, Throwable ex) {
+            if (null == ex) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(ex);
+            }
+        }
+    }
+}
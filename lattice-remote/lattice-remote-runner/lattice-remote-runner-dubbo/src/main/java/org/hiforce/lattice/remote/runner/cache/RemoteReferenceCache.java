@@ -0,0 +1,287 @@
+package org.hiforce.lattice.remote.runner.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.hiforce.lattice.remote.client.LatticeRemoteClient;
+import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.LatticeRemoteMultiplex;
+import org.hiforce.lattice.remote.client.LocalRemoteInvokerRegistry;
+import org.hiforce.lattice.remote.client.codec.CodeDictionary;
+import org.hiforce.lattice.remote.client.model.RemoteBusiness;
+import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+import org.hiforce.lattice.remote.runner.init.LatticeDubboRunnerEnv;
+import org.hiforce.lattice.remote.runner.mux.BizRoutingLoadBalance;
+import org.hiforce.lattice.remote.runner.mux.RoutingRemoteInvoker;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The Dubbo references of the remote businesses, one per bizCode, or one shared by all the
+ * businesses in multiplexed mode. The references are built off the request path, and the
+ * failed ones are rebuilt in the background.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/20
+ */
+@Slf4j
+public class RemoteReferenceCache {
+
+    private static volatile RemoteReferenceCache instance;
+
+    private static final Object lock = new Object();
+
+    private final ConcurrentMap<String, CompletableFuture<LatticeRemoteInvoker>> references = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LatticeRemoteInvoker> multiplexedInvokers = new ConcurrentHashMap<>();
+
+    private volatile CompletableFuture<LatticeRemoteInvoker> multiplexedReference;
+
+    private final ConcurrentMap<String, CodeDictionary> dictionaries = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "lattice-remote-reference");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean refresherStarted;
+
+    private RemoteReferenceCache() {
+
+    }
+
+    public static RemoteReferenceCache getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new RemoteReferenceCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public LatticeRemoteInvoker getRemoteInvoker(String bizCode) {
+        LatticeRemoteInvoker localInvoker = getLocalInvoker(bizCode);
+        if (null != localInvoker) {
+            return localInvoker;
+        }
+        if (!isMultiplexed()) {
+            return join(prepare(bizCode));
+        }
+        LatticeRemoteInvoker invoker = multiplexedInvokers.get(bizCode);
+        if (null != invoker) {
+            return invoker;
+        }
+        LatticeRemoteInvoker shared = join(prepareMultiplexed());
+        return multiplexedInvokers.computeIfAbsent(bizCode, k -> {
+            LatticeRemoteInvoker multiplexed = new RoutingRemoteInvoker(shared, LatticeRemoteMultiplex.BIZ_CODE_KEY, k);
+            executor.execute(() -> negotiate(k, multiplexed));
+            return multiplexed;
+        });
+    }
+
+    /**
+     * @param routeKey the consistent hash key of the call, null to route randomly.
+     */
+    public LatticeRemoteInvoker getRemoteInvoker(String bizCode, String routeKey) {
+        if (null == routeKey || null != getLocalInvoker(bizCode)) {
+            return getRemoteInvoker(bizCode);
+        }
+        return new RoutingRemoteInvoker(getRemoteInvoker(bizCode), BizRoutingLoadBalance.ROUTE_KEY, routeKey);
+    }
+
+    private static LatticeRemoteInvoker join(CompletableFuture<LatticeRemoteInvoker> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private boolean isMultiplexed() {
+        return Optional.ofNullable(LatticeRemoteClientProperties.getInstance())
+                .map(LatticeRemoteClientProperties::isMultiplexInvoke)
+                .orElse(false);
+    }
+
+    /**
+     * Build the reference of the business in background if absent or failed before.
+     */
+    public CompletableFuture<LatticeRemoteInvoker> prepare(String bizCode) {
+        CompletableFuture<LatticeRemoteInvoker> future = references.get(bizCode);
+        if (null != future && !future.isCompletedExceptionally()) {
+            return future;
+        }
+        return references.compute(bizCode, (k, v) -> null != v && !v.isCompletedExceptionally() ? v :
+                CompletableFuture.supplyAsync(() -> buildReference(k), executor));
+    }
+
+    /**
+     * Build the shared reference of the multiplexed endpoints in background if absent or failed before.
+     */
+    public CompletableFuture<LatticeRemoteInvoker> prepareMultiplexed() {
+        CompletableFuture<LatticeRemoteInvoker> future = multiplexedReference;
+        if (null != future && !future.isCompletedExceptionally()) {
+            return future;
+        }
+        synchronized (lock) {
+            if (null == multiplexedReference || multiplexedReference.isCompletedExceptionally()) {
+                multiplexedReference = CompletableFuture.supplyAsync(this::buildMultiplexedReference, executor);
+            }
+            return multiplexedReference;
+        }
+    }
+
+    /**
+     * @return the code dictionary negotiated with the provider, null if not negotiated.
+     */
+    public CodeDictionary getCodeDictionary(String bizCode) {
+        return dictionaries.get(bizCode);
+    }
+
+    /**
+     * Drop the stale dictionary and negotiate again in background.
+     */
+    public void renegotiate(String bizCode) {
+        dictionaries.remove(bizCode);
+        LatticeRemoteInvoker invoker = multiplexedInvokers.get(bizCode);
+        if (null == invoker) {
+            CompletableFuture<LatticeRemoteInvoker> future = references.get(bizCode);
+            invoker = null == future || future.isCompletedExceptionally() ? null : future.getNow(null);
+        }
+        if (null != invoker) {
+            LatticeRemoteInvoker target = invoker;
+            executor.execute(() -> negotiate(bizCode, target));
+        }
+    }
+
+    private void negotiate(String bizCode, LatticeRemoteInvoker invoker) {
+        boolean codecEnabled = Optional.ofNullable(LatticeRemoteClientProperties.getInstance())
+                .map(LatticeRemoteClientProperties::getCodec)
+                .filter(StringUtils::isNotEmpty)
+                .isPresent();
+        if (!codecEnabled) {
+            return;
+        }
+        try {
+            CodeDictionary dictionary = invoker.getCodeDictionary();
+            if (null != dictionary) {
+                dictionaries.put(bizCode, dictionary);
+            }
+        } catch (Exception ex) {
+            log.warn("[Lattice-Remote] negotiate code dictionary failed, bizCode: {}, ex: {}", bizCode, ex.getMessage());
+        }
+    }
+
+    public void prewarm(Collection<String> bizCodes) {
+        if (isMultiplexed()) {
+            if (bizCodes.stream().anyMatch(p -> null == getLocalInvoker(p))) {
+                prepareMultiplexed();
+            }
+            return;
+        }
+        bizCodes.stream().filter(p -> null == getLocalInvoker(p)).forEach(this::prepare);
+    }
+
+    private LatticeRemoteInvoker getLocalInvoker(String bizCode) {
+        boolean injvm = Optional.ofNullable(LatticeRemoteClientProperties.getInstance())
+                .map(LatticeRemoteClientProperties::isInjvmInvoke)
+                .orElse(true);
+        return injvm ? LocalRemoteInvokerRegistry.getInstance().getInvoker(bizCode) : null;
+    }
+
+    /**
+     * Periodically prepare the references of the newly registered or failed remote businesses.
+     */
+    public void startRefresher(long periodSeconds) {
+        synchronized (lock) {
+            if (refresherStarted) {
+                return;
+            }
+            refresherStarted = true;
+        }
+        executor.scheduleWithFixedDelay(this::refresh, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    private void refresh() {
+        try {
+            Optional.ofNullable(LatticeRemoteClient.getInstance())
+                    .map(LatticeRemoteClient::getSupportRemoteBusinessList)
+                    .ifPresent(list -> prewarm(list.stream().map(RemoteBusiness::getBizCode).collect(Collectors.toList())));
+        } catch (Exception ex) {
+            log.warn("[Lattice-Remote] refresh remote references failed: {}", ex.getMessage());
+        }
+    }
+
+    private LatticeRemoteInvoker buildReference(String bizCode) {
+        try {
+            ReferenceConfig<LatticeRemoteInvoker> reference = new ReferenceConfig<>();
+            reference.setApplication(LatticeDubboRunnerEnv.getInstance().getApplication());
+            reference.setRegistry(LatticeDubboRunnerEnv.getInstance().getRegistry()); // 多个注册中心可以用setRegistries()
+            reference.setInterface(LatticeRemoteInvoker.class);
+            reference.setVersion("1.0.0");
+            reference.setGroup("lattice-" + bizCode);
+            if (isBizIdAffinity(bizCode)) {
+                reference.setLoadbalance(BizRoutingLoadBalance.NAME);
+            }
+            reference.setCheck(false);
+            setDirectUrl(reference);
+            LatticeRemoteInvoker invoker = reference.get();
+            negotiate(bizCode, invoker);
+            log.info("[Lattice-Remote] remote reference ready, bizCode: {}", bizCode);
+            return invoker;
+        } catch (RuntimeException ex) {
+            log.warn("[Lattice-Remote] build remote reference failed, bizCode: {}, ex: {}", bizCode, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    private static void setDirectUrl(ReferenceConfig<LatticeRemoteInvoker> reference) {
+        Optional.ofNullable(LatticeRemoteClientProperties.getInstance())
+                .map(LatticeRemoteClientProperties::getReferenceUrl)
+                .filter(StringUtils::isNotEmpty)
+                .ifPresent(reference::setUrl);
+    }
+
+    private boolean isBizIdAffinity(String bizCode) {
+        return Optional.ofNullable(LatticeRemoteClient.getInstance())
+                .map(LatticeRemoteClient::getSupportRemoteBusinessList)
+                .flatMap(list -> list.stream().filter(p -> StringUtils.equals(p.getBizCode(), bizCode)).findFirst())
+                .map(RemoteBusiness::isBizIdAffinity)
+                .orElse(false);
+    }
+
+    private LatticeRemoteInvoker buildMultiplexedReference() {
+        try {
+            ReferenceConfig<LatticeRemoteInvoker> reference = new ReferenceConfig<>();
+            reference.setApplication(LatticeDubboRunnerEnv.getInstance().getApplication());
+            reference.setRegistry(LatticeDubboRunnerEnv.getInstance().getRegistry());
+            reference.setInterface(LatticeRemoteInvoker.class);
+            reference.setVersion("1.0.0");
+            reference.setGroup(LatticeRemoteMultiplex.GROUP);
+            reference.setLoadbalance(BizRoutingLoadBalance.NAME);
+            reference.setCheck(false);
+            setDirectUrl(reference);
+            LatticeRemoteInvoker invoker = reference.get();
+            log.info("[Lattice-Remote] multiplexed remote reference ready");
+            return invoker;
+        } catch (RuntimeException ex) {
+            log.warn("[Lattice-Remote] build multiplexed remote reference failed, ex: {}", ex.getMessage());
+            throw ex;
+        }
+    }
+}
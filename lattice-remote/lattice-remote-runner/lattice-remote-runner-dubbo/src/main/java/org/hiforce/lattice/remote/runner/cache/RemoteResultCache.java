@@ -0,0 +1,228 @@
+package org.hiforce.lattice.remote.runner.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hiforce.lattice.remote.client.codec.BinaryRemoteCodec;
+import org.hiforce.lattice.remote.client.codec.RemoteCodec;
+import org.hiforce.lattice.remote.client.codec.ValueType;
+import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The bounded, segmented LRU cache of the idempotent remote extension results.
+ * Concurrent misses of the same key are coalesced into one remote call.
+ * <p>
+ * The results not of the value types are kept encoded, every caller gets its own copy,
+ * so a caller modifying the result never affects the others.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+@Slf4j
+public class RemoteResultCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private static volatile RemoteResultCache instance;
+
+    private static final Object lock = new Object();
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private static final RemoteCodec CODEC = new BinaryRemoteCodec();
+
+    private final ConcurrentMap<RemoteResultKey, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private RemoteResultCache(int maxSize) {
+        int segmentSize = Math.max(1, maxSize / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public static RemoteResultCache getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new RemoteResultCache(Optional.ofNullable(LatticeRemoteClientProperties.getInstance())
+                            .map(LatticeRemoteClientProperties::getResultCacheSize)
+                            .orElse(10000));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param key       the cache key, null if not cacheable.
+     * @param ttlMillis the TTL of the loaded result.
+     * @param loader    issue the remote call on miss.
+     * @return the cached, in-flight or newly loaded result.
+     */
+    public CompletableFuture<Serializable> get(
+            RemoteResultKey key, long ttlMillis, Supplier<CompletableFuture<Serializable>> loader) {
+        if (null == key) {
+            return loader.get();
+        }
+        Segment segment = segmentFor(key);
+        CacheEntry entry = segment.get(key);
+        if (null != entry) {
+            hitCount.increment();
+            return CompletableFuture.completedFuture(entry.copyValue());
+        }
+        missCount.increment();
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existing = inFlight.putIfAbsent(key, future);
+        if (null != existing) {
+            coalescedCount.increment();
+            return existing.thenApply(CacheEntry::copyValue);
+        }
+        try {
+            loader.get().whenComplete((value, ex) -> {
+                CacheEntry loaded = null;
+                if (null == ex) {
+                    loaded = new CacheEntry(value, System.currentTimeMillis() + ttlMillis);
+                    if (loaded.cacheable) {
+                        segment.put(key, loaded);
+                    }
+                }
+                inFlight.remove(key, future);
+                if (null == ex) {
+                    future.complete(loaded);
+                } else {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (Throwable th) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(th);
+        }
+        return future.thenApply(CacheEntry::copyValue);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return 0 == total ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(RemoteResultKey key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    private static class CacheEntry {
+        final Serializable value;
+        final byte[] encoded;
+        final long expireAt;
+        final boolean cacheable;
+
+        CacheEntry(Serializable value, long expireAt) {
+            boolean immutable = null == value || value instanceof Enum
+                    || (!(value instanceof byte[]) && ValueType.of(value.getClass()) != ValueType.OBJECT);
+            byte[] bytes = null;
+            if (!immutable) {
+                try {
+                    bytes = CODEC.encodeResult(null, value);
+                } catch (RuntimeException ex) {
+                    log.warn("[Lattice]remote result {} can't be copied, not cached.", value.getClass().getName());
+                }
+            }
+            this.cacheable = immutable || null != bytes;
+            this.value = null == bytes ? value : null;
+            this.encoded = bytes;
+            this.expireAt = expireAt;
+        }
+
+        Serializable copyValue() {
+            return null == encoded ? value : (Serializable) CODEC.decodeResult(null, encoded);
+        }
+    }
+
+    private class Segment {
+
+        private final LinkedHashMap<RemoteResultKey, CacheEntry> entries;
+
+        Segment(int maxSize) {
+            this.entries = new LinkedHashMap<RemoteResultKey, CacheEntry>(16, 0.75f, true) {
+                private static final long serialVersionUID = -3006286218413338571L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<RemoteResultKey, CacheEntry> eldest) {
+                    boolean evict = size() > maxSize;
+                    if (evict) {
+                        evictionCount.increment();
+                    }
+                    return evict;
+                }
+            };
+        }
+
+        synchronized CacheEntry get(RemoteResultKey key) {
+            CacheEntry entry = entries.get(key);
+            if (null != entry && entry.expireAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+
+        synchronized void put(RemoteResultKey key, CacheEntry entry) {
+            entries.put(key, entry);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.hiforce.lattice.remote.runner.cache;
+
+import lombok.Getter;
+import org.hiforce.lattice.remote.client.codec.BinaryRemoteCodec;
+import org.hiforce.lattice.remote.client.codec.ExtensionSchema;
+import org.hiforce.lattice.remote.client.codec.RemoteCodec;
+import org.hiforce.lattice.remote.client.codec.ValueType;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The key of the cached remote result, the params are held in the encoded form
+ * of the {@link BinaryRemoteCodec}, so the later changes of the params never affect the key.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+public class RemoteResultKey {
+
+    private static final RemoteCodec CODEC = new BinaryRemoteCodec();
+
+    @Getter
+    private final String bizCode;
+
+    @Getter
+    private final String scenario;
+
+    @Getter
+    private final String extCode;
+
+    private final byte[] params;
+
+    private final int hash;
+
+    private RemoteResultKey(String bizCode, String scenario, String extCode, byte[] params) {
+        this.bizCode = bizCode;
+        this.scenario = scenario;
+        this.extCode = extCode;
+        this.params = params;
+        int result = bizCode.hashCode();
+        result = 31 * result + (null == scenario ? 0 : scenario.hashCode());
+        result = 31 * result + extCode.hashCode();
+        this.hash = 31 * result + Arrays.hashCode(params);
+    }
+
+    /**
+     * @return null if not cacheable, only the params of the value types are encoded stably.
+     */
+    public static RemoteResultKey of(String bizCode, String scenario, String extCode, Method method, Object[] params) {
+        if (null == method) {
+            return null;
+        }
+        Object[] values = null == params ? new Object[0] : params;
+        for (Object value : values) {
+            if (!isValueType(value)) {
+                return null;
+            }
+        }
+        return new RemoteResultKey(bizCode, scenario, extCode, CODEC.encodeParams(ExtensionSchema.of(method), values));
+    }
+
+    private static boolean isValueType(Object value) {
+        return null == value || value instanceof Enum || ValueType.of(value.getClass()) != ValueType.OBJECT;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RemoteResultKey that = (RemoteResultKey) o;
+        return hash == that.hash && bizCode.equals(that.bizCode) && Objects.equals(scenario, that.scenario)
+                && extCode.equals(that.extCode) && Arrays.equals(params, that.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
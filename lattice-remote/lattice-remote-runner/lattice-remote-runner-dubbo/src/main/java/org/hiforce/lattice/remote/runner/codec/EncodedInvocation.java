@@ -0,0 +1,141 @@
+package org.hiforce.lattice.remote.runner.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.LocalRemoteInvokerRegistry;
+import org.hiforce.lattice.remote.client.codec.CodeDictionary;
+import org.hiforce.lattice.remote.client.codec.ExtensionSchema;
+import org.hiforce.lattice.remote.client.codec.RemoteCodec;
+import org.hiforce.lattice.remote.client.codec.RemoteCodecFactory;
+import org.hiforce.lattice.remote.client.codec.UnsupportedValueException;
+import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+import org.hiforce.lattice.remote.runner.cache.RemoteReferenceCache;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The remote invocation with the codes replaced by the negotiated IDs and
+ * the params encoded by the configured codec. The params the codec can't encode
+ * are sent by the plain invocation.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+@Slf4j
+public class EncodedInvocation {
+
+    private final LatticeRemoteInvoker invoker;
+
+    private final RemoteCodec codec;
+
+    private final ExtensionSchema schema;
+
+    private final long fingerprint;
+
+    private final int bizCodeId;
+
+    private final int scenarioId;
+
+    private final int extCodeId;
+
+    private final String bizCode;
+
+    private final String scenario;
+
+    private final String extCode;
+
+    private EncodedInvocation(LatticeRemoteInvoker invoker, RemoteCodec codec, ExtensionSchema schema,
+                              long fingerprint, int bizCodeId, int scenarioId, int extCodeId,
+                              String bizCode, String scenario, String extCode) {
+        this.invoker = invoker;
+        this.codec = codec;
+        this.schema = schema;
+        this.fingerprint = fingerprint;
+        this.bizCodeId = bizCodeId;
+        this.scenarioId = scenarioId;
+        this.extCodeId = extCodeId;
+        this.bizCode = bizCode;
+        this.scenario = scenario;
+        this.extCode = extCode;
+    }
+
+    /**
+     * @return null if the codec not configured, the invoker is in the same JVM,
+     * or the codes not found in the negotiated dictionary.
+     */
+    public static EncodedInvocation prepare(LatticeRemoteInvoker invoker, String bizCode,
+                                            String scenario, String extCode, Method method) {
+        RemoteCodec codec = Optional.ofNullable(LatticeRemoteClientProperties.getInstance())
+                .map(LatticeRemoteClientProperties::getCodec)
+                .map(p -> RemoteCodecFactory.getInstance().getCodec(p))
+                .orElse(null);
+        if (null == codec || null == method
+                || invoker == LocalRemoteInvokerRegistry.getInstance().getInvoker(bizCode)) {
+            return null;
+        }
+        CodeDictionary dictionary = RemoteReferenceCache.getInstance().getCodeDictionary(bizCode);
+        if (null == dictionary) {
+            return null;
+        }
+        int bizCodeId = dictionary.getId(bizCode);
+        int extCodeId = dictionary.getId(extCode);
+        int scenarioId = StringUtils.isEmpty(scenario) ? -1 : dictionary.getId(scenario);
+        if (bizCodeId < 0 || extCodeId < 0 || (StringUtils.isNotEmpty(scenario) && scenarioId < 0)) {
+            return null;
+        }
+        return new EncodedInvocation(invoker, codec, ExtensionSchema.of(method),
+                dictionary.getFingerprint(), bizCodeId, scenarioId, extCodeId, bizCode, scenario, extCode);
+    }
+
+    public Serializable invoke(Object[] args) {
+        byte[] params = encodeParams(args);
+        if (null == params) {
+            return invoker.invoke(bizCode, scenario, extCode, args);
+        }
+        byte[] result = invoker.invokeEncoded(codec.getName(), fingerprint,
+                bizCodeId, scenarioId, extCodeId, params);
+        return (Serializable) codec.decodeResult(schema, result);
+    }
+
+    public CompletableFuture<Serializable> invokeAsync(Object[] args) {
+        byte[] params = encodeParams(args);
+        if (null == params) {
+            return invoker.invokeAsync(bizCode, scenario, extCode, args);
+        }
+        return invoker.invokeEncodedAsync(codec.getName(), fingerprint,
+                        bizCodeId, scenarioId, extCodeId, params)
+                .thenApply(p -> (Serializable) codec.decodeResult(schema, p));
+    }
+
+    /**
+     * @return null if a param value can't be encoded.
+     */
+    private byte[] encodeParams(Object[] args) {
+        try {
+            return codec.encodeParams(schema, args);
+        } catch (UnsupportedValueException ex) {
+            log.debug("[Lattice-Remote] {}, sent by the plain invocation. bizCode: {}, extCode: {}",
+                    ex.getMessage(), bizCode, extCode);
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the provider rejected the call due to a stale dictionary.
+     */
+    public static boolean isMismatch(Throwable th) {
+        for (Throwable cause = th; null != cause; cause = cause.getCause()) {
+            if (StringUtils.contains(cause.getMessage(), CodeDictionary.MISMATCH)) {
+                return true;
+            }
+            if (cause == cause.getCause()) {
+                break;
+            }
+        }
+        return false;
+    }
+}
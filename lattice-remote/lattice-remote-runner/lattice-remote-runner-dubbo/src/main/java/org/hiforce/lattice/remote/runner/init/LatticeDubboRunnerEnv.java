@@ -3,16 +3,23 @@ package org.hiforce.lattice.remote.runner.init;
 import lombok.Getter;
 import org.apache.dubbo.config.ApplicationConfig;
 import org.apache.dubbo.config.RegistryConfig;
+import org.hiforce.lattice.remote.client.LatticeRemoteClient;
+import org.hiforce.lattice.remote.client.model.RemoteBusiness;
 import org.hiforce.lattice.remote.client.properties.LatticeRemoteClientProperties;
+import org.hiforce.lattice.remote.runner.cache.RemoteReferenceCache;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Service;
 
+import java.util.stream.Collectors;
+
 /**
  * @author Rocky Yu
  * @since 2022/9/30
  */
 @Service
-public class LatticeDubboRunnerEnv implements InitializingBean {
+public class LatticeDubboRunnerEnv implements InitializingBean, ApplicationListener<ContextRefreshedEvent> {
 
     @Getter
     private static LatticeDubboRunnerEnv instance;
@@ -32,4 +39,16 @@ public class LatticeDubboRunnerEnv implements InitializingBean {
         registry.setAddress(LatticeRemoteClientProperties.getInstance().getRegistryAddress());
 
     }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (null != LatticeRemoteClient.getInstance()) {
+            RemoteReferenceCache.getInstance().prewarm(LatticeRemoteClient.getInstance()
+                    .getSupportRemoteBusinessList().stream()
+                    .map(RemoteBusiness::getBizCode)
+                    .collect(Collectors.toList()));
+        }
+        RemoteReferenceCache.getInstance().startRefresher(
+                LatticeRemoteClientProperties.getInstance().getReferenceRefreshSeconds());
+    }
 }
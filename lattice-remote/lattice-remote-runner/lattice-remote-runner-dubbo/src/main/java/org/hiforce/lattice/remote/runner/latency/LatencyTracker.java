@@ -0,0 +1,104 @@
+package org.hiforce.lattice.remote.runner.latency;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency of one remote extension, tracked as an EWMA and a p95
+ * estimate over a sliding window of the recent samples.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+public class LatencyTracker {
+
+    private static final double ALPHA = 0.2;
+
+    private static final int WINDOW = 128;
+
+    private static final int MIN_SAMPLES = 20;
+
+    @Getter
+    private final String bizCode;
+
+    @Getter
+    private final String extCode;
+
+    private final long[] samples = new long[WINDOW];
+
+    private int index;
+
+    private volatile long count;
+
+    private volatile double ewma;
+
+    private volatile long p95;
+
+    private final LongAdder hedgeCount = new LongAdder();
+
+    private final LongAdder timeoutCount = new LongAdder();
+
+    public LatencyTracker(String bizCode, String extCode) {
+        this.bizCode = bizCode;
+        this.extCode = extCode;
+    }
+
+    public synchronized void record(long millis) {
+        samples[index] = millis;
+        index = (index + 1) % WINDOW;
+        long current = count + 1;
+        ewma = current == 1 ? millis : ALPHA * millis + (1 - ALPHA) * ewma;
+        count = current;
+        if (current <= MIN_SAMPLES || current % 16 == 0) {
+            int size = (int) Math.min(current, WINDOW);
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            p95 = copy[Math.min(size - 1, (int) Math.ceil(size * 0.95) - 1)];
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getEwma() {
+        return ewma;
+    }
+
+    public long getP95() {
+        return p95;
+    }
+
+    public boolean isWarmedUp() {
+        return count >= MIN_SAMPLES;
+    }
+
+    /**
+     * @return the adaptive timeout budget, the max one before enough samples collected.
+     */
+    public long getTimeoutBudget(long minMillis, long maxMillis) {
+        if (!isWarmedUp()) {
+            return maxMillis;
+        }
+        long budget = Math.max(p95 * 2, (long) (ewma * 3));
+        return Math.max(minMillis, Math.min(maxMillis, budget));
+    }
+
+    public void incrementHedge() {
+        hedgeCount.increment();
+    }
+
+    public void incrementTimeout() {
+        timeoutCount.increment();
+    }
+
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+}
@@ -0,0 +1,58 @@
+package org.hiforce.lattice.remote.runner.latency;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+public class RemoteLatencyRegistry {
+
+    private static volatile RemoteLatencyRegistry instance;
+
+    private static final Object lock = new Object();
+
+    private final ConcurrentMap<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(2, r -> {
+        Thread thread = new Thread(r, "lattice-remote-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RemoteLatencyRegistry() {
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public static RemoteLatencyRegistry getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new RemoteLatencyRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public LatencyTracker getTracker(String bizCode, String extCode) {
+        return trackers.computeIfAbsent(bizCode + "#" + extCode, k -> new LatencyTracker(bizCode, extCode));
+    }
+
+    public Collection<LatencyTracker> getTrackers() {
+        return Collections.unmodifiableCollection(trackers.values());
+    }
+
+    /**
+     * @return the scheduled task, cancel it once the awaited call completes.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
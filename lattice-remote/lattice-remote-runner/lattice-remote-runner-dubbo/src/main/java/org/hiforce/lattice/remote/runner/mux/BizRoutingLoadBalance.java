@@ -0,0 +1,162 @@
+package org.hiforce.lattice.remote.runner.mux;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.loadbalance.AbstractLoadBalance;
+import org.hiforce.lattice.remote.client.LatticeRemoteMultiplex;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Route the calls on the multiplexed endpoints to the providers serving the bizCode.
+ * The routing table is parsed from the bizCodes published by each provider, and keyed
+ * by the published value so it follows the provider re-exports.
+ * <p>
+ * The calls carrying a route key, e.g. the bizId of the business with bizId affinity,
+ * are routed by a consistent hash ring over the candidate providers, so the calls of one
+ * bizId land on the same provider, and only the keys of the joined or left providers move.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class BizRoutingLoadBalance extends AbstractLoadBalance {
+
+    public static final String NAME = "lattice-biz";
+
+    /**
+     * The attachment holding the consistent hash key of the call.
+     */
+    public static final String ROUTE_KEY = "lattice.routeKey";
+
+    private static final int MAX_ROUTES = 1024;
+
+    private final ConcurrentMap<String, Set<String>> routes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, HashRing> rings = new ConcurrentHashMap<>();
+
+    /**
+     * Always select via {@link #doSelect}, the only provider may not serve the bizCode either.
+     */
+    @Override
+    public <T> Invoker<T> select(List<Invoker<T>> invokers, URL url, Invocation invocation) {
+        if (null == invokers || invokers.isEmpty()) {
+            return null;
+        }
+        return doSelect(invokers, url, invocation);
+    }
+
+    @Override
+    protected <T> Invoker<T> doSelect(List<Invoker<T>> invokers, URL url, Invocation invocation) {
+        String bizCode = invocation.getAttachment(LatticeRemoteMultiplex.BIZ_CODE_KEY);
+        List<Invoker<T>> candidates = invokers;
+        if (null != bizCode) {
+            candidates = new ArrayList<>(invokers.size());
+            for (Invoker<T> invoker : invokers) {
+                if (getServedBizCodes(invoker.getUrl()).contains(bizCode)) {
+                    candidates.add(invoker);
+                }
+            }
+            if (candidates.isEmpty()) {
+                throw new RpcException(RpcException.NO_INVOKER_AVAILABLE_AFTER_FILTER,
+                        "No provider of " + url.getServiceKey() + " serves the business: " + bizCode);
+            }
+        }
+        String routeKey = invocation.getAttachment(ROUTE_KEY);
+        if (null == routeKey || candidates.size() == 1) {
+            return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+        }
+        return getRing(null == bizCode ? url.getServiceKey() : bizCode, candidates).select(routeKey);
+    }
+
+    private Set<String> getServedBizCodes(URL url) {
+        String value = url.getParameter(LatticeRemoteMultiplex.BUSINESSES_KEY, "");
+        Set<String> bizCodes = routes.get(value);
+        if (null != bizCodes) {
+            return bizCodes;
+        }
+        if (routes.size() >= MAX_ROUTES) {
+            routes.clear();
+        }
+        return routes.computeIfAbsent(value, LatticeRemoteMultiplex::parseBizCodes);
+    }
+
+    private <T> HashRing getRing(String ringKey, List<Invoker<T>> candidates) {
+        long signature = HashRing.signature(candidates);
+        HashRing ring = rings.get(ringKey);
+        if (null == ring || ring.signature != signature) {
+            if (rings.size() >= MAX_ROUTES) {
+                rings.clear();
+            }
+            ring = new HashRing(candidates, signature);
+            rings.put(ringKey, ring);
+        }
+        return ring;
+    }
+
+    private static class HashRing {
+
+        private static final int REPLICAS = 160;
+
+        private final TreeMap<Long, Invoker<?>> nodes = new TreeMap<>();
+
+        private final long signature;
+
+        HashRing(List<? extends Invoker<?>> invokers, long signature) {
+            this.signature = signature;
+            for (Invoker<?> invoker : invokers) {
+                String address = invoker.getUrl().getAddress();
+                for (int i = 0; i < REPLICAS / 4; i++) {
+                    byte[] digest = md5(address + "-" + i);
+                    for (int h = 0; h < 4; h++) {
+                        nodes.put(hash(digest, h), invoker);
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> Invoker<T> select(String key) {
+            Map.Entry<Long, Invoker<?>> entry = nodes.ceilingEntry(hash(md5(key), 0));
+            return (Invoker<T>) (null == entry ? nodes.firstEntry() : entry).getValue();
+        }
+
+        /**
+         * Order independent, the directory may list the same providers in another order.
+         */
+        static long signature(List<? extends Invoker<?>> invokers) {
+            long signature = invokers.size();
+            for (Invoker<?> invoker : invokers) {
+                signature += invoker.getUrl().getAddress().hashCode() * 0x9E3779B97F4A7C15L;
+            }
+            return signature;
+        }
+
+        private static long hash(byte[] digest, int number) {
+            return (((long) (digest[3 + number * 4] & 0xFF) << 24)
+                    | ((long) (digest[2 + number * 4] & 0xFF) << 16)
+                    | ((long) (digest[1 + number * 4] & 0xFF) << 8)
+                    | (digest[number * 4] & 0xFF))
+                    & 0xFFFFFFFFL;
+        }
+
+        private static byte[] md5(String value) {
+            try {
+                return MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
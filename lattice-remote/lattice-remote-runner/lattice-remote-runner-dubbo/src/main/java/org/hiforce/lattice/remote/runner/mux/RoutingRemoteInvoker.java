@@ -0,0 +1,81 @@
+package org.hiforce.lattice.remote.runner.mux;
+
+import org.apache.dubbo.rpc.RpcContext;
+import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.codec.CodeDictionary;
+import org.hiforce.lattice.remote.client.model.RemoteCall;
+import org.hiforce.lattice.remote.client.model.RemoteCallResult;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The view of a Dubbo reference attaching a routing hint to each call, read by the
+ * {@link BizRoutingLoadBalance}, e.g. the bizCode on the shared multiplexed reference.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class RoutingRemoteInvoker implements LatticeRemoteInvoker {
+
+    private final LatticeRemoteInvoker delegate;
+
+    private final String key;
+
+    private final String value;
+
+    public RoutingRemoteInvoker(LatticeRemoteInvoker delegate, String key, String value) {
+        this.delegate = delegate;
+        this.key = key;
+        this.value = value;
+    }
+
+    private void route() {
+        RpcContext.getClientAttachment().setAttachment(key, value);
+    }
+
+    @Override
+    public Serializable invoke(String bizCode, String scenario, String extCode, Object... params) {
+        route();
+        return delegate.invoke(bizCode, scenario, extCode, params);
+    }
+
+    @Override
+    public CompletableFuture<Serializable> invokeAsync(String bizCode, String scenario, String extCode, Object... params) {
+        route();
+        return delegate.invokeAsync(bizCode, scenario, extCode, params);
+    }
+
+    @Override
+    public List<RemoteCallResult> invokeBatch(List<RemoteCall> calls) {
+        route();
+        return delegate.invokeBatch(calls);
+    }
+
+    @Override
+    public CompletableFuture<List<RemoteCallResult>> invokeBatchAsync(List<RemoteCall> calls) {
+        route();
+        return delegate.invokeBatchAsync(calls);
+    }
+
+    @Override
+    public CodeDictionary getCodeDictionary() {
+        route();
+        return delegate.getCodeDictionary();
+    }
+
+    @Override
+    public byte[] invokeEncoded(String codec, long fingerprint,
+                                int bizCodeId, int scenarioId, int extCodeId, byte[] params) {
+        route();
+        return delegate.invokeEncoded(codec, fingerprint, bizCodeId, scenarioId, extCodeId, params);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> invokeEncodedAsync(String codec, long fingerprint,
+                                                        int bizCodeId, int scenarioId, int extCodeId, byte[] params) {
+        route();
+        return delegate.invokeEncodedAsync(codec, fingerprint, bizCodeId, scenarioId, extCodeId, params);
+    }
+}
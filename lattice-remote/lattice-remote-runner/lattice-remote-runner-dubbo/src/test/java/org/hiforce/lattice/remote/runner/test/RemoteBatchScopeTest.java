@@ -0,0 +1,112 @@
+package org.hiforce.lattice.remote.runner.test;
+
+import org.hiforce.lattice.remote.client.LatticeRemoteInvoker;
+import org.hiforce.lattice.remote.client.model.RemoteCall;
+import org.hiforce.lattice.remote.client.model.RemoteCallResult;
+import org.hiforce.lattice.remote.runner.batch.RemoteBatchScope;
+import org.hiforce.lattice.remote.runner.batch.RemoteCallBatcher;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Check the calls issued in the batch scopes are sent as one batch per business,
+ * and each caller gets the result of its own call.
+ */
+public class RemoteBatchScopeTest {
+
+    private static final int CALLERS = 4;
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        LatticeRemoteInvoker invoker = new LatticeRemoteInvoker() {
+            @Override
+            public Serializable invoke(String bizCode, String scenario, String extCode, Object... params) {
+                if (null == params[0]) {
+                    throw new IllegalArgumentException("sku required");
+                }
+                return bizCode + ":" + params[0];
+            }
+
+            @Override
+            public List<RemoteCallResult> invokeBatch(List<RemoteCall> calls) {
+                batchSizes.add(calls.size());
+                return LatticeRemoteInvoker.super.invokeBatch(calls);
+            }
+        };
+        check(null == RemoteBatchScope.current(), "no scope outside");
+
+        List<CompletableFuture<Serializable>> results = new ArrayList<>();
+        CountDownLatch issued = new CountDownLatch(CALLERS);
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            String sku = i == 1 ? null : "sku-" + i;
+            CompletableFuture<Serializable> result = new CompletableFuture<>();
+            results.add(result);
+            callers.add(new Thread(() -> {
+                try (RemoteBatchScope scope = RemoteBatchScope.open(200, 16)) {
+                    RemoteCallBatcher.getInstance().submit(invoker, null,
+                                    RemoteCall.of("business.a", null, "ext.quote", sku), scope)
+                            .whenComplete((value, ex) -> {
+                                if (null == ex) {
+                                    result.complete(value);
+                                } else {
+                                    result.completeExceptionally(ex);
+                                }
+                            });
+                    issued.countDown();
+                }
+            }));
+        }
+        callers.forEach(Thread::start);
+        issued.await();
+        for (int i = 0; i < CALLERS; i++) {
+            if (i == 1) {
+                check(failed(results.get(i)), "the failed call fails its own caller only");
+            } else {
+                check(("business.a:sku-" + i).equals(results.get(i).join()), "result of the call " + i);
+            }
+        }
+        check(batchSizes.size() == 1 && batchSizes.get(0) == CALLERS, "the calls sent as one batch");
+
+        batchSizes.clear();
+        try (RemoteBatchScope outer = RemoteBatchScope.open(1000, 2)) {
+            try (RemoteBatchScope inner = RemoteBatchScope.open(1000, 3)) {
+                check(RemoteBatchScope.current() == inner, "inner scope current");
+            }
+            check(RemoteBatchScope.current() == outer, "outer scope restored");
+            CompletableFuture<Serializable> first = RemoteCallBatcher.getInstance().submit(invoker, "1",
+                    RemoteCall.of("business.a", null, "ext.quote", "sku-x"), outer);
+            CompletableFuture<Serializable> second = RemoteCallBatcher.getInstance().submit(invoker, "1",
+                    RemoteCall.of("business.a", null, "ext.quote", "sku-y"), outer);
+            CompletableFuture<Serializable> other = RemoteCallBatcher.getInstance().submit(invoker, "2",
+                    RemoteCall.of("business.a", null, "ext.quote", "sku-z"), outer);
+            check("business.a:sku-x".equals(first.join()) && "business.a:sku-y".equals(second.join()),
+                    "full batch sent without waiting for the linger");
+            check(!other.isDone(), "call of another route key waits for its own batch");
+        }
+        check(null == RemoteBatchScope.current(), "scope closed");
+        check(batchSizes.size() == 1 && batchSizes.get(0) == 2, "full batch sent once");
+        System.out.println("Remote batch scope checks passed.");
+    }
+
+    private static boolean failed(CompletableFuture<Serializable> future) {
+        try {
+            future.join();
+            return false;
+        } catch (CompletionException ex) {
+            return true;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+}
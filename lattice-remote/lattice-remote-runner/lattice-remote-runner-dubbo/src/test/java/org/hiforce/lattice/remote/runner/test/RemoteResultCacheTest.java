@@ -0,0 +1,82 @@
+package org.hiforce.lattice.remote.runner.test;
+
+import org.hiforce.lattice.remote.runner.cache.RemoteResultCache;
+import org.hiforce.lattice.remote.runner.cache.RemoteResultKey;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Check the keys, the hits, the misses and the TTL of the remote result cache.
+ */
+public class RemoteResultCacheTest {
+
+    public interface PriceExt {
+        Serializable quote(String sku, int count);
+
+        Serializable quoteAll(List<String> skus);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Method quote = PriceExt.class.getMethod("quote", String.class, int.class);
+        Method quoteAll = PriceExt.class.getMethod("quoteAll", List.class);
+
+        RemoteResultKey key = RemoteResultKey.of("business.a", null, "ext.price", quote, new Object[]{"sku-1", 2});
+        check(null != key, "value params cacheable");
+        check(key.equals(RemoteResultKey.of("business.a", null, "ext.price", quote, new Object[]{"sku-1", 2})),
+                "same params same key");
+        check(!key.equals(RemoteResultKey.of("business.a", null, "ext.price", quote, new Object[]{"sku-1", 3})),
+                "other params other key");
+        check(!key.equals(RemoteResultKey.of("business.b", null, "ext.price", quote, new Object[]{"sku-1", 2})),
+                "other business other key");
+        check(null == RemoteResultKey.of("business.a", null, "ext.price", quoteAll,
+                new Object[]{new ArrayList<>(Arrays.asList("sku-1"))}), "mutable params not cacheable");
+        check(null == RemoteResultKey.of("business.a", null, "ext.price", null, new Object[]{"sku-1", 2}),
+                "unknown method not cacheable");
+
+        RemoteResultCache cache = RemoteResultCache.getInstance();
+        cache.clear();
+        AtomicInteger loads = new AtomicInteger();
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+        List<Serializable> first = load(cache, key, 200, loads);
+        check(loads.get() == 1 && cache.getMissCount() == misses + 1, "first get misses");
+        List<Serializable> second = load(cache, key, 200, loads);
+        check(loads.get() == 1 && cache.getHitCount() == hits + 1, "second get hits");
+        check(first.equals(second) && first != second, "each caller gets its own copy");
+        first.add("changed");
+        check(!load(cache, key, 200, loads).contains("changed"), "cached result not changed by the caller");
+
+        RemoteResultKey expiring = RemoteResultKey.of("business.a", null, "ext.price", quote, new Object[]{"sku-2", 1});
+        load(cache, expiring, 50, loads);
+        int loaded = loads.get();
+        Thread.sleep(80);
+        load(cache, expiring, 50, loads);
+        check(loads.get() == loaded + 1, "expired entry reloaded");
+
+        int uncached = loads.get();
+        load(cache, null, 200, loads);
+        load(cache, null, 200, loads);
+        check(loads.get() == uncached + 2, "null key always loads");
+        System.out.println("Remote result cache checks passed.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Serializable> load(RemoteResultCache cache, RemoteResultKey key, long ttl, AtomicInteger loads) {
+        return (List<Serializable>) cache.get(key, ttl, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(new ArrayList<>(Arrays.asList("price", 42)));
+        }).join();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+}
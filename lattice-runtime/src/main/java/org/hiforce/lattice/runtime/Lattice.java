@@ -1,7 +1,6 @@
 package org.hiforce.lattice.runtime;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import lombok.Getter;
 import lombok.Setter;
@@ -26,11 +25,17 @@ import org.hiforce.lattice.runtime.ability.register.TemplateRegister;
 import org.hiforce.lattice.runtime.cache.LatticeRuntimeCache;
 import org.hiforce.lattice.runtime.cache.ability.AbilityCache;
 import org.hiforce.lattice.runtime.cache.config.BusinessConfigCache;
+import org.hiforce.lattice.runtime.cache.config.BusinessConfigDiff;
+import org.hiforce.lattice.runtime.cache.config.ExtPriorityResolver;
+import org.hiforce.lattice.runtime.cache.key.ExtensionRunnerCacheKey;
 import org.hiforce.lattice.runtime.spi.LatticeRuntimeSpiFactory;
 import org.hiforce.lattice.runtime.utils.ClassLoaderUtil;
 import org.hiforce.lattice.runtime.utils.ClassPathScanHandler;
+import org.hiforce.lattice.runtime.warmup.LatticeWarmUp;
+import org.hiforce.lattice.runtime.warmup.WarmUpReport;
 import org.hiforce.lattice.spi.classloader.CustomClassLoaderSpi;
 import org.hiforce.lattice.spi.classloader.LatticeClassLoader;
+import org.hiforce.lattice.spi.config.BusinessConfigLoadSpi;
 import org.hiforce.lattice.utils.BizCodeUtils;
 
 import java.io.BufferedReader;
@@ -39,6 +44,10 @@ import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -56,9 +65,6 @@ public class Lattice {
     @Setter
     private String uuid = UUID.randomUUID().toString();
 
-    @Getter
-    private boolean initialized = false;
-
     /**
      * The business config not necessary.
      */
@@ -66,12 +72,14 @@ public class Lattice {
     @Setter
     private boolean simpleMode = false;
 
+    /**
+     * Warm up the runtime caches before the Lattice initialized.
+     */
     @Getter
     @Setter
-    private LatticeClassLoader latticeClassLoader;
+    private boolean warmUpEnabled = false;
 
-    @Getter
-    private final List<AbilitySpec> registeredAbilities = Lists.newArrayList();
+    private final List<Runnable> startListeners = new CopyOnWriteArrayList<>();
 
 
     @Getter
@@ -83,7 +91,7 @@ public class Lattice {
     }
 
     public AbilitySpec getAbilitySpecByCode(String code) {
-        return registeredAbilities.stream()
+        return getRegisteredAbilities().stream()
                 .filter(p -> StringUtils.equals(code, p.getCode()))
                 .findFirst().orElse(null);
     }
@@ -95,7 +103,15 @@ public class Lattice {
         return instance;
     }
 
+    /**
+     * Build the registry in place, the requests are rejected as not initialized until it is built.
+     */
     public final void start() {
+        build(null);
+        ready();
+    }
+
+    private void build(Runnable beforeReady) {
         initLatticeClassLoader();
         registerAbilities();//Register the Ability Instances during runtime.
         registerRealizations();//Register the business extension realization during runtime.
@@ -104,11 +120,45 @@ public class Lattice {
         registerProducts();
         buildBusinessConfig();
         initLatticeCache();
-        initialized = true;
+        if (warmUpEnabled) {
+            LatticeWarmUp.getInstance().warmUp();
+        }
+        LatticeRegistry.current().setInitialized(true);
+        runBeforeReady(beforeReady);
+    }
+
+    private void ready() {
+        subscribeBusinessConfigChanges();
+        for (Runnable listener : startListeners) {
+            try {
+                listener.run();
+            } catch (Exception ex) {
+                log.error("[Lattice] start listener failed: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * @param listener invoked each time the Lattice has been started or reloaded.
+     */
+    public void addStartListener(Runnable listener) {
+        startListeners.add(listener);
+    }
+
+    public LatticeClassLoader getLatticeClassLoader() {
+        return LatticeRegistry.current().getLatticeClassLoader();
+    }
+
+    public void setLatticeClassLoader(LatticeClassLoader latticeClassLoader) {
+        LatticeRegistry.current().setLatticeClassLoader(latticeClassLoader);
+    }
+
+    public List<AbilitySpec> getRegisteredAbilities() {
+        return LatticeRegistry.current().getRegisteredAbilities();
     }
 
     public void initLatticeClassLoader() {
-        latticeClassLoader = new LatticeClassLoader(Lattice.class.getClassLoader());
+        LatticeClassLoader latticeClassLoader = new LatticeClassLoader(Lattice.class.getClassLoader());
         List<CustomClassLoaderSpi> customClassLoaders =
                 LatticeRuntimeSpiFactory.getInstance().getCustomClassLoaders();
         latticeClassLoader.getCustomLoaders().addAll(
@@ -116,20 +166,50 @@ public class Lattice {
                         .map(CustomClassLoaderSpi::getCustomClassLoader)
                         .filter(Objects::nonNull)
                         .collect(Collectors.toList()));
+        setLatticeClassLoader(latticeClassLoader);
         Thread.currentThread().setContextClassLoader(latticeClassLoader);
     }
 
     public final void clear() {
+        LatticeRegistry.current().setInitialized(false);
         runtimeCache.clear();
-        registeredAbilities.clear();
+        getRegisteredAbilities().clear();
         TemplateRegister.getInstance().clear();
         AbilityCache.getInstance().clear();
-        initialized = false;
     }
 
     public void reload() {
-        clear();
-        start();
+        reload(null);
+    }
+
+    /**
+     * Build and warm up a new registry while the current one keeps serving the requests,
+     * then publish it in one swap. The requests started before the swap finish on the former one.
+     *
+     * @param beforeReady run against the new registry before it is published, e.g. the warm-up
+     *                    of the new plugins. The work handed over to the other threads should be
+     *                    wrapped by {@link LatticeRegistry#wrap(Runnable)}.
+     */
+    public synchronized void reload(Runnable beforeReady) {
+        LatticeRegistry staged = new LatticeRegistry();
+        staged.run(() -> build(beforeReady));
+        LatticeRegistry.publish(staged);
+        ready();
+    }
+
+    public boolean isInitialized() {
+        return LatticeRegistry.current().isInitialized();
+    }
+
+    private void runBeforeReady(Runnable beforeReady) {
+        if (null == beforeReady) {
+            return;
+        }
+        try {
+            beforeReady.run();
+        } catch (Exception ex) {
+            log.error("[Lattice] task before ready failed: " + ex.getMessage(), ex);
+        }
     }
 
     private void initLatticeCache() {
@@ -156,9 +236,7 @@ public class Lattice {
     private void buildBusinessConfig() {
         List<String> bizCodes = Lattice.getInstance().getAllRegisteredBusinesses().stream()
                 .map(BaseSpec::getCode).collect(Collectors.toList());
-        List<BusinessConfig> configs = LatticeRuntimeSpiFactory.getInstance().getBusinessConfigLoads().stream()
-                .flatMap(p -> p.loadBusinessConfigs(bizCodes).stream())
-                .collect(Collectors.toList());
+        List<BusinessConfig> configs = loadBusinessConfigs(bizCodes);
         BusinessConfigCache.getInstance().addBusinessConfigs(configs);
 
         if (isSimpleMode()) {
@@ -170,41 +248,47 @@ public class Lattice {
         injectIndirectDependencyExtensions();
     }
 
-    private void injectIndirectDependencyExtensions(){
-        BusinessConfigCache.getInstance().getBusinessConfigs().forEach(p -> autoBuildUseCaseExtPriorityConfig(p, buildUseCaseExtPriorityConfigMap()));
-        BusinessConfigCache.getInstance().getBusinessConfigs().sort(Comparator.comparingInt(BusinessConfig::getPriority));
+    /**
+     * Invoke the config loaders in parallel, the result keeps the loader priority order.
+     */
+    private List<BusinessConfig> loadBusinessConfigs(List<String> bizCodes) {
+        List<BusinessConfigLoadSpi> loaders = LatticeRuntimeSpiFactory.getInstance().getBusinessConfigLoads();
+        if (CollectionUtils.isEmpty(loaders)) {
+            return Lists.newArrayList();
+        }
+        if (loaders.size() == 1) {
+            return Optional.ofNullable(loaders.get(0).loadBusinessConfigs(bizCodes)).orElseGet(Lists::newArrayList);
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        LatticeRegistry registry = LatticeRegistry.current();
+        ExecutorService executor = Executors.newFixedThreadPool(loaders.size(), r -> {
+            Thread thread = new Thread(r, "lattice-config-loader");
+            thread.setDaemon(true);
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<List<BusinessConfig>>> futures = loaders.stream()
+                    .map(p -> CompletableFuture.supplyAsync(
+                            () -> registry.call(() -> p.loadBusinessConfigs(bizCodes)), executor))
+                    .collect(Collectors.toList());
+            return futures.stream()
+                    .map(CompletableFuture::join)
+                    .filter(Objects::nonNull)
+                    .flatMap(List::stream)
+                    .collect(Collectors.toList());
+        } finally {
+            executor.shutdown();
+        }
     }
 
-    private void autoBuildUseCaseExtPriorityConfig(BusinessConfig businessConfig, Map<String, ExtPriorityConfig> priorityMap) {
-        priorityMap.forEach((key, value) -> {
-            ExtPriorityConfig priorityConfig = businessConfig.getExtPriorityConfigByExtCode(key);
-            if (null == priorityConfig) {
-                businessConfig.getExtensions().add(value);
-            } else {
-                List<ExtPriority> newList = Lists.newArrayList();
-                newList.addAll(value.getPriorities());
-                newList.addAll(priorityConfig.getPriorities());
-                priorityConfig.setPriorities(newList);
-            }
-
-        });
+    private void injectIndirectDependencyExtensions(){
+        newExtPriorityResolver().injectUseCasePriorities(BusinessConfigCache.getInstance().getBusinessConfigs());
+        BusinessConfigCache.getInstance().getBusinessConfigs().sort(Comparator.comparingInt(BusinessConfig::getPriority));
     }
 
-    private Map<String, ExtPriorityConfig> buildUseCaseExtPriorityConfigMap() {
-        Map<String, ExtPriorityConfig> extPriorityConfigMap = Maps.newHashMap();
-        getAllRegisteredUseCases().forEach(p -> {
-            for (RealizationSpec realizationSpec : p.getRealizations()) {
-                for (String extCode : realizationSpec.getExtensionCodes()) {
-                    ExtPriorityConfig config = extPriorityConfigMap.get(extCode);
-                    if (null == config) {
-                        config = new ExtPriorityConfig(extCode);
-                        extPriorityConfigMap.put(extCode, config);
-                    }
-                    config.getPriorities().add(ExtPriority.of(p.getCode(), p.getType()));
-                }
-            }
-        });
-        return extPriorityConfigMap;
+    private ExtPriorityResolver newExtPriorityResolver() {
+        return new ExtPriorityResolver(getAllRegisteredProducts(), getAllRegisteredUseCases());
     }
 
     public void addBusinessConfig(BusinessConfig config) {
@@ -217,10 +301,85 @@ public class Lattice {
             throw new LatticeRuntimeException(message);
         }
 
-        BusinessConfigCache.getInstance().getBusinessConfigs().stream()
-                .filter(p -> StringUtils.equals(config.getBizCode(), p.getBizCode()))
-                .findFirst().ifPresent(BusinessConfigCache.getInstance().getBusinessConfigs()::remove);
-        BusinessConfigCache.getInstance().getBusinessConfigs().add(config);
+        applyBusinessConfig(config.getBizCode(), config);
+    }
+
+    private void subscribeBusinessConfigChanges() {
+        List<String> bizCodes = getAllRegisteredBusinesses().stream()
+                .map(BaseSpec::getCode).collect(Collectors.toList());
+        for (BusinessConfigLoadSpi loader : LatticeRuntimeSpiFactory.getInstance().getBusinessConfigLoads()) {
+            try {
+                loader.subscribe(bizCodes, this::onBusinessConfigChanged);
+            } catch (Exception ex) {
+                log.error("[Lattice] subscribe business config changes failed: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Apply the config pushed by the config loader, the latest pushed config wins.
+     * If removed from the loader, fall back to the config of the other loaders.
+     *
+     * @param bizCode the code of the changed business.
+     * @param config  the latest config, null if removed.
+     */
+    public void onBusinessConfigChanged(String bizCode, BusinessConfig config) {
+        if (null == config) {
+            config = loadBusinessConfigs(Collections.singletonList(bizCode)).stream()
+                    .filter(p -> StringUtils.equals(bizCode, p.getBizCode()))
+                    .findFirst().orElse(null);
+        }
+        if (null != config) {
+            Message message = checkBusinessConfig(config);
+            if (null != message) {
+                log.warn("[Lattice] ignored the pushed business config of [{}]: {}", bizCode, message.getText());
+                return;
+            }
+            newExtPriorityResolver().injectUseCasePriorities(config);
+        }
+        applyBusinessConfig(null == config ? bizCode : config.getBizCode(), config);
+    }
+
+    /**
+     * Swap in the config of the business, then re-build only the cached extension runners of the
+     * extensions affected by the change and replace the stale ones, the stale runners not re-built
+     * are evicted.
+     */
+    private void applyBusinessConfig(String bizCode, BusinessConfig config) {
+        BusinessConfig current;
+        synchronized (BusinessConfigCache.getInstance()) {
+            if (null == config) {
+                current = BusinessConfigCache.getInstance().getBusinessConfigByBizCode(bizCode);
+                BusinessConfigCache.getInstance().removeBusinessConfig(bizCode);
+            } else {
+                current = BusinessConfigCache.getInstance().replaceBusinessConfig(config);
+            }
+        }
+        Set<String> extCodes = BusinessConfigDiff.diffExtCodes(current, config);
+        if (!isInitialized() || extCodes.isEmpty()) {
+            return;
+        }
+        AbilityCache abilityCache = AbilityCache.getInstance();
+        Map<Class<?>, Map<ExtensionRunnerCacheKey, Object>> stale =
+                abilityCache.getCachedExtensionRunners(bizCode, extCodes);
+        if (stale.isEmpty()) {
+            return;
+        }
+        Set<String> scenarios = stale.values().stream()
+                .flatMap(p -> p.keySet().stream())
+                .map(ExtensionRunnerCacheKey::getScenario)
+                .collect(Collectors.toCollection(Sets::newHashSet));
+        WarmUpReport report = LatticeWarmUp.getInstance().refreshRunners(bizCode, extCodes, scenarios, stale);
+        int evicted = 0;
+        for (Map.Entry<Class<?>, Map<ExtensionRunnerCacheKey, Object>> entry : stale.entrySet()) {
+            for (Map.Entry<ExtensionRunnerCacheKey, Object> runner : entry.getValue().entrySet()) {
+                if (abilityCache.removeCachedExtensionRunner(entry.getKey(), runner.getKey(), runner.getValue())) {
+                    evicted++;
+                }
+            }
+        }
+        log.info("[Lattice] business config of [{}] changed, extensions: {}, runners replaced: {}, evicted: {}",
+                bizCode, extCodes, report.getRunners(), evicted);
     }
 
     private Message checkBusinessConfig(BusinessConfig config) {
@@ -231,33 +390,14 @@ public class Lattice {
     }
 
     public BusinessConfig autoAddAndBuildBusinessConfig(BusinessSpec businessSpec) {
-        List<ProductConfig> productConfigs = getAllRegisteredProducts().stream()
-                .map(this::buildProductConfig)
-                .collect(Collectors.toList());
-
         BusinessConfig businessConfig = BusinessConfigCache.getInstance().getBusinessConfigs().stream()
                 .filter(p -> StringUtils.equals(p.getBizCode(), businessSpec.getCode()))
                 .findFirst().orElse(null);
         if (null != businessConfig) {
             return businessConfig;
         }
-
-        List<ExtPriorityConfig> priorityConfigs = businessSpec.getRealizations().stream()
-                .flatMap(p -> autoBuildPriorityConfig(businessSpec, p).stream())
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-        businessConfig = BusinessConfigBuilder.builder()
-                .priority(businessSpec.getPriority())
-                .bizCode(businessSpec.getCode())
-                .install(productConfigs)
-                .extension(priorityConfigs)
-                .build();
-        businessConfig.setAutoBuild(true);
+        businessConfig = autoBuildBusinessConfig(businessSpec, newExtPriorityResolver(), getProductCodes());
         BusinessConfigCache.getInstance().getBusinessConfigs().add(businessConfig);
-
-//        BusinessConfigCache.getInstance().getBusinessConfigs().forEach(p -> autoBuildUseCaseExtPriorityConfig(p, buildUseCaseExtPriorityConfigMap()));
-//        BusinessConfigCache.getInstance().getBusinessConfigs().sort(Comparator.comparingInt(BusinessConfig::getPriority));
-
         return businessConfig;
     }
 
@@ -265,64 +405,43 @@ public class Lattice {
         return BusinessConfigCache.getInstance().getBusinessConfigs();
     }
 
+    /**
+     * Build the configs of the businesses not configured in parallel, then add them in the registration order.
+     */
     private void autoBuildBusinessConfig() {
-        for (BusinessSpec businessSpec : getAllRegisteredBusinesses()) {
-            autoAddAndBuildBusinessConfig(businessSpec);
-        }
-    }
-
-    private void autoMakeupPriorityConfig(BusinessConfig businessConfig, List<ProductSpec> products) {
-        Map<String, ExtPriorityConfig> priorityConfigHashMap = Maps.newHashMap();
-        for (ProductSpec spec : products) {
-            List<String> extCodes = spec.getRealizations().stream()
-                    .flatMap(p -> p.getExtensionCodes().stream())
-                    .filter(businessConfig::notContainExtCode)
-                    .collect(Collectors.toList());
-            if (CollectionUtils.isEmpty(extCodes)) {
-                continue;
-            }
-            for (String extCode : extCodes) {
-                ExtPriorityConfig priorityConfig = priorityConfigHashMap.get(extCode);
-                if (null == priorityConfig) {
-                    priorityConfig = new ExtPriorityConfig();
-                    priorityConfig.setExtCode(extCode);
-                    priorityConfigHashMap.put(extCode, priorityConfig);
-                }
-                priorityConfig.getPriorities().add(ExtPriority.of(spec.getCode(), TemplateType.PRODUCT));
-            }
-        }
-        priorityConfigHashMap.values().forEach(p -> businessConfig.getExtensions().add(p));
-    }
-
-    private List<ExtPriorityConfig> autoBuildPriorityConfig(BusinessSpec business, RealizationSpec realization) {
-        List<ExtPriorityConfig> configs = Lists.newArrayList();
-
-
-        for (String extCode : realization.getExtensionCodes()) {
-            List<ProductSpec> products = getAllRegisteredProducts().stream()
-                    .filter(p -> p.getRealizations().stream().
-                            anyMatch(real -> real.getExtensionCodes().contains(extCode)))
-                    .collect(Collectors.toList());
-            ExtPriorityConfig config = new ExtPriorityConfig();
-            config.setExtCode(extCode);
-            config.getPriorities().add(ExtPriority.of(business.getCode(), TemplateType.BUSINESS));
-            configs.add(config);
-
-            if (CollectionUtils.isEmpty(products)) {
-                continue;
-            }
-            config.getPriorities().addAll(0, products.stream()
-                    .map(this::buildExtPriority).collect(Collectors.toList()));
+        Set<String> configured = BusinessConfigCache.getInstance().getBusinessConfigs().stream()
+                .map(BusinessConfig::getBizCode)
+                .collect(Collectors.toCollection(Sets::newHashSet));
+        List<BusinessSpec> businesses = getAllRegisteredBusinesses().stream()
+                .filter(p -> !configured.contains(p.getCode()))
+                .collect(Collectors.toList());
+        if (businesses.isEmpty()) {
+            return;
         }
-        return configs;
+        ExtPriorityResolver resolver = newExtPriorityResolver();
+        String[] productCodes = getProductCodes();
+        LatticeRegistry registry = LatticeRegistry.current();
+        List<BusinessConfig> configs = businesses.parallelStream()
+                .map(p -> registry.call(() -> autoBuildBusinessConfig(p, resolver, productCodes)))
+                .collect(Collectors.toList());
+        configs.removeIf(p -> !configured.add(p.getBizCode()));
+        BusinessConfigCache.getInstance().getBusinessConfigs().addAll(configs);
     }
 
-    private ExtPriority buildExtPriority(ProductSpec productSpec) {
-        return ExtPriority.of(productSpec.getCode(), TemplateType.PRODUCT);
+    private BusinessConfig autoBuildBusinessConfig(BusinessSpec businessSpec, ExtPriorityResolver resolver,
+                                                   String[] productCodes) {
+        BusinessConfig businessConfig = BusinessConfigBuilder.builder()
+                .priority(businessSpec.getPriority())
+                .bizCode(businessSpec.getCode())
+                .install(productCodes)
+                .extension(resolver.resolveBusinessPriorities(businessSpec))
+                .build();
+        businessConfig.setAutoBuild(true);
+        return businessConfig;
     }
 
-    private ProductConfig buildProductConfig(ProductSpec productSpec) {
-        return ProductConfig.of(productSpec.getCode());
+    private String[] getProductCodes() {
+        return getAllRegisteredProducts().stream().map(BaseSpec::getCode).toArray(String[]::new);
     }
 
 
@@ -448,7 +567,7 @@ public class Lattice {
     @SuppressWarnings("rawtypes")
     private void registerAbilities() {
         Set<Class> abilityClasses = getServiceProviderClasses(IAbility.class.getName());
-        registeredAbilities.addAll(AbilityRegister.getInstance()
+        getRegisteredAbilities().addAll(AbilityRegister.getInstance()
                 .register(new AbilityBuildRequest(null, mergeAbilityInstancePackage(abilityClasses))));
     }
 
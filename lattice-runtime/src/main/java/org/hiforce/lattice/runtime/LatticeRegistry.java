@@ -0,0 +1,116 @@
+package org.hiforce.lattice.runtime;
+
+import com.google.common.collect.Lists;
+import lombok.Getter;
+import lombok.Setter;
+import org.hiforce.lattice.model.register.AbilitySpec;
+import org.hiforce.lattice.spi.classloader.LatticeClassLoader;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The registered abilities and templates of the Lattice, with the caches derived from them.
+ * The requests read the published registry, the reload builds and warms up a staged one
+ * bound to the reloading thread, then publishes it in one volatile swap.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/23
+ */
+public class LatticeRegistry {
+
+    private static volatile LatticeRegistry published = new LatticeRegistry();
+
+    private static final ThreadLocal<LatticeRegistry> BOUND = new ThreadLocal<>();
+
+    private final Map<Class<?>, Object> components = new ConcurrentHashMap<>();
+
+    @Getter
+    private final List<AbilitySpec> registeredAbilities = Lists.newArrayList();
+
+    @Getter
+    @Setter
+    private volatile LatticeClassLoader latticeClassLoader;
+
+    @Getter
+    @Setter
+    private volatile boolean initialized;
+
+    /**
+     * @return the registry bound to the current thread, the published one if none.
+     */
+    public static LatticeRegistry current() {
+        LatticeRegistry bound = BOUND.get();
+        return null != bound ? bound : published;
+    }
+
+    public static LatticeRegistry getPublished() {
+        return published;
+    }
+
+    static void publish(LatticeRegistry registry) {
+        published = registry;
+    }
+
+    /**
+     * @return the component of the registry, created by the factory on the first access.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getComponent(Class<T> type, Supplier<T> factory) {
+        Object component = components.get(type);
+        if (null == component) {
+            T created = factory.get();
+            component = components.putIfAbsent(type, created);
+            return null == component ? created : (T) component;
+        }
+        return (T) component;
+    }
+
+    /**
+     * Run the task against this registry on the current thread, the outer binding is restored after.
+     */
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public <T> T call(Supplier<T> task) {
+        LatticeRegistry previous = bind();
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Bind the registry to the current thread until restored.
+     *
+     * @return the registry bound before, to be restored.
+     */
+    public LatticeRegistry bind() {
+        LatticeRegistry previous = BOUND.get();
+        BOUND.set(this);
+        return previous;
+    }
+
+    public static void restore(LatticeRegistry previous) {
+        if (null == previous) {
+            BOUND.remove();
+        } else {
+            BOUND.set(previous);
+        }
+    }
+
+    /**
+     * @return the task running against the registry of the current thread, wherever it is executed.
+     */
+    public static Runnable wrap(Runnable task) {
+        LatticeRegistry registry = current();
+        return () -> registry.run(task);
+    }
+}
@@ -21,6 +21,7 @@ import org.hiforce.lattice.runtime.ability.execute.ExecuteResult;
 import org.hiforce.lattice.runtime.ability.execute.RunnerCollection;
 import org.hiforce.lattice.runtime.ability.execute.filter.ExtensionFilter;
 import org.hiforce.lattice.runtime.cache.LatticeRuntimeCache;
+import org.hiforce.lattice.runtime.cache.key.ExtensionRunnerCacheKey;
 import org.hiforce.lattice.utils.JacksonUtils;
 import org.hiforce.lattice.utils.LatticeAnnotationUtils;
 import org.jetbrains.annotations.NotNull;
@@ -30,6 +31,7 @@ import org.springframework.cglib.proxy.MethodInterceptor;
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hiforce.lattice.runtime.ability.execute.filter.ExtensionFilter.DEFAULT_FILTER;
@@ -164,6 +166,7 @@ public abstract class BaseLatticeAbility<BusinessExt extends IBusinessExt>
                 log.warn(Message.code("LATTICE-CORE-RT-0017", extCode, reducer.reducerType(),
                         extensionSpec.getReduceType()).getText());
             }
+            getContext().setExtCacheTtl(null == extensionSpec ? 0 : extensionSpec.getCacheTtl());
 
             String bizCode = getContext().getBizObject().getBizCode();
             if (StringUtils.isEmpty(bizCode)) {
@@ -179,6 +182,38 @@ public abstract class BaseLatticeAbility<BusinessExt extends IBusinessExt>
         }
     }
 
+    /**
+     * Pre-build the cached extension runners and the invoke context proxy class of the extension.
+     *
+     * @param extCode the extension code.
+     */
+    public void warmUp(String extCode) {
+        try {
+            Enhancer enhancer = new Enhancer();
+            enhancer.setSuperclass(this.getDefaultRealization().getClass());
+            enhancer.setCallbackType(MethodInterceptor.class);
+            enhancer.createClass();
+            delegate.warmUpExtensionRunners(extCode, DEFAULT_FILTER);
+        } finally {
+            this.context = null;
+        }
+    }
+
+    /**
+     * Re-build the cached extension runners and swap them in place of the stale ones.
+     *
+     * @param extCode the extension code.
+     * @param stale   the stale runners of the ability, the swapped ones are removed from it.
+     * @return whether swapped.
+     */
+    public boolean refreshRunners(String extCode, Map<ExtensionRunnerCacheKey, Object> stale) {
+        try {
+            return delegate.refreshExtensionRunners(extCode, DEFAULT_FILTER, stale);
+        } finally {
+            this.context = null;
+        }
+    }
+
     @SuppressWarnings("all")
     private <T> void initAbiliinittyInvokeContext(ExtensionCallback<BusinessExt, T> callback) {
         BusinessExt businessExt = this.getDefaultRealization();
@@ -1,6 +1,7 @@
 package org.hiforce.lattice.runtime.ability.cache;
 
 import org.hiforce.lattice.model.ability.IAbility;
+import org.hiforce.lattice.runtime.LatticeRegistry;
 import org.hiforce.lattice.runtime.cache.LatticeCache;
 
 import java.util.List;
@@ -13,21 +14,10 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class AbilityInstCache implements LatticeCache {
 
-    private static AbilityInstCache instance;
-
-    private static final Object lock = new Object();
-
-    private static final Map<String, List<Class<IAbility>>> ABILITY_INST_MAP = new ConcurrentHashMap<>();
+    private final Map<String, List<Class<IAbility>>> ABILITY_INST_MAP = new ConcurrentHashMap<>();
 
     public static AbilityInstCache getInstance() {
-        if (null == instance) {
-            synchronized (lock) {
-                if (null == instance) {
-                    instance = new AbilityInstCache();
-                }
-            }
-        }
-        return instance;
+        return LatticeRegistry.current().getComponent(AbilityInstCache.class, AbilityInstCache::new);
     }
 
     public List<Class<IAbility>> getAbilityInstCodes(String abilityCode){
@@ -38,6 +28,10 @@ public class AbilityInstCache implements LatticeCache {
         ABILITY_INST_MAP.put(abilityCode, instanceClasses);
     }
 
+    public void clearClassLoaderCache(ClassLoader classLoader) {
+        ABILITY_INST_MAP.values().removeIf(p -> p.stream().anyMatch(c -> c.getClassLoader() == classLoader));
+    }
+
     @Override
     public void init() {
 
@@ -3,17 +3,21 @@ package org.hiforce.lattice.runtime.ability.cache;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.annotation.model.ScanSkipAnnotation;
 import org.hiforce.lattice.model.ability.IBusinessExt;
 import org.hiforce.lattice.model.ability.cache.IBusinessExtCache;
+import org.hiforce.lattice.runtime.LatticeRegistry;
 import org.hiforce.lattice.runtime.cache.LatticeCache;
+import org.hiforce.lattice.runtime.cache.index.CacheDependencyIndex;
 import org.hiforce.lattice.utils.BusinessExtUtils;
 import org.hiforce.lattice.runtime.utils.LatticeBeanUtils;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -27,25 +31,15 @@ import static org.hiforce.lattice.utils.LatticeAnnotationUtils.getScanSkipAnnota
 @Slf4j
 public class BusinessExtCache implements IBusinessExtCache, LatticeCache {
 
-    private static BusinessExtCache instance;
-
-    private static final Object lock = new Object();
-
-    private static final Table<Class<?>, ExtKey, IBusinessExt> BIZ_EXT_TABLE = HashBasedTable.create();
+    private final Table<Class<?>, ExtKey, IBusinessExt> BIZ_EXT_TABLE =
+            Tables.synchronizedTable(HashBasedTable.create());
 
     private BusinessExtCache() {
 
     }
 
     public static BusinessExtCache getInstance() {
-        if (null == instance) {
-            synchronized (lock) {
-                if (null == instance) {
-                    instance = new BusinessExtCache();
-                }
-            }
-        }
-        return instance;
+        return LatticeRegistry.current().getComponent(BusinessExtCache.class, BusinessExtCache::new);
     }
 
     @Override
@@ -59,6 +53,13 @@ public class BusinessExtCache implements IBusinessExtCache, LatticeCache {
     }
 
 
+    public void clearClassLoaderCache(ClassLoader classLoader) {
+        synchronized (BIZ_EXT_TABLE) {
+            BIZ_EXT_TABLE.rowKeySet().removeIf(p -> p.getClassLoader() == classLoader);
+            BIZ_EXT_TABLE.values().removeIf(p -> p.getClass().getClassLoader() == classLoader);
+        }
+    }
+
     @SuppressWarnings("SynchronizationOnGetClass")
     public IBusinessExt getCachedBusinessExt(IBusinessExt businessExt, String extCode, String scenario) {
         scenario = StringUtils.isEmpty(scenario) ? "None#" : scenario;
@@ -76,6 +77,13 @@ public class BusinessExtCache implements IBusinessExtCache, LatticeCache {
             if (point != null) {
                 LatticeBeanUtils.autowireBean(point);
                 BIZ_EXT_TABLE.put(businessExt.getClass(), extKey, point);
+                Class<?> facadeClass = businessExt.getClass();
+                CacheDependencyIndex.getInstance().addDependent(
+                        CacheDependencyIndex.Dependent.of(BIZ_EXT_TABLE, Arrays.asList(facadeClass, extKey),
+                                        () -> null != BIZ_EXT_TABLE.remove(facadeClass, extKey))
+                                .extension(extCode)
+                                .realization(facadeClass)
+                                .realization(point.getClass()));
             }
             return point;
         }
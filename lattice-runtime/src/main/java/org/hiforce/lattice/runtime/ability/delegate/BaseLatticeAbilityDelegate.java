@@ -4,7 +4,6 @@ import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.annotation.model.ProtocolType;
-import org.hiforce.lattice.cache.ITemplateCache;
 import org.hiforce.lattice.cache.invoke.InvokeCache;
 import org.hiforce.lattice.exception.LatticeRuntimeException;
 import org.hiforce.lattice.extension.ExtensionRunner;
@@ -34,6 +33,7 @@ import org.hiforce.lattice.runtime.cache.LatticeRuntimeCache;
 import org.hiforce.lattice.runtime.cache.ability.AbilityCache;
 import org.hiforce.lattice.runtime.cache.exension.ExtensionInvokeCache;
 import org.hiforce.lattice.runtime.cache.exension.NotExistedRealization;
+import org.hiforce.lattice.runtime.cache.index.RealizationIndex;
 import org.hiforce.lattice.runtime.cache.index.TemplateIndex;
 import org.hiforce.lattice.runtime.cache.key.ExtensionInvokeCacheKey;
 import org.hiforce.lattice.runtime.cache.key.ExtensionRunnerCacheKey;
@@ -45,12 +45,12 @@ import org.hiforce.lattice.utils.BizCodeUtils;
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static org.hiforce.lattice.runtime.ability.execute.RunnerCollection.ACCEPT_ALL;
-import static org.hiforce.lattice.utils.BizCodeUtils.isCodeMatched;
 
 /**
  * @author Rocky Yu
@@ -152,6 +152,59 @@ public class BaseLatticeAbilityDelegate {
                 , businessRunnerCollection);
     }
 
+    public void warmUpExtensionRunners(@Nonnull String extCode, ExtensionFilter filter) {
+        String bizCode = ability.getContext().getBizCode();
+        LatticeRuntimeCache runtimeCache = Lattice.getInstance().getRuntimeCache();
+        ExtensionSpec extensionSpec = runtimeCache.getExtensionCache().getExtensionIndex().getKey1Only(extCode);
+        if (null == extensionSpec) {
+            return;
+        }
+        BusinessConfig businessConfig = loadBusinessConfig(bizCode, extensionSpec);
+        if (null == businessConfig) {
+            return;
+        }
+        getCachedExtensionRunners(extensionSpec, businessConfig, filter);
+    }
+
+    /**
+     * Build the runners of the extension, then swap them in only if the cached ones are still the stale ones.
+     *
+     * @param stale the stale runners of the ability, the swapped ones are removed from it.
+     * @return whether swapped.
+     */
+    public boolean refreshExtensionRunners(@Nonnull String extCode, ExtensionFilter filter,
+                                           Map<ExtensionRunnerCacheKey, Object> stale) {
+        if (null == stale || stale.isEmpty()) {
+            return false;
+        }
+        String bizCode = ability.getContext().getBizCode();
+        LatticeRuntimeCache runtimeCache = Lattice.getInstance().getRuntimeCache();
+        ExtensionSpec extensionSpec = runtimeCache.getExtensionCache().getExtensionIndex().getKey1Only(extCode);
+        if (null == extensionSpec) {
+            return false;
+        }
+        ExtensionRunnerCacheKey key = buildRunnerCacheKey(extensionSpec, filter);
+        Object previous = stale.get(key);
+        if (null == previous) {
+            return false;
+        }
+        BusinessConfig businessConfig = loadBusinessConfig(bizCode, extensionSpec);
+        if (null == businessConfig) {
+            return false;
+        }
+        Object runners = buildExtensionRunners(extensionSpec, businessConfig, filter);
+        if (!AbilityCache.getInstance().replaceCachedExtensionRunner(ability.getClass(), key, previous, runners)) {
+            return false;
+        }
+        stale.remove(key);
+        return true;
+    }
+
+    private ExtensionRunnerCacheKey buildRunnerCacheKey(ExtensionSpec extension, ExtensionFilter filter) {
+        return new ExtensionRunnerCacheKey(extension.getCode(), ability.getContext().getBizCode(),
+                ability.getContext().getScenario(), ability.supportCustomization(), !filter.isLoadBusinessExt());
+    }
+
     private <R> List<RunnerItemEntry<R>> filterEffectiveRunners(
             List<RunnerItemEntry<R>> runners) {
         List<RunnerItemEntry<R>> effectiveRunners = Lists.newArrayList();
@@ -207,35 +260,39 @@ public class BaseLatticeAbilityDelegate {
     private <R> List<RunnerItemEntry<R>> getCachedExtensionRunners(
             ExtensionSpec extension, BusinessConfig businessConfig, ExtensionFilter filter) {
 
-        String scenario = ability.getContext().getScenario();
-        String bizCode = ability.getContext().getBizCode();
-
-        boolean supportCustomization = ability.supportCustomization();
-        boolean isHorizontal = !filter.isLoadBusinessExt();
-        LatticeRuntimeCache runtimeCache = Lattice.getInstance().getRuntimeCache();
         // cache
-        ExtensionRunnerCacheKey key = new ExtensionRunnerCacheKey(
-                extension.getCode(), bizCode, scenario, supportCustomization, isHorizontal);
+        ExtensionRunnerCacheKey key = buildRunnerCacheKey(extension, filter);
 
         Object result = AbilityCache.getInstance().getCachedExtensionRunner(ability.getClass(), key);
         if (result != null) {
             if (result == NULL_OBJECT) {
                 return null;
             } else {
-                List<RunnerItemEntry<R>>  runnerItemEntryList = (List<RunnerItemEntry<R>>) result;
-                runnerItemEntryList.forEach(r->{
-                    r.setAbility(ability);
-                    r.getRunner().setAbility(ability);
-                });
+                List<RunnerItemEntry<R>> runnerItemEntryList = Lists.newArrayList();
+                ((List<RunnerItemEntry<R>>) result).forEach(r -> runnerItemEntryList.add(r.bindAbility(ability)));
+                return runnerItemEntryList;
             }
         }
 
+        Object runners = buildExtensionRunners(extension, businessConfig, filter);
+        AbilityCache.getInstance().doCacheExtensionRunner(ability.getClass(), key, runners);
+        return runners == NULL_OBJECT ? null : (List<RunnerItemEntry<R>>) runners;
+    }
+
+    /**
+     * @return the runners of the extension, or {@link #NULL_OBJECT} if the extension not configured.
+     */
+    private <R> Object buildExtensionRunners(
+            ExtensionSpec extension, BusinessConfig businessConfig, ExtensionFilter filter) {
+        String scenario = ability.getContext().getScenario();
+        String bizCode = ability.getContext().getBizCode();
+        boolean isHorizontal = !filter.isLoadBusinessExt();
+
         ExtPriorityConfig priorityConfig = businessConfig.getExtensions().stream()
                 .filter(p -> StringUtils.equals(p.getExtCode(), extension.getCode()))
                 .findFirst().orElse(null);
         if (null == priorityConfig) {
-            AbilityCache.getInstance().doCacheExtensionRunner(ability.getClass(), key, NULL_OBJECT);
-            return null;
+            return NULL_OBJECT;
         }
 
         List<RunnerItemEntry<R>> extensionRunners = new ArrayList<>();
@@ -264,7 +321,6 @@ public class BaseLatticeAbilityDelegate {
                 extensionRunners.add(runnerItemEntry);
             }
         }
-        AbilityCache.getInstance().doCacheExtensionRunner(ability.getClass(), key, extensionRunners);
         return extensionRunners;
     }
 
@@ -445,57 +501,15 @@ public class BaseLatticeAbilityDelegate {
             ExtensionInvokeCache.getInstance().doCacheExtensionRealization(cacheKey, new NotExistedRealization());
             return null;
         }
-        return ExtensionInvokeCache.getInstance().doCacheExtensionRealization(cacheKey, extImpl);
+        return ExtensionInvokeCache.getInstance().doCacheExtensionRealization(cacheKey, extImpl, extFacade);
     }
 
     public IBusinessExt findIExtensionPointsFacadeViaScenario(String scenario, TemplateSpec template, String extPointCode) {
-        IBusinessExt extFacade = null;
-
-        ITemplateCache templateCache = Lattice.getInstance().getRuntimeCache().getTemplateIndex();
-
-        List<RealizationSpec> realizationSpecs = Lattice.getInstance().getAllRegisteredRealizations();
+        return findBusinessExtFacade(scenario, template, extPointCode);
+    }
 
-        if (StringUtils.isEmpty(scenario)) {
-            for (RealizationSpec realization : realizationSpecs) {
-                if (StringUtils.isNotEmpty(realization.getScenario())) {
-                    continue;
-                }
-                IBusinessExt facade = realization.getBusinessExt();
-                if (facade != null
-                        && isCodeMatched(realization.getCode(), template.getCode())
-                        && null != facade.getBusinessExtByCode(extPointCode, scenario)) {
-                    extFacade = facade;
-                    break;
-                }
-            }
-        } else {
-            for (RealizationSpec realization : realizationSpecs) {
-                if (StringUtils.equals(scenario, realization.getScenario())) {
-                    IBusinessExt facade = realization.getBusinessExt();
-                    if (facade != null
-                            && isCodeMatched(realization.getCode(), template.getCode())
-                            && null != facade.getBusinessExtByCode(extPointCode, scenario)) {
-                        extFacade = facade;
-                        break;
-                    }
-                }
-            }
-            if (null == extFacade) {
-                for (RealizationSpec realization : realizationSpecs) {
-                    if (StringUtils.isNotEmpty(realization.getScenario())) {
-                        continue;
-                    }
-                    IBusinessExt facade = realization.getBusinessExt();
-                    if (facade != null
-                            && isCodeMatched(realization.getCode(), template.getCode())
-                            && null != facade.getBusinessExtByCode(extPointCode, scenario)) {
-                        extFacade = facade;
-                        break;
-                    }
-                }
-            }
-        }
-        return extFacade;
+    public static IBusinessExt findBusinessExtFacade(String scenario, TemplateSpec template, String extPointCode) {
+        return RealizationIndex.getInstance().findBusinessExtFacade(scenario, template.getCode(), extPointCode);
     }
 
 
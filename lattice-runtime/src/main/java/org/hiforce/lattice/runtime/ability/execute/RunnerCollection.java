@@ -3,6 +3,7 @@ package org.hiforce.lattice.runtime.ability.execute;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
+import org.hiforce.lattice.extension.ExtensionRemoteRunner;
 import org.hiforce.lattice.extension.ExtensionRunner;
 import org.hiforce.lattice.extension.ExtensionRunnerType;
 import org.hiforce.lattice.extension.RunnerItemEntry;
@@ -13,6 +14,8 @@ import org.hiforce.lattice.model.business.IBizObject;
 import org.hiforce.lattice.model.register.TemplateSpec;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Predicate;
 
 /**
@@ -185,32 +188,90 @@ public class RunnerCollection<R> {
         }
 
         List<ExtensionRunner.CollectionRunnerExecuteResult> executeResults = new ArrayList<>(list.size() * 2);
-        for (InstantItem<T> item : list) {
-            ExtensionRunner.CollectionRunnerExecuteResult executeResult = new ExtensionRunner.CollectionRunnerExecuteResult();
-            List<T> itemResult = item.runAllMatched(callback, executeResult);
-            executeResult.setResults(itemResult);
-            executeResults.add(executeResult);
-            if (reducer.willBreak(itemResult)) {
-                return ExecuteResult.success(bizInstance.getBizCode(), extCode, reducer.reduceName(),
-                        reducer.reduce(itemResult), convertToTemplateList(list), executeResults);
-            } else {
-                if (itemResult.size() == 1) {
-                    results.add(itemResult.get(0));
+        Map<InstantItem<T>, AsyncItemResult<T>> asyncResults = issueAsyncRunners(list, callback);
+        try {
+            for (InstantItem<T> item : list) {
+                AsyncItemResult<T> asyncResult = asyncResults.remove(item);
+                ExtensionRunner.CollectionRunnerExecuteResult executeResult = null == asyncResult ?
+                        new ExtensionRunner.CollectionRunnerExecuteResult() : asyncResult.executeResult;
+                List<T> itemResult = null == asyncResult ?
+                        item.runAllMatched(callback, executeResult) : asyncResult.join();
+                executeResult.setResults(itemResult);
+                executeResults.add(executeResult);
+                if (reducer.willBreak(itemResult)) {
+                    return ExecuteResult.success(bizInstance.getBizCode(), extCode, reducer.reduceName(),
+                            reducer.reduce(itemResult), convertToTemplateList(list), executeResults);
                 } else {
-                    results.addAll(itemResult);
+                    if (itemResult.size() == 1) {
+                        results.add(itemResult.get(0));
+                    } else {
+                        results.addAll(itemResult);
+                    }
                 }
             }
+        } finally {
+            asyncResults.values().forEach(p -> p.future.cancel(false));
         }
         return ExecuteResult.success(bizInstance.getBizCode(), extCode, reducer.reduceName(),
                 reducer.reduce(results), convertToTemplateList(list), executeResults);
     }
 
+    private <T> Map<InstantItem<T>, AsyncItemResult<T>> issueAsyncRunners(
+            List<InstantItem<T>> list, ExtensionCallback<IBusinessExt, T> callback) {
+        Map<InstantItem<T>, AsyncItemResult<T>> asyncResults = null;
+        for (InstantItem<T> item : list) {
+            ExtensionRunner<T> runner = item.runnerItemEntry.getRunner();
+            if (!(runner instanceof ExtensionRemoteRunner) || !((ExtensionRemoteRunner<T>) runner).isAsyncSupported()) {
+                continue;
+            }
+            if (null == asyncResults) {
+                asyncResults = new IdentityHashMap<>();
+            }
+            ExtensionRunner.CollectionRunnerExecuteResult executeResult = new ExtensionRunner.CollectionRunnerExecuteResult();
+            CompletableFuture<List<T>> future = ((ExtensionRemoteRunner<T>) runner)
+                    .runAllMatchedAsync(item.bizObject, callback, executeResult);
+            asyncResults.put(item, new AsyncItemResult<>(
+                    future, executeResult, (ExtensionRemoteRunner<T>) runner, item.bizObject, callback));
+        }
+        return null == asyncResults ? Collections.emptyMap() : asyncResults;
+    }
+
     private <T> List<TemplateSpec> convertToTemplateList(List<InstantItem<T>> list) {
         List<TemplateSpec> templates = new ArrayList<>(list.size());
         list.forEach(p -> templates.add(p.runnerItemEntry.getTemplate()));
         return templates;
     }
 
+    private static class AsyncItemResult<T> {
+        final CompletableFuture<List<T>> future;
+        final ExtensionRunner.CollectionRunnerExecuteResult executeResult;
+        final ExtensionRemoteRunner<T> runner;
+        final IBizObject bizObject;
+        final ExtensionCallback<IBusinessExt, T> callback;
+
+        AsyncItemResult(CompletableFuture<List<T>> future, ExtensionRunner.CollectionRunnerExecuteResult executeResult,
+                        ExtensionRemoteRunner<T> runner, IBizObject bizObject, ExtensionCallback<IBusinessExt, T> callback) {
+            this.future = future;
+            this.executeResult = executeResult;
+            this.runner = runner;
+            this.bizObject = bizObject;
+            this.callback = callback;
+        }
+
+        List<T> join() {
+            try {
+                return runner.joinAsync(future, bizObject, callback, executeResult);
+            } catch (CompletionException ex) {
+                Throwable cause = null == ex.getCause() ? ex : ex.getCause();
+                log.error(cause.getMessage(), cause);
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
     public interface Producer<R> {
         RunnerItemEntry<R> produce();
     }
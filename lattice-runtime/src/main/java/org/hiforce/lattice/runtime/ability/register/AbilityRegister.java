@@ -228,9 +228,11 @@ public class AbilityRegister {
         if (null == annotation)
             return null;
 
-        return buildExtensionPointSpec(abilitySpec, annotation.getCode(),
+        ExtensionSpec extensionSpec = buildExtensionPointSpec(abilitySpec, annotation.getCode(),
                 annotation.getName(), annotation.getDesc(), itfClass, method,
                 annotation.getReduceType(), annotation.getProtocolType());
+        extensionSpec.setCacheTtl(annotation.getCacheTtl());
+        return extensionSpec;
     }
 
     private ExtensionSpec buildExtensionPointSpec(AbilitySpec abilitySpec, String extensionCode,
@@ -10,14 +10,18 @@ import org.hiforce.lattice.model.ability.IBusinessExt;
 import org.hiforce.lattice.model.business.BusinessTemplate;
 import org.hiforce.lattice.model.register.*;
 import org.hiforce.lattice.model.scenario.ScenarioRequest;
+import org.hiforce.lattice.runtime.LatticeRegistry;
+import org.hiforce.lattice.runtime.cache.index.RealizationIndex;
 import org.hiforce.lattice.runtime.cache.index.TemplateIndex;
 import org.hiforce.lattice.utils.BizCodeUtils;
 import org.hiforce.lattice.utils.BusinessExtUtils;
 
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.hiforce.lattice.utils.LatticeAnnotationUtils.*;
@@ -28,8 +32,6 @@ import static org.hiforce.lattice.utils.LatticeAnnotationUtils.*;
  */
 public class TemplateRegister {
 
-    private static TemplateRegister instance;
-
     @Getter
     private final List<RealizationSpec> realizations = Lists.newArrayList();
 
@@ -42,15 +44,17 @@ public class TemplateRegister {
     @Getter
     private final List<BusinessSpec> businesses = Lists.newArrayList();
 
+    /**
+     * Bumped on every change of the realizations, the derived indexes are rebuilt once it moved.
+     */
+    private final AtomicLong realizationVersion = new AtomicLong();
+
     private TemplateRegister() {
 
     }
 
     public static TemplateRegister getInstance() {
-        if (null == instance) {
-            instance = new TemplateRegister();
-        }
-        return instance;
+        return LatticeRegistry.current().getComponent(TemplateRegister.class, TemplateRegister::new);
     }
 
     public BusinessTemplate getFirstMatchedBusiness(ScenarioRequest request) {
@@ -202,16 +206,32 @@ public class TemplateRegister {
                     realizationSpecs.add(spec);
                 }
             }
+            realizationVersion.incrementAndGet();
         }
+        RealizationIndex.getInstance().invalidate();
         return realizationSpecs;
     }
 
+    public synchronized void removeRealizations(Collection<RealizationSpec> removed) {
+        synchronized (TemplateRegister.class) {
+            realizations.removeAll(removed);
+            realizationVersion.incrementAndGet();
+        }
+        RealizationIndex.getInstance().invalidate();
+    }
+
+    public long getRealizationVersion() {
+        return realizationVersion.get();
+    }
+
     public synchronized void clear() {
         synchronized (TemplateRegister.class) {
             realizations.clear();
             products.clear();
             useCases.clear();
             businesses.clear();
+            realizationVersion.incrementAndGet();
         }
+        RealizationIndex.getInstance().invalidate();
     }
 }
@@ -1,9 +1,11 @@
 package org.hiforce.lattice.runtime.cache;
 
 import com.google.auto.service.AutoService;
-import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.cache.ILatticeRuntimeCache;
+import org.hiforce.lattice.message.Message;
+import org.hiforce.lattice.model.register.RealizationSpec;
 import org.hiforce.lattice.runtime.ability.cache.AbilityInstCache;
 import org.hiforce.lattice.runtime.ability.cache.BusinessExtCache;
 import org.hiforce.lattice.runtime.ability.register.TemplateRegister;
@@ -11,59 +13,126 @@ import org.hiforce.lattice.runtime.cache.ability.AbilityCache;
 import org.hiforce.lattice.runtime.cache.config.BusinessConfigCache;
 import org.hiforce.lattice.runtime.cache.exension.ExtensionCache;
 import org.hiforce.lattice.runtime.cache.exension.ExtensionInvokeCache;
+import org.hiforce.lattice.runtime.cache.index.CacheDependencyIndex;
+import org.hiforce.lattice.runtime.cache.index.RealizationIndex;
 import org.hiforce.lattice.runtime.cache.index.TemplateIndex;
+import org.hiforce.lattice.runtime.utils.ClassPathScanHandler;
+import org.hiforce.lattice.utils.BusinessExtUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @author Rocky Yu
  * @since 2022/9/16
  */
+@Slf4j
 @SuppressWarnings("unused")
 @AutoService(ILatticeRuntimeCache.class)
 public class LatticeRuntimeCache implements ILatticeRuntimeCache, LatticeCache {
 
-    @Getter
-    private final TemplateIndex templateIndex = TemplateIndex.getInstance();
+    /**
+     * The caches are resolved from the registry of the current thread on each access,
+     * see {@link org.hiforce.lattice.runtime.LatticeRegistry}.
+     */
+    @Override
+    public TemplateIndex getTemplateIndex() {
+        return TemplateIndex.getInstance();
+    }
 
-    @Getter
-    private final ExtensionCache extensionCache = ExtensionCache.getInstance();
+    public RealizationIndex getRealizationIndex() {
+        return RealizationIndex.getInstance();
+    }
 
-    @Getter
-    private final AbilityCache abilityCache = AbilityCache.getInstance();
+    public ExtensionCache getExtensionCache() {
+        return ExtensionCache.getInstance();
+    }
 
-    @Getter
-    private final BusinessConfigCache businessConfigCache = BusinessConfigCache.getInstance();
+    public AbilityCache getAbilityCache() {
+        return AbilityCache.getInstance();
+    }
 
-    @Getter
-    private final ExtensionInvokeCache invokeCache = ExtensionInvokeCache.getInstance();
+    public BusinessConfigCache getBusinessConfigCache() {
+        return BusinessConfigCache.getInstance();
+    }
 
-    @Getter
-    private final BusinessExtCache businessExtCache = BusinessExtCache.getInstance();
+    public ExtensionInvokeCache getInvokeCache() {
+        return ExtensionInvokeCache.getInstance();
+    }
 
-    public synchronized void clearProductCache(String code) {
+    @Override
+    public BusinessExtCache getBusinessExtCache() {
+        return BusinessExtCache.getInstance();
+    }
+
+    /**
+     * Remove the product, and evict only the cache entries derived from it or its realizations.
+     *
+     * @return the count of the evicted cache entries.
+     */
+    public synchronized int clearProductCache(String code) {
         TemplateRegister.getInstance().getProducts().removeIf(p -> StringUtils.equals(p.getCode(), code));
-        TemplateRegister.getInstance().getRealizations().removeIf(p -> StringUtils.equals(p.getCode(), code));
+        int evicted = evictTemplateDependents(code);
         TemplateIndex.getInstance().remove(code);
-        ExtensionInvokeCache.getInstance().clear();
-        BusinessExtCache.getInstance().clear();
-        AbilityCache.getInstance().clear();
+        log.info("[Lattice] product [{}] removed, {} cache entries evicted.", code, evicted);
+        return evicted;
     }
 
-    public synchronized void clearBusinessCache(String bizCode) {
+    /**
+     * Remove the business, and evict only the cache entries derived from it or its realizations.
+     *
+     * @return the count of the evicted cache entries.
+     */
+    public synchronized int clearBusinessCache(String bizCode) {
         TemplateRegister.getInstance().getBusinesses().removeIf(p -> StringUtils.equals(p.getCode(), bizCode));
-        TemplateRegister.getInstance().getRealizations().removeIf(p -> StringUtils.equals(p.getCode(), bizCode));
+        int evicted = evictTemplateDependents(bizCode);
         TemplateIndex.getInstance().remove(bizCode);
-        ExtensionInvokeCache.getInstance().clear();
         BusinessConfigCache.getInstance().removeBusinessConfig(bizCode);
-        BusinessExtCache.getInstance().clear();
-        AbilityCache.getInstance().clear();
+        log.info("[Lattice] business [{}] removed, {} cache entries evicted.", bizCode, evicted);
+        return evicted;
+    }
+
+    private int evictTemplateDependents(String code) {
+        List<RealizationSpec> realizations = TemplateRegister.getInstance().getRealizations().stream()
+                .filter(p -> StringUtils.equals(p.getCode(), code))
+                .collect(Collectors.toList());
+        TemplateRegister.getInstance().removeRealizations(realizations);
+
+        CacheDependencyIndex index = CacheDependencyIndex.getInstance();
+        int evicted = index.evictTemplate(code);
+        for (RealizationSpec realization : realizations) {
+            evicted += index.evictRealization(realization.getBusinessExtClass());
+            if (null != realization.getBusinessExt()) {
+                evicted += index.evictRealization(realization.getBusinessExt().getClass());
+            }
+        }
+        return evicted;
+    }
+
+    public synchronized void clearClassLoaderCache(ClassLoader classLoader) {
+        clearSharedClassLoaderCache(classLoader);
+        BusinessExtCache.getInstance().clearClassLoaderCache(classLoader);
+        AbilityInstCache.getInstance().clearClassLoaderCache(classLoader);
+        ExtensionInvokeCache.getInstance().clearRealizationCache();
+        AbilityCache.getInstance().clearExtensionRunnerCache();
     }
 
+    /**
+     * Evict only the caches shared by the registries, enough once the registry holding
+     * the class loader has been replaced by one rebuilt without it.
+     */
+    public void clearSharedClassLoaderCache(ClassLoader classLoader) {
+        BusinessExtUtils.removeClassLoaderCache(classLoader);
+        ClassPathScanHandler.clearCache(classLoader);
+        Message.clean();
+    }
 
     @Override
     public synchronized void init() {
         getAbilityCache().init();
         getExtensionCache().init();
         getTemplateIndex().init();
+        getRealizationIndex().init();
         getInvokeCache().init();
         getBusinessConfigCache().init();
         getBusinessExtCache().init();
@@ -72,11 +141,13 @@ public class LatticeRuntimeCache implements ILatticeRuntimeCache, LatticeCache {
 
     public synchronized void clear() {
         getTemplateIndex().clear();
+        getRealizationIndex().clear();
         getExtensionCache().clear();
         getAbilityCache().clear();
         getInvokeCache().clear();
         getBusinessConfigCache().clear();
         getBusinessExtCache().clear();
         AbilityInstCache.getInstance().clear();
+        CacheDependencyIndex.getInstance().clear();
     }
 }
@@ -1,15 +1,19 @@
 package org.hiforce.lattice.runtime.cache.ability;
 
 import com.google.common.collect.Maps;
-import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.annotation.model.AbilityAnnotation;
+import org.hiforce.lattice.extension.RunnerItemEntry;
 import org.hiforce.lattice.model.register.AbilitySpec;
+import org.hiforce.lattice.runtime.LatticeRegistry;
 import org.hiforce.lattice.runtime.cache.LatticeCache;
+import org.hiforce.lattice.runtime.cache.index.CacheDependencyIndex;
 import org.hiforce.lattice.runtime.cache.key.ExtensionRunnerCacheKey;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -19,21 +23,18 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class AbilityCache implements LatticeCache {
 
-    private static AbilityCache instance;
-
     private final ConcurrentMap<String, AbilitySpec> ABILITY_SPEC_CACHE = new ConcurrentHashMap<>(120);
 
     private final Map<Class<?>, Map<Long, Object>> ABILITY_RUNNER_CACHE = Maps.newConcurrentMap();
 
+    private final Map<Long, ExtensionRunnerCacheKey> RUNNER_CACHE_KEYS = Maps.newConcurrentMap();
+
     private AbilityCache() {
 
     }
 
     public static AbilityCache getInstance() {
-        if (null == instance) {
-            instance = new AbilityCache();
-        }
-        return instance;
+        return LatticeRegistry.current().getComponent(AbilityCache.class, AbilityCache::new);
     }
 
     @Override
@@ -45,15 +46,106 @@ public class AbilityCache implements LatticeCache {
     public void clear() {
         ABILITY_SPEC_CACHE.clear();
         ABILITY_RUNNER_CACHE.clear();
+        RUNNER_CACHE_KEYS.clear();
     }
 
-    public void doCacheExtensionRunner(Class<?> abilityClass, ExtensionRunnerCacheKey key, Object runner) {
+    public void clearExtensionRunnerCache() {
+        ABILITY_RUNNER_CACHE.clear();
+        RUNNER_CACHE_KEYS.clear();
+    }
+
+    /**
+     * @return the cached runner entries of the (bizCode, extCode) pairs, grouped by the ability class.
+     */
+    public Map<Class<?>, Map<ExtensionRunnerCacheKey, Object>> getCachedExtensionRunners(
+            String bizCode, Set<String> extCodes) {
+        Map<Class<?>, Map<ExtensionRunnerCacheKey, Object>> found = Maps.newHashMap();
+        ABILITY_RUNNER_CACHE.forEach((abilityClass, cache) -> cache.forEach((id, runner) -> {
+            ExtensionRunnerCacheKey key = RUNNER_CACHE_KEYS.get(id);
+            if (null != key && StringUtils.equals(bizCode, key.getBizCode())
+                    && extCodes.contains(key.getExtensionCode())) {
+                found.computeIfAbsent(abilityClass, k -> Maps.newHashMap()).put(key, runner);
+            }
+        }));
+        return found;
+    }
+
+    /**
+     * Remove the cached runner entry only if it is still the given one, an entry re-cached meanwhile is kept.
+     *
+     * @return whether the entry removed.
+     */
+    public boolean removeCachedExtensionRunner(Class<?> abilityClass, ExtensionRunnerCacheKey key, Object runner) {
         Map<Long, Object> cache = ABILITY_RUNNER_CACHE.get(abilityClass);
-        if (MapUtils.isEmpty(cache)) {
-            cache = new ConcurrentHashMap<>(200);
-            ABILITY_RUNNER_CACHE.put(abilityClass, cache);
+        return null != cache && cache.remove(key.getUniqueId(), runner);
+    }
+
+    /**
+     * Replace the cached runner entry only if it is still the given stale one.
+     *
+     * @return whether the entry replaced.
+     */
+    public boolean replaceCachedExtensionRunner(Class<?> abilityClass, ExtensionRunnerCacheKey key,
+                                                Object stale, Object runner) {
+        Map<Long, Object> cache = ABILITY_RUNNER_CACHE.get(abilityClass);
+        if (null == cache || !cache.replace(key.getUniqueId(), stale, runner)) {
+            return false;
+        }
+        if (!isSameDerivation(stale, runner)) {
+            indexDependencies(cache, key, runner);
+        }
+        return true;
+    }
+
+    public void doCacheExtensionRunner(Class<?> abilityClass, ExtensionRunnerCacheKey key, Object runner) {
+        Map<Long, Object> cache = ABILITY_RUNNER_CACHE.computeIfAbsent(abilityClass, k -> new ConcurrentHashMap<>(200));
+        Long id = key.getUniqueId();
+        RUNNER_CACHE_KEYS.putIfAbsent(id, key);
+        Object previous = cache.put(id, runner);
+        if (null != previous && isSameDerivation(previous, runner)) {
+            return;
+        }
+        indexDependencies(cache, key, runner);
+    }
+
+    private void indexDependencies(Map<Long, Object> cache, ExtensionRunnerCacheKey key, Object runner) {
+        Long id = key.getUniqueId();
+        CacheDependencyIndex.Dependent dependent = CacheDependencyIndex.Dependent.of(cache, id,
+                        () -> null != cache.remove(id))
+                .template(key.getBizCode())
+                .extension(key.getExtensionCode());
+        if (runner instanceof List) {
+            for (Object item : (List<?>) runner) {
+                RunnerItemEntry<?> entry = (RunnerItemEntry<?>) item;
+                dependent.template(null == entry.getTemplate() ? null : entry.getTemplate().getCode())
+                        .realization(getModelClass(entry));
+            }
         }
-        cache.put(key.getUniqueId(), runner);
+        CacheDependencyIndex.getInstance().addDependent(dependent);
+    }
+
+    private static boolean isSameDerivation(Object previous, Object runner) {
+        if (!(previous instanceof List) || !(runner instanceof List)) {
+            return previous == runner;
+        }
+        List<?> before = (List<?>) previous;
+        List<?> after = (List<?>) runner;
+        if (before.size() != after.size()) {
+            return false;
+        }
+        for (int i = 0; i < before.size(); i++) {
+            RunnerItemEntry<?> x = (RunnerItemEntry<?>) before.get(i);
+            RunnerItemEntry<?> y = (RunnerItemEntry<?>) after.get(i);
+            if (x.getTemplate() != y.getTemplate() || getModelClass(x) != getModelClass(y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> getModelClass(RunnerItemEntry<?> entry) {
+        Object model = null == entry.getRunner() ? null : entry.getRunner().getModel();
+        return null == model ? null : model.getClass();
     }
 
     public Object getCachedExtensionRunner(Class<?> abilityClass, ExtensionRunnerCacheKey key) {
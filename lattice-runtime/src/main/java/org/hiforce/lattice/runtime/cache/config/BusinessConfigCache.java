@@ -1,13 +1,17 @@
 package org.hiforce.lattice.runtime.cache.config;
 
-import com.google.common.collect.Lists;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.model.config.BusinessConfig;
 import org.hiforce.lattice.model.config.ReadonlyBusinessConfig;
+import org.hiforce.lattice.runtime.LatticeRegistry;
 import org.hiforce.lattice.runtime.cache.LatticeCache;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 /**
  * @author Rocky Yu
@@ -15,20 +19,18 @@ import java.util.List;
  */
 public class BusinessConfigCache implements LatticeCache {
 
-    private static BusinessConfigCache instance;
-
+    /**
+     * Copy-on-write, so the invocations keep reading a consistent list while a config is swapped.
+     */
     @Getter
-    private final List<BusinessConfig> businessConfigs = Lists.newArrayList();
+    private final List<BusinessConfig> businessConfigs = new CopyOnWriteArrayList<>();
 
     private BusinessConfigCache() {
 
     }
 
     public static BusinessConfigCache getInstance() {
-        if (null == instance) {
-            instance = new BusinessConfigCache();
-        }
-        return instance;
+        return LatticeRegistry.current().getComponent(BusinessConfigCache.class, BusinessConfigCache::new);
     }
 
     @Override
@@ -41,8 +43,17 @@ public class BusinessConfigCache implements LatticeCache {
         businessConfigs.clear();
     }
 
-    public void addBusinessConfigs(List<BusinessConfig> configs) {
-        businessConfigs.addAll(configs);
+    /**
+     * Add the loaded configs, in the order of the loader priority. The first config of
+     * a business wins, the duplicates from the lower priority loaders are dropped.
+     */
+    public synchronized void addBusinessConfigs(List<BusinessConfig> configs) {
+        Set<String> bizCodes = businessConfigs.stream()
+                .map(BusinessConfig::getBizCode)
+                .collect(Collectors.toSet());
+        businessConfigs.addAll(configs.stream()
+                .filter(p -> bizCodes.add(p.getBizCode()))
+                .collect(Collectors.toList()));
     }
 
     public void removeBusinessConfig(String bizCode) {
@@ -50,6 +61,27 @@ public class BusinessConfigCache implements LatticeCache {
                 !p.isAutoBuild() && StringUtils.equals(bizCode, p.getBizCode()));
     }
 
+    /**
+     * Swap in the config of the business, and keep the list ordered by priority.
+     *
+     * @return the replaced config, null if the business has no config before.
+     */
+    public synchronized BusinessConfig replaceBusinessConfig(BusinessConfig config) {
+        for (int i = 0; i < businessConfigs.size(); i++) {
+            BusinessConfig current = businessConfigs.get(i);
+            if (StringUtils.equals(config.getBizCode(), current.getBizCode())) {
+                businessConfigs.set(i, config);
+                if (current.getPriority() != config.getPriority()) {
+                    businessConfigs.sort(Comparator.comparingInt(BusinessConfig::getPriority));
+                }
+                return current;
+            }
+        }
+        businessConfigs.add(config);
+        businessConfigs.sort(Comparator.comparingInt(BusinessConfig::getPriority));
+        return null;
+    }
+
     public BusinessConfig getBusinessConfigByBizCode(String bizCode) {
         BusinessConfig config = businessConfigs.stream().filter(p -> StringUtils.equals(bizCode, p.getBizCode()))
                 .findFirst().orElse(null);
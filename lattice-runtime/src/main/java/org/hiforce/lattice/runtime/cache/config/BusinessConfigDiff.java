@@ -0,0 +1,88 @@
+package org.hiforce.lattice.runtime.cache.config;
+
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.model.config.BusinessConfig;
+import org.hiforce.lattice.model.config.ExtPriority;
+import org.hiforce.lattice.model.config.ExtPriorityConfig;
+import org.hiforce.lattice.model.config.ProductConfig;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Find out the extensions whose runners are affected by a business config change.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+public final class BusinessConfigDiff {
+
+    private BusinessConfigDiff() {
+
+    }
+
+    /**
+     * @param current the config in use, null if absent.
+     * @param updated the latest config, null if removed.
+     * @return the codes of the extensions whose priorities or installed products changed.
+     */
+    public static Set<String> diffExtCodes(BusinessConfig current, BusinessConfig updated) {
+        Set<String> extCodes = Sets.newHashSet();
+        extCodes.addAll(getExtCodes(current));
+        extCodes.addAll(getExtCodes(updated));
+        if (null == current || null == updated) {
+            return extCodes;
+        }
+        Set<String> products = Sets.symmetricDifference(getProductCodes(current), getProductCodes(updated));
+        return extCodes.stream()
+                .filter(p -> isExtensionChanged(p, current, updated, products))
+                .collect(Collectors.toSet());
+    }
+
+    private static boolean isExtensionChanged(String extCode, BusinessConfig current, BusinessConfig updated,
+                                              Set<String> changedProducts) {
+        List<ExtPriority> before = getPriorities(current, extCode);
+        List<ExtPriority> after = getPriorities(updated, extCode);
+        if (before.size() != after.size()) {
+            return true;
+        }
+        for (int i = 0; i < before.size(); i++) {
+            if (!StringUtils.equals(before.get(i).getCode(), after.get(i).getCode())
+                    || before.get(i).getType() != after.get(i).getType()) {
+                return true;
+            }
+        }
+        return !changedProducts.isEmpty()
+                && after.stream().anyMatch(p -> changedProducts.contains(p.getCode()));
+    }
+
+    private static Set<String> getExtCodes(BusinessConfig config) {
+        if (null == config || null == config.getExtensions()) {
+            return Collections.emptySet();
+        }
+        return config.getExtensions().stream()
+                .map(ExtPriorityConfig::getExtCode)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> getProductCodes(BusinessConfig config) {
+        return config.getProducts().stream()
+                .map(ProductConfig::getCode)
+                .collect(Collectors.toSet());
+    }
+
+    private static List<ExtPriority> getPriorities(BusinessConfig config, String extCode) {
+        ExtPriorityConfig priorityConfig = config.getExtPriorityConfigByExtCode(extCode);
+        if (null == priorityConfig || null == priorityConfig.getPriorities()) {
+            return Collections.emptyList();
+        }
+        return priorityConfig.getPriorities().stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
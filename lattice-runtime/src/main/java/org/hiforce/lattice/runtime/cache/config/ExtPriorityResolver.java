@@ -0,0 +1,113 @@
+package org.hiforce.lattice.runtime.cache.config;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.hiforce.lattice.model.business.TemplateType;
+import org.hiforce.lattice.model.config.BusinessConfig;
+import org.hiforce.lattice.model.config.ExtPriority;
+import org.hiforce.lattice.model.config.ExtPriorityConfig;
+import org.hiforce.lattice.model.register.BusinessSpec;
+import org.hiforce.lattice.model.register.ProductSpec;
+import org.hiforce.lattice.model.register.RealizationSpec;
+import org.hiforce.lattice.model.register.UseCaseSpec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolve the extension priorities of the business configs. The extCode to contributing
+ * templates index is built once, then each business is resolved in a single pass.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+public class ExtPriorityResolver {
+
+    /**
+     * extCode -> the priorities of the products realized it, in the product registration order.
+     */
+    private final Map<String, List<ExtPriority>> productPriorities = Maps.newHashMap();
+
+    /**
+     * extCode -> the priorities of the use cases realized it, in the use case registration order.
+     * The injected configs are appended in the iteration order of this HashMap, the same as the former
+     * per-extension scan, not in the registration order.
+     */
+    private final Map<String, List<ExtPriority>> useCasePriorities = Maps.newHashMap();
+
+    public ExtPriorityResolver(List<ProductSpec> products, List<UseCaseSpec> useCases) {
+        for (ProductSpec product : products) {
+            ExtPriority priority = ExtPriority.of(product.getCode(), TemplateType.PRODUCT);
+            Set<String> extCodes = Sets.newLinkedHashSet();
+            for (RealizationSpec realization : product.getRealizations()) {
+                extCodes.addAll(realization.getExtensionCodes());
+            }
+            extCodes.forEach(p -> productPriorities.computeIfAbsent(p, k -> Lists.newArrayList()).add(priority));
+        }
+        for (UseCaseSpec useCase : useCases) {
+            ExtPriority priority = ExtPriority.of(useCase.getCode(), useCase.getType());
+            for (RealizationSpec realization : useCase.getRealizations()) {
+                for (String extCode : realization.getExtensionCodes()) {
+                    useCasePriorities.computeIfAbsent(extCode, k -> Lists.newArrayList()).add(priority);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the priorities of the business realized extensions, the realizing products go first.
+     */
+    public List<ExtPriorityConfig> resolveBusinessPriorities(BusinessSpec business) {
+        List<ExtPriorityConfig> configs = Lists.newArrayList();
+        ExtPriority businessPriority = ExtPriority.of(business.getCode(), TemplateType.BUSINESS);
+        for (RealizationSpec realization : business.getRealizations()) {
+            for (String extCode : realization.getExtensionCodes()) {
+                List<ExtPriority> products = productPriorities.getOrDefault(extCode, Collections.emptyList());
+                ExtPriorityConfig config = new ExtPriorityConfig(extCode);
+                config.setPriorities(new ArrayList<>(products.size() + 1));
+                config.getPriorities().addAll(products);
+                config.getPriorities().add(businessPriority);
+                configs.add(config);
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Put the use case priorities ahead of the configured ones, the extensions not configured are appended.
+     */
+    public void injectUseCasePriorities(BusinessConfig config) {
+        if (useCasePriorities.isEmpty()) {
+            return;
+        }
+        Map<String, ExtPriorityConfig> configured = Maps.newHashMapWithExpectedSize(config.getExtensions().size());
+        for (ExtPriorityConfig extension : config.getExtensions()) {
+            configured.putIfAbsent(extension.getExtCode(), extension);
+        }
+        useCasePriorities.forEach((extCode, priorities) -> {
+            ExtPriorityConfig current = configured.get(extCode);
+            if (null == current) {
+                ExtPriorityConfig injected = new ExtPriorityConfig(extCode);
+                injected.getPriorities().addAll(priorities);
+                config.getExtensions().add(injected);
+                return;
+            }
+            List<ExtPriority> merged = new ArrayList<>(priorities.size() + current.getPriorities().size());
+            merged.addAll(priorities);
+            merged.addAll(current.getPriorities());
+            current.setPriorities(merged);
+        });
+    }
+
+    /**
+     * Inject the use case priorities of the business configs in parallel.
+     */
+    public void injectUseCasePriorities(Collection<BusinessConfig> configs) {
+        configs.parallelStream().forEach(this::injectUseCasePriorities);
+    }
+}
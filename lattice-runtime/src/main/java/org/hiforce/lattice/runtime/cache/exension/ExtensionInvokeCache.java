@@ -5,7 +5,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.model.ability.IBusinessExt;
 import org.hiforce.lattice.model.register.RealizationSpec;
 import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.runtime.LatticeRegistry;
 import org.hiforce.lattice.runtime.cache.LatticeCache;
+import org.hiforce.lattice.runtime.cache.index.CacheDependencyIndex;
 import org.hiforce.lattice.runtime.cache.key.ExtensionInvokeCacheKey;
 
 import java.util.List;
@@ -20,10 +22,6 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class ExtensionInvokeCache implements LatticeCache {
 
-    private static ExtensionInvokeCache INSTANCE;
-
-    private static final Object LOCK = new Object();
-
     private final Map<Long, IBusinessExt> EXT_REALIZATION_CACHE = new ConcurrentHashMap<>(2000);
 
     private final Map<String, Long> SCENARIO_IDX_MAP = new ConcurrentHashMap<>(120);
@@ -33,14 +31,7 @@ public class ExtensionInvokeCache implements LatticeCache {
     }
 
     public static ExtensionInvokeCache getInstance() {
-        if (null == INSTANCE) {
-            synchronized (LOCK) {
-                if (null == INSTANCE) {
-                    INSTANCE = new ExtensionInvokeCache();
-                }
-            }
-        }
-        return INSTANCE;
+        return LatticeRegistry.current().getComponent(ExtensionInvokeCache.class, ExtensionInvokeCache::new);
     }
 
     public Long getScenarioIndex(String scenario) {
@@ -48,8 +39,25 @@ public class ExtensionInvokeCache implements LatticeCache {
     }
 
     public IBusinessExt doCacheExtensionRealization(ExtensionInvokeCacheKey cacheKey, IBusinessExt realization) {
-        EXT_REALIZATION_CACHE.putIfAbsent(cacheKey.getUniqueId(), null == realization ?
-                new NotExistedRealization() : realization);
+        return doCacheExtensionRealization(cacheKey, realization, null);
+    }
+
+    /**
+     * @param facade the realization facade the realization found from, null if the same.
+     */
+    public IBusinessExt doCacheExtensionRealization(ExtensionInvokeCacheKey cacheKey, IBusinessExt realization,
+                                                   IBusinessExt facade) {
+        Long id = cacheKey.getUniqueId();
+        IBusinessExt cached = null == realization ? new NotExistedRealization() : realization;
+        if (null == EXT_REALIZATION_CACHE.putIfAbsent(id, cached)) {
+            CacheDependencyIndex.getInstance().addDependent(
+                    CacheDependencyIndex.Dependent.of(EXT_REALIZATION_CACHE, id,
+                                    () -> null != EXT_REALIZATION_CACHE.remove(id))
+                            .template(cacheKey.getTemplateCode())
+                            .extension(cacheKey.getExtensionCode())
+                            .realization(cached instanceof NotExistedRealization ? null : cached.getClass())
+                            .realization(null == facade ? null : facade.getClass()));
+        }
         return realization;
     }
 
@@ -76,4 +84,8 @@ public class ExtensionInvokeCache implements LatticeCache {
         EXT_REALIZATION_CACHE.clear();
         SCENARIO_IDX_MAP.clear();
     }
+
+    public void clearRealizationCache() {
+        EXT_REALIZATION_CACHE.clear();
+    }
 }
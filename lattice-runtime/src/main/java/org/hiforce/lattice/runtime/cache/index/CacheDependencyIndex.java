@@ -0,0 +1,179 @@
+package org.hiforce.lattice.runtime.cache.index;
+
+import com.google.common.collect.Sets;
+import lombok.Getter;
+import org.hiforce.lattice.runtime.LatticeRegistry;
+import org.hiforce.lattice.runtime.cache.LatticeCache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The reverse dependency index of the runtime cache entries. Every cached entry records the
+ * template codes, extension codes and realization classes it was derived from, so removing a
+ * template only evicts the entries depending on it.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+public class CacheDependencyIndex implements LatticeCache {
+
+    private final Map<String, Set<Dependent>> TEMPLATE_DEPENDENTS = new ConcurrentHashMap<>(120);
+
+    private final Map<String, Set<Dependent>> EXTENSION_DEPENDENTS = new ConcurrentHashMap<>(200);
+
+    private final Map<Class<?>, Set<Dependent>> REALIZATION_DEPENDENTS = new ConcurrentHashMap<>(120);
+
+    private CacheDependencyIndex() {
+
+    }
+
+    public static CacheDependencyIndex getInstance() {
+        return LatticeRegistry.current().getComponent(CacheDependencyIndex.class, CacheDependencyIndex::new);
+    }
+
+    @Override
+    public void init() {
+
+    }
+
+    @Override
+    public void clear() {
+        TEMPLATE_DEPENDENTS.clear();
+        EXTENSION_DEPENDENTS.clear();
+        REALIZATION_DEPENDENTS.clear();
+    }
+
+    public void addDependent(Dependent dependent) {
+        dependent.getTemplateCodes().forEach(p -> link(TEMPLATE_DEPENDENTS, p, dependent));
+        dependent.getExtCodes().forEach(p -> link(EXTENSION_DEPENDENTS, p, dependent));
+        dependent.getRealizationClasses().forEach(p -> link(REALIZATION_DEPENDENTS, p, dependent));
+    }
+
+    /**
+     * @return the count of the evicted entries depending on the template.
+     */
+    public int evictTemplate(String templateCode) {
+        return null == templateCode ? 0 : evict(TEMPLATE_DEPENDENTS.remove(templateCode));
+    }
+
+    /**
+     * @return the count of the evicted entries depending on the extension.
+     */
+    public int evictExtension(String extCode) {
+        return null == extCode ? 0 : evict(EXTENSION_DEPENDENTS.remove(extCode));
+    }
+
+    /**
+     * @return the count of the evicted entries depending on the realization class.
+     */
+    public int evictRealization(Class<?> realizationClass) {
+        return null == realizationClass ? 0 : evict(REALIZATION_DEPENDENTS.remove(realizationClass));
+    }
+
+    private int evict(Collection<Dependent> dependents) {
+        if (null == dependents) {
+            return 0;
+        }
+        int count = 0;
+        for (Dependent dependent : dependents) {
+            dependent.getTemplateCodes().forEach(p -> unlink(TEMPLATE_DEPENDENTS, p, dependent));
+            dependent.getExtCodes().forEach(p -> unlink(EXTENSION_DEPENDENTS, p, dependent));
+            dependent.getRealizationClasses().forEach(p -> unlink(REALIZATION_DEPENDENTS, p, dependent));
+            if (dependent.evictor.getAsBoolean()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static <K> void link(Map<K, Set<Dependent>> index, K key, Dependent dependent) {
+        if (null != key) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(dependent);
+        }
+    }
+
+    private static <K> void unlink(Map<K, Set<Dependent>> index, K key, Dependent dependent) {
+        if (null == key) {
+            return;
+        }
+        index.computeIfPresent(key, (k, v) -> {
+            v.remove(dependent);
+            return v.isEmpty() ? null : v;
+        });
+    }
+
+    /**
+     * A cached entry, identified by the owner cache and the key in it.
+     */
+    public static final class Dependent {
+
+        private final Object owner;
+
+        private final Object key;
+
+        private final BooleanSupplier evictor;
+
+        @Getter
+        private final Set<String> templateCodes = Sets.newHashSet();
+
+        @Getter
+        private final Set<String> extCodes = Sets.newHashSet();
+
+        @Getter
+        private final Set<Class<?>> realizationClasses = Sets.newHashSet();
+
+        private Dependent(Object owner, Object key, BooleanSupplier evictor) {
+            this.owner = owner;
+            this.key = key;
+            this.evictor = evictor;
+        }
+
+        /**
+         * @param owner   the cache holding the entry.
+         * @param key     the key of the entry in the owner cache.
+         * @param evictor remove the entry from the owner cache, return whether it was present.
+         */
+        public static Dependent of(Object owner, Object key, BooleanSupplier evictor) {
+            return new Dependent(owner, key, evictor);
+        }
+
+        public Dependent template(String templateCode) {
+            if (null != templateCode) {
+                templateCodes.add(templateCode);
+            }
+            return this;
+        }
+
+        public Dependent extension(String extCode) {
+            if (null != extCode) {
+                extCodes.add(extCode);
+            }
+            return this;
+        }
+
+        public Dependent realization(Class<?> realizationClass) {
+            if (null != realizationClass) {
+                realizationClasses.add(realizationClass);
+            }
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Dependent that = (Dependent) o;
+            return owner == that.owner && Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(owner) + Objects.hashCode(key);
+        }
+    }
+}
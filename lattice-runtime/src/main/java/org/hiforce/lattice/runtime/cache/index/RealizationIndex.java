@@ -0,0 +1,175 @@
+package org.hiforce.lattice.runtime.cache.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.model.ability.IBusinessExt;
+import org.hiforce.lattice.model.register.RealizationSpec;
+import org.hiforce.lattice.runtime.LatticeRegistry;
+import org.hiforce.lattice.runtime.ability.register.TemplateRegister;
+import org.hiforce.lattice.runtime.cache.LatticeCache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hiforce.lattice.utils.BizCodeUtils.isCodeMatched;
+
+/**
+ * The registered realizations indexed by scenario and extension code. The realizations of the
+ * exact template code and the wildcard ones are kept in separated buckets, both in the
+ * registration order, so a lookup is a hash probe plus a short wildcard list.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+public class RealizationIndex implements LatticeCache {
+
+    private static final String DEFAULT_SCENARIO = "";
+
+    private static final Object lock = new Object();
+
+    private volatile Snapshot snapshot;
+
+    private RealizationIndex() {
+
+    }
+
+    public static RealizationIndex getInstance() {
+        return LatticeRegistry.current().getComponent(RealizationIndex.class, RealizationIndex::new);
+    }
+
+    @Override
+    public void init() {
+        TemplateRegister register = TemplateRegister.getInstance();
+        snapshot = new Snapshot(register.getRealizationVersion(), register.getRealizations());
+    }
+
+    @Override
+    public void clear() {
+        snapshot = null;
+    }
+
+    /**
+     * Drop the index after the registered realizations changed, it will be re-built on the next lookup.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * Find the first registered realization facade of the template supporting the extension,
+     * the realizations of the scenario go first, then the ones without scenario.
+     */
+    public IBusinessExt findBusinessExtFacade(String scenario, String templateCode, String extCode) {
+        Snapshot current = getSnapshot();
+        IBusinessExt facade = null;
+        if (StringUtils.isNotEmpty(scenario)) {
+            facade = current.find(scenario, templateCode, extCode, scenario);
+        }
+        if (null == facade) {
+            facade = current.find(DEFAULT_SCENARIO, templateCode, extCode, scenario);
+        }
+        return facade;
+    }
+
+    /**
+     * @return the snapshot of the current realization version, a change made through the
+     * {@link TemplateRegister} is picked up even if the number of realizations is the same.
+     */
+    private Snapshot getSnapshot() {
+        TemplateRegister register = TemplateRegister.getInstance();
+        long version = register.getRealizationVersion();
+        Snapshot current = snapshot;
+        if (null != current && current.version == version) {
+            return current;
+        }
+        synchronized (lock) {
+            current = snapshot;
+            if (null == current || current.version != version) {
+                current = new Snapshot(version, register.getRealizations());
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private static class Snapshot {
+
+        private final long version;
+
+        private final Map<String, Map<String, Bucket>> buckets = Maps.newHashMap();
+
+        Snapshot(long version, List<RealizationSpec> realizations) {
+            this.version = version;
+            for (int i = 0; i < realizations.size(); i++) {
+                RealizationSpec realization = realizations.get(i);
+                String scenario = StringUtils.isEmpty(realization.getScenario()) ?
+                        DEFAULT_SCENARIO : realization.getScenario();
+                Map<String, Bucket> scenarioBuckets = buckets.computeIfAbsent(scenario, k -> Maps.newHashMap());
+                Candidate candidate = new Candidate(i, realization);
+                for (String extCode : realization.getExtensionCodes()) {
+                    scenarioBuckets.computeIfAbsent(extCode, k -> new Bucket()).add(candidate);
+                }
+            }
+        }
+
+        IBusinessExt find(String scenarioKey, String templateCode, String extCode, String scenario) {
+            Bucket bucket = buckets.getOrDefault(scenarioKey, Collections.emptyMap()).get(extCode);
+            if (null == bucket) {
+                return null;
+            }
+            Candidate found = null;
+            for (Candidate candidate : bucket.exact.getOrDefault(templateCode, Collections.emptyList())) {
+                if (candidate.isSupported(extCode, scenario)) {
+                    found = candidate;
+                    break;
+                }
+            }
+            for (Candidate candidate : bucket.wildcard) {
+                if (null != found && candidate.order > found.order) {
+                    break;
+                }
+                if (isCodeMatched(candidate.realization.getCode(), templateCode)
+                        && candidate.isSupported(extCode, scenario)) {
+                    found = candidate;
+                    break;
+                }
+            }
+            return null == found ? null : found.realization.getBusinessExt();
+        }
+    }
+
+    private static class Bucket {
+
+        private final Map<String, List<Candidate>> exact = Maps.newHashMap();
+
+        private final List<Candidate> wildcard = Lists.newArrayList();
+
+        void add(Candidate candidate) {
+            String code = candidate.realization.getCode();
+            if (StringUtils.contains(code, "*")) {
+                wildcard.add(candidate);
+            } else {
+                exact.computeIfAbsent(code, k -> Lists.newArrayList()).add(candidate);
+            }
+        }
+    }
+
+    private static class Candidate {
+
+        private final int order;
+
+        private final RealizationSpec realization;
+
+        Candidate(int order, RealizationSpec realization) {
+            this.order = order;
+            this.realization = realization;
+        }
+
+        boolean isSupported(String extCode, String scenario) {
+            IBusinessExt facade = realization.getBusinessExt();
+            return null != facade && null != facade.getBusinessExtByCode(extCode, scenario);
+        }
+    }
+}
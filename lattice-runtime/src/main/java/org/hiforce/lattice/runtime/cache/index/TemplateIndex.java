@@ -6,6 +6,7 @@ import org.hiforce.lattice.model.business.ITemplate;
 import org.hiforce.lattice.model.register.BaseSpec;
 import org.hiforce.lattice.model.register.TemplateSpec;
 import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.runtime.LatticeRegistry;
 import org.hiforce.lattice.runtime.cache.LatticeCache;
 import org.hiforce.lattice.runtime.cache.MultiKeyCache;
 import org.hiforce.lattice.sequence.SequenceGenerator;
@@ -17,13 +18,8 @@ import org.hiforce.lattice.sequence.SequenceGenerator;
 public class TemplateIndex extends MultiKeyCache<String, Long, BaseSpec>
         implements ITemplateCache, LatticeCache {
 
-    private static TemplateIndex instance;
-
     public static TemplateIndex getInstance() {
-        if (null == instance) {
-            instance = new TemplateIndex();
-        }
-        return instance;
+        return LatticeRegistry.current().getComponent(TemplateIndex.class, TemplateIndex::new);
     }
 
     private TemplateIndex() {
@@ -16,12 +16,12 @@ import org.hiforce.lattice.model.register.TemplateSpec;
 import org.hiforce.lattice.model.register.UseCaseSpec;
 import org.hiforce.lattice.model.scenario.ScenarioRequest;
 import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.runtime.LatticeRegistry;
+import org.hiforce.lattice.runtime.cache.config.BusinessConfigCache;
 
 import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * @author Rocky Yu
@@ -30,18 +30,27 @@ import java.util.stream.Collectors;
 public abstract class BizSessionScope<Resp, BizObject extends IBizObject>
         extends Scope<Resp> {
 
+    private static final Entrance ENTRANCE = newEntrance();
+
+    private static final Comparator<TemplateSpec<? extends ITemplate>> PRIORITY_ORDER =
+            Comparator.comparingInt(TemplateSpec::getPriority);
+
     @Getter
     private final List<BizObject> bizObjects = Lists.newArrayList();
 
-    private final List<ScenarioRequest> scenarioRequests = Lists.newArrayList();
-
     @Getter
     private BizSessionContext context;
 
-    private boolean invokeCacheInit;
-
     private ClassLoader originClassLoader;
 
+    /**
+     * The outermost session binds the registry it starts on, so it keeps reading the same
+     * registry when a reloaded one is published meanwhile.
+     */
+    private boolean registryBound;
+
+    private LatticeRegistry outerRegistry;
+
 
     public BizSessionScope(List<BizObject> bizObjects) {
         if (CollectionUtils.isEmpty(bizObjects)) {
@@ -69,37 +78,55 @@ public abstract class BizSessionScope<Resp, BizObject extends IBizObject>
 
     @Override
     protected void entrance() {
-        if( !Lattice.getInstance().isInitialized()){
+        LatticeRegistry registry = LatticeRegistry.current();
+        if (!registry.isInitialized()) {
             throw new LatticeRuntimeException("LATTICE-CORE-RT-0023");
         }
-        invokeCacheInit = InvokeCache.isThreadLocalInit();
-        if (!invokeCacheInit) {
+        outerRegistry = registry.bind();
+        registryBound = true;
+        SessionFrames.Frame frame = currentFrame();
+        frame.setInvokeCacheInit(InvokeCache.isThreadLocalInit());
+        if (!frame.isInvokeCacheInit()) {
             InvokeCache.initInvokeCache();
         }
         context = BizSessionContext.init();
-        initScenarioRequest();
-        buildEffectProducts();
-
+        initScenarioRequest(frame);
+        buildEffectProducts(frame, false);
     }
 
-    @SuppressWarnings("all")
-    private void buildEffectProducts() {
-        for (ScenarioRequest request : scenarioRequests) {
-            List<TemplateSpec<? extends ITemplate>> templates = Lists.newArrayList();
-
-            templates.addAll(loadEffectiveUseCases(request));
-            templates.addAll(loadBusinessInstalledProducts(request.getBizObject().getBizCode())
-                    .stream().filter(p -> isTemplateEffective(p, request))
-                    .collect(Collectors.toList()));
-            templates.sort(Comparator.comparingInt(TemplateSpec::getPriority));
-            context.getEffectiveTemplates().put(request.getBizObject().getBizCode(), templates);
+    /**
+     * The nested session overlays the effective templates of its business objects, and restores
+     * the ones of the outer session when exits.
+     */
+    @Override
+    protected void reentrance() {
+        if( !Lattice.getInstance().isInitialized()){
+            throw new LatticeRuntimeException("LATTICE-CORE-RT-0023");
         }
+        SessionFrames.Frame frame = currentFrame();
+        context = BizSessionContext.currentContext();
+        initScenarioRequest(frame);
+        buildEffectProducts(frame, true);
     }
 
-    private List<UseCaseSpec> loadEffectiveUseCases(ScenarioRequest request) {
-        return Lattice.getInstance().getAllRegisteredUseCases().stream()
-                .filter(p -> isTemplateEffective(p, request))
-                .collect(Collectors.toList());
+    private void buildEffectProducts(SessionFrames.Frame frame, boolean nested) {
+        for (ScenarioRequest request : frame.getScenarioRequests()) {
+            String bizCode = request.getBizObject().getBizCode();
+            List<TemplateSpec<? extends ITemplate>> templates = context.borrowTemplates();
+            for (UseCaseSpec useCase : Lattice.getInstance().getAllRegisteredUseCases()) {
+                if (isTemplateEffective(useCase, request)) {
+                    templates.add(useCase);
+                }
+            }
+            addEffectiveInstalledProducts(templates, request);
+            templates.sort(PRIORITY_ORDER);
+            List<TemplateSpec<? extends ITemplate>> previous = context.getEffectiveTemplates().put(bizCode, templates);
+            if (nested && !frame.getShadowed().containsKey(bizCode)) {
+                frame.getShadowed().put(bizCode, previous);
+            } else {
+                context.releaseTemplates(previous);
+            }
+        }
     }
 
     @SuppressWarnings("all")
@@ -114,43 +141,78 @@ public abstract class BizSessionScope<Resp, BizObject extends IBizObject>
         return template.isEffect(request);
     }
 
-    private List<ProductSpec> loadBusinessInstalledProducts(String bizCode) {
+    private void addEffectiveInstalledProducts(List<TemplateSpec<? extends ITemplate>> templates,
+                                               ScenarioRequest request) {
+        String bizCode = request.getBizObject().getBizCode();
         if (StringUtils.isEmpty(bizCode)) {
             throw new LatticeRuntimeException("LATTICE-CORE-RT-0014", bizCode);
         }
-        BusinessConfig businessConfig = Lattice.getInstance().getBusinessConfigByBizCode(bizCode);
+        BusinessConfig businessConfig = null;
+        for (BusinessConfig config : BusinessConfigCache.getInstance().getBusinessConfigs()) {
+            if (StringUtils.equals(bizCode, config.getBizCode())) {
+                businessConfig = config;
+                break;
+            }
+        }
         if (null == businessConfig) {
             if (Lattice.getInstance().isSimpleMode()) {
-                return Lattice.getInstance().getAllRegisteredProducts();
+                for (ProductSpec product : Lattice.getInstance().getAllRegisteredProducts()) {
+                    if (isTemplateEffective(product, request)) {
+                        templates.add(product);
+                    }
+                }
+                return;
             }
             throw new LatticeRuntimeException("LATTICE-CORE-RT-0012", bizCode);
         }
-        Set<ProductConfig> productConfigs = businessConfig.getProducts();
-        return productConfigs.stream().map(p -> Lattice.getInstance().getRegisteredProductByCode(p.getCode()))
-                .filter(Objects::nonNull).collect(Collectors.toList());
+        for (ProductConfig productConfig : businessConfig.getProducts()) {
+            ProductSpec product = Lattice.getInstance().getRegisteredProductByCode(productConfig.getCode());
+            if (isTemplateEffective(product, request)) {
+                templates.add(product);
+            }
+        }
     }
 
-    private void initScenarioRequest() {
+    private void initScenarioRequest(SessionFrames.Frame frame) {
         for (BizObject bizObject : bizObjects) {
             ScenarioRequest request = buildScenarioRequest(bizObject);
             if (null == request) {
                 throw new LatticeRuntimeException("LATTICE-CORE-RT-0011");
             }
-            scenarioRequests.add(request);
+            frame.getScenarioRequests().add(request);
         }
     }
 
     @Override
     protected void exit() {
-        //TODO: clear the lattice BizSession Context.
-        if (!invokeCacheInit) { //if InvokeCache is init by BizSessionScope, release it.
+        if (registryBound) {
+            LatticeRegistry.restore(outerRegistry);
+            registryBound = false;
+            outerRegistry = null;
+        }
+        if (!currentFrame().isInvokeCacheInit()) { //if InvokeCache is init by BizSessionScope, release it.
             InvokeCache.forceClear();
+        } else {
+            InvokeCache.instance().clear(BizSessionContext.class);
+        }
+        BizSessionContext.release();
+    }
+
+    @Override
+    protected void reexit() {
+        if (null == context) {
+            return;
+        }
+        for (Map.Entry<String, List<TemplateSpec<? extends ITemplate>>> entry : currentFrame().getShadowed().entrySet()) {
+            List<TemplateSpec<? extends ITemplate>> templates = null == entry.getValue() ?
+                    context.getEffectiveTemplates().remove(entry.getKey()) :
+                    context.getEffectiveTemplates().put(entry.getKey(), entry.getValue());
+            context.releaseTemplates(templates);
         }
-        BizSessionContext.destroy();
     }
 
     @Override
     protected Entrance getEntrance() {
-        return newEntrance();
+        return ENTRANCE;
     }
 }
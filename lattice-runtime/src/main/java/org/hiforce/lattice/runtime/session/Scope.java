@@ -8,10 +8,15 @@ import org.hiforce.lattice.exception.LatticeRuntimeException;
  */
 public abstract class Scope<Resp> {
 
+    private SessionFrames.Frame frame;
+
     protected static Entrance newEntrance() {
         return new EntranceImpl();
     }
 
+    /**
+     * @return the entrance shared by the scopes counted together, the nested ones only re-enter.
+     */
     protected abstract Entrance getEntrance();
 
     protected abstract Resp execute() throws LatticeRuntimeException;
@@ -20,24 +25,57 @@ public abstract class Scope<Resp> {
 
     protected abstract void exit();
 
+    /**
+     * Invoked instead of {@link #entrance()} when the scope is nested in another one of the same entrance.
+     */
+    protected void reentrance() {
+
+    }
+
+    /**
+     * Invoked instead of {@link #exit()} when leaving the nested scope.
+     */
+    protected void reexit() {
+
+    }
+
+    /**
+     * @return the session frame of the running invocation.
+     */
+    SessionFrames.Frame currentFrame() {
+        return frame;
+    }
+
     /**
      * The BizSession invoke method, main logic entrance.
      *
      * @return Resp
      */
     public Resp invoke() throws LatticeRuntimeException {
-        Entrance entrance = getEntrance();
+        Entrance entrance = getEntrance().get();
+        SessionFrames frames = SessionFrames.current();
+        SessionFrames.Frame parent = frame;
+        frame = frames.push();
         try {
-            entrance.get().increaseCount();
-            if (entrance.get().getCount() == 1) {
+            entrance.increaseCount();
+            if (entrance.getCount() == 1) {
                 entrance();
+            } else {
+                reentrance();
             }
             return execute();
         } finally {
-            entrance.get().decreaseCount();
-            if (entrance.get().getCount() == 0) {
-                entrance.clearCount();
-                exit();
+            entrance.decreaseCount();
+            try {
+                if (entrance.getCount() == 0) {
+                    entrance.clearCount();
+                    exit();
+                } else {
+                    reexit();
+                }
+            } finally {
+                frames.pop();
+                frame = parent;
             }
         }
     }
@@ -76,7 +114,7 @@ public abstract class Scope<Resp> {
 
         @Override
         public void clearCount() {
-            remove();
+            count = 0;
         }
 
         @Override
@@ -0,0 +1,70 @@
+package org.hiforce.lattice.runtime.session;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.Getter;
+import lombok.Setter;
+import org.hiforce.lattice.model.business.ITemplate;
+import org.hiforce.lattice.model.register.TemplateSpec;
+import org.hiforce.lattice.model.scenario.ScenarioRequest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The session frame stack of the current thread. The frames are pooled and reset when popped,
+ * so the sessions of a thread reuse them instead of allocating new ones.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/22
+ */
+final class SessionFrames {
+
+    private static final ThreadLocal<SessionFrames> FRAMES = ThreadLocal.withInitial(SessionFrames::new);
+
+    private final List<Frame> frames = Lists.newArrayList();
+
+    @Getter
+    private int depth;
+
+    private SessionFrames() {
+
+    }
+
+    static SessionFrames current() {
+        return FRAMES.get();
+    }
+
+    Frame push() {
+        if (depth == frames.size()) {
+            frames.add(new Frame());
+        }
+        return frames.get(depth++);
+    }
+
+    void pop() {
+        frames.get(--depth).reset();
+    }
+
+    static final class Frame {
+
+        @Getter
+        private final List<ScenarioRequest> scenarioRequests = Lists.newArrayList();
+
+        /**
+         * bizCode -> the effective templates before the nested session overlaid them, null if absent.
+         */
+        @Getter
+        private final Map<String, List<TemplateSpec<? extends ITemplate>>> shadowed = Maps.newHashMap();
+
+        @Getter
+        @Setter
+        private boolean invokeCacheInit;
+
+        private void reset() {
+            scenarioRequests.clear();
+            shadowed.clear();
+            invokeCacheInit = false;
+        }
+    }
+}
@@ -1,12 +1,12 @@
 package org.hiforce.lattice.runtime.spi;
 
 import com.google.common.collect.Lists;
-import org.apache.commons.collections4.CollectionUtils;
 import org.hiforce.lattice.model.ability.IAbility;
 import org.hiforce.lattice.spi.classloader.CustomClassLoaderSpi;
 import org.hiforce.lattice.spi.config.BusinessConfigLoadSpi;
 import org.hiforce.lattice.runtime.ability.execute.RunnerCollection;
 
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -27,7 +27,9 @@ public class LatticeRuntimeSpiFactory {
     private IRunnerCollectionBuilder runnerCollectionBuilder;
 
 
-    private List<BusinessConfigLoadSpi> businessConfigLoads;
+    private volatile List<BusinessConfigLoadSpi> businessConfigLoads;
+
+    private volatile ClassLoader businessConfigClassLoader;
 
 
     private List<CustomClassLoaderSpi> customClassLoaders;
@@ -54,13 +56,24 @@ public class LatticeRuntimeSpiFactory {
         return customClassLoaders;
     }
 
+    /**
+     * @return the config loaders sorted by priority, prepared once for the current class loader.
+     */
     public List<BusinessConfigLoadSpi> getBusinessConfigLoads() {
-        if (null == businessConfigLoads) {
-            businessConfigLoads = getCustomServiceProviders(BusinessConfigLoadSpi.class);
+        ClassLoader classLoader = getClassLoader();
+        if (null != businessConfigLoads && classLoader == businessConfigClassLoader) {
+            return businessConfigLoads;
         }
-        if (CollectionUtils.isNotEmpty(businessConfigLoads)) {
-            businessConfigLoads.forEach(p -> p.setClassLoader(getClassLoader()));
-            businessConfigLoads.sort(Comparator.comparingInt(BusinessConfigLoadSpi::getPriority));
+        synchronized (LatticeRuntimeSpiFactory.class) {
+            if (null == businessConfigLoads) {
+                List<BusinessConfigLoadSpi> loads = getCustomServiceProviders(BusinessConfigLoadSpi.class);
+                loads.sort(Comparator.comparingInt(BusinessConfigLoadSpi::getPriority));
+                businessConfigLoads = Collections.unmodifiableList(loads);
+            }
+            if (classLoader != businessConfigClassLoader) {
+                businessConfigLoads.forEach(p -> p.setClassLoader(classLoader));
+                businessConfigClassLoader = classLoader;
+            }
         }
         return businessConfigLoads;
     }
@@ -274,4 +274,12 @@ public class ClassPathScanHandler {
     public static void clearCache() {
         cachedClassloaderClassSetMap.clear();
     }
+
+    public static void clearCache(ClassLoader classLoader) {
+        synchronized (cachedClassloaderClassSetMap) {
+            cachedClassloaderClassSetMap.remove(classLoader);
+            cachedClassloaderClassSetMap.values().forEach(p -> p.values()
+                    .removeIf(classes -> classes.stream().anyMatch(c -> c.getClassLoader() == classLoader)));
+        }
+    }
 }
@@ -0,0 +1,277 @@
+package org.hiforce.lattice.runtime.warmup;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.model.ability.IAbility;
+import org.hiforce.lattice.model.ability.IBusinessExt;
+import org.hiforce.lattice.model.business.BizContext;
+import org.hiforce.lattice.model.business.IBizObject;
+import org.hiforce.lattice.model.config.BusinessConfig;
+import org.hiforce.lattice.model.register.AbilityInstSpec;
+import org.hiforce.lattice.model.register.AbilitySpec;
+import org.hiforce.lattice.model.register.ExtensionSpec;
+import org.hiforce.lattice.model.register.RealizationSpec;
+import org.hiforce.lattice.model.register.TemplateSpec;
+import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.runtime.LatticeRegistry;
+import org.hiforce.lattice.runtime.ability.BaseLatticeAbility;
+import org.hiforce.lattice.runtime.cache.exension.ExtensionInvokeCache;
+import org.hiforce.lattice.runtime.cache.key.ExtensionInvokeCacheKey;
+import org.hiforce.lattice.runtime.cache.key.ExtensionRunnerCacheKey;
+import org.hiforce.lattice.utils.BusinessExtUtils;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+import static org.hiforce.lattice.runtime.ability.delegate.BaseLatticeAbilityDelegate.findBusinessExtFacade;
+import static org.hiforce.lattice.utils.BizCodeUtils.isCodeMatched;
+
+/**
+ * Pre-resolve the extension realizations of the templates, so the first invocation
+ * not pays for the realization lookup, the method resolving and the bean autowiring.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/19
+ */
+@Slf4j
+@SuppressWarnings("rawtypes")
+public class LatticeWarmUp {
+
+    private static LatticeWarmUp instance;
+
+    private static final Object lock = new Object();
+
+    private LatticeWarmUp() {
+
+    }
+
+    public static LatticeWarmUp getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new LatticeWarmUp();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Walk all the registered abilities, extensions, business configs and known scenarios,
+     * and fill the realization, business extension and extension runner caches in parallel.
+     *
+     * @return the warm-up report.
+     */
+    public WarmUpReport warmUp() {
+        long start = System.currentTimeMillis();
+        WarmUpReport report = new WarmUpReport();
+        List<Runnable> tasks = Lists.newArrayList();
+        for (TemplateSpec template : getRegisteredTemplates()) {
+            tasks.add(() -> report.addRealizations(warmUpRealizations(template)));
+        }
+
+        Set<String> scenarios = Sets.newHashSet((String) null);
+        Lattice.getInstance().getAllRegisteredRealizations().stream()
+                .map(RealizationSpec::getScenario)
+                .filter(StringUtils::isNotEmpty)
+                .forEach(scenarios::add);
+        for (AbilitySpec abilitySpec : Lattice.getInstance().getAllRegisteredAbilities()) {
+            for (BusinessConfig config : Lattice.getInstance().getBusinessConfigs()) {
+                for (String scenario : scenarios) {
+                    tasks.add(() -> warmUpRunners(abilitySpec, config.getBizCode(), scenario, report, p -> true,
+                            (ability, extCode) -> {
+                                ability.warmUp(extCode);
+                                return true;
+                            }));
+                }
+            }
+        }
+        runInParallel(tasks);
+        report.finish(start);
+        log.info(">>> Lattice warm-up finished, " + report);
+        return report;
+    }
+
+    private void runInParallel(List<Runnable> tasks) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors())), r -> {
+                    Thread thread = new Thread(r, "lattice-warm-up");
+                    thread.setDaemon(true);
+                    thread.setContextClassLoader(classLoader);
+                    return thread;
+                });
+        try {
+            CompletableFuture.allOf(tasks.stream()
+                    .map(p -> CompletableFuture.runAsync(LatticeRegistry.wrap(p), executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Re-build the cached extension runners of the business, only for the given extensions,
+     * and swap them in place of the stale ones.
+     *
+     * @param stale the stale runners grouped by the ability class, the swapped ones are removed from it.
+     * @return the refresh report.
+     */
+    public WarmUpReport refreshRunners(String bizCode, Set<String> extCodes, Set<String> scenarios,
+                                       Map<Class<?>, Map<ExtensionRunnerCacheKey, Object>> stale) {
+        long start = System.currentTimeMillis();
+        WarmUpReport report = new WarmUpReport();
+        for (AbilitySpec abilitySpec : Lattice.getInstance().getAllRegisteredAbilities()) {
+            boolean affected = abilitySpec.getAbilityInstances().stream()
+                    .flatMap(p -> p.getExtensions().stream())
+                    .anyMatch(p -> extCodes.contains(p.getCode()));
+            if (!affected) {
+                continue;
+            }
+            for (String scenario : scenarios) {
+                warmUpRunners(abilitySpec, bizCode, scenario, report, p -> extCodes.contains(p.getCode()),
+                        (ability, extCode) -> ability.refreshRunners(extCode, stale.get(ability.getClass())));
+            }
+        }
+        report.finish(start);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void warmUpRunners(AbilitySpec abilitySpec, String bizCode, String scenario, WarmUpReport report,
+                               Predicate<ExtensionSpec> extensionFilter,
+                               BiPredicate<BaseLatticeAbility, String> runnerBuilder) {
+        IBizObject bizObject = new WarmUpBizObject(bizCode, scenario);
+        List<IAbility> abilities;
+        try {
+            abilities = Lattice.getAllAbilities(abilitySpec.getCode(), bizObject);
+        } catch (Throwable th) {
+            report.addFailure();
+            log.warn("[Lattice]Warm up ability failed: " + abilitySpec.getCode(), th);
+            return;
+        }
+        for (IAbility ability : abilities) {
+            if (!(ability instanceof BaseLatticeAbility)) {
+                continue;
+            }
+            AbilityInstSpec instSpec = abilitySpec.getAbilityInstances().stream()
+                    .filter(p -> StringUtils.equals(p.getInstanceClass(), ability.getClass().getName()))
+                    .findFirst().orElse(null);
+            if (null == instSpec) {
+                continue;
+            }
+            for (ExtensionSpec extension : instSpec.getExtensions()) {
+                if (!extensionFilter.test(extension)) {
+                    continue;
+                }
+                try {
+                    if (runnerBuilder.test((BaseLatticeAbility) ability, extension.getCode())) {
+                        report.addRunner();
+                    }
+                } catch (Throwable th) {
+                    report.addFailure();
+                    log.warn(String.format("[Lattice]Warm up extension runner failed, bizCode: [%s], extCode: [%s]",
+                            bizCode, extension.getCode()), th);
+                }
+            }
+        }
+    }
+
+    public List<TemplateSpec> getRegisteredTemplates() {
+        List<TemplateSpec> templates = Lists.newArrayList();
+        templates.addAll(Lattice.getInstance().getAllRegisteredBusinesses());
+        templates.addAll(Lattice.getInstance().getAllRegisteredProducts());
+        templates.addAll(Lattice.getInstance().getAllRegisteredUseCases());
+        return templates;
+    }
+
+    /**
+     * @param templateFilter the templates need to be warmed up.
+     * @return the count of the pre-resolved (template, extCode, scenario).
+     */
+    public int warmUpRealizations(Predicate<TemplateSpec> templateFilter) {
+        int count = 0;
+        for (TemplateSpec template : getRegisteredTemplates()) {
+            if (templateFilter.test(template)) {
+                count += warmUpRealizations(template);
+            }
+        }
+        return count;
+    }
+
+    public int warmUpRealizations(TemplateSpec template) {
+        int count = 0;
+        for (RealizationSpec realization : Lattice.getInstance().getAllRegisteredRealizations()) {
+            if (null == realization.getBusinessExt() || !isCodeMatched(realization.getCode(), template.getCode())) {
+                continue;
+            }
+            for (String extCode : realization.getExtensionCodes()) {
+                try {
+                    if (warmUpRealization(template, extCode, realization.getScenario())) {
+                        count++;
+                    }
+                } catch (Throwable th) {
+                    log.warn(String.format("[Lattice]Warm up realization failed, template: [%s], extCode: [%s]",
+                            template.getCode(), extCode), th);
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean warmUpRealization(TemplateSpec template, String extCode, String scenario) {
+        IBusinessExt facade = findBusinessExtFacade(scenario, template, extCode);
+        if (null == facade) {
+            return false;
+        }
+        IBusinessExt realization = facade.getBusinessExtByCode(extCode, scenario);
+        if (null == realization) {
+            return false;
+        }
+        BusinessExtUtils.getExtensionMethod(facade, extCode, scenario);
+        ExtensionInvokeCache.getInstance().doCacheExtensionRealization(
+                new ExtensionInvokeCacheKey(scenario, template, extCode), realization, facade);
+        return true;
+    }
+
+    private static class WarmUpBizObject implements IBizObject {
+
+        private final BizContext bizContext;
+
+        WarmUpBizObject(String bizCode, String scenario) {
+            this.bizContext = new BizContext() {
+
+                private static final long serialVersionUID = 3107212931658372401L;
+
+                @Override
+                public Serializable getBizId() {
+                    return "lattice-warm-up";
+                }
+
+                @Override
+                public String getBizCode() {
+                    return bizCode;
+                }
+
+                @Override
+                public String getScenario() {
+                    return scenario;
+                }
+            };
+        }
+
+        @Override
+        public BizContext getBizContext() {
+            return bizContext;
+        }
+    }
+}
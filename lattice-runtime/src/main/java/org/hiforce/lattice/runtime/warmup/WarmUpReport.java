@@ -0,0 +1,62 @@
+package org.hiforce.lattice.runtime.warmup;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/19
+ */
+public class WarmUpReport implements Serializable {
+
+    private static final long serialVersionUID = -1467335297702843170L;
+
+    private final AtomicInteger realizations = new AtomicInteger();
+
+    private final AtomicInteger runners = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Getter
+    private long costMillis;
+
+    public int getRealizations() {
+        return realizations.get();
+    }
+
+    public int getRunners() {
+        return runners.get();
+    }
+
+    public int getFailures() {
+        return failures.get();
+    }
+
+    public int getWarmedEntries() {
+        return getRealizations() + getRunners();
+    }
+
+    void addRealizations(int count) {
+        realizations.addAndGet(count);
+    }
+
+    void addRunner() {
+        runners.incrementAndGet();
+    }
+
+    void addFailure() {
+        failures.incrementAndGet();
+    }
+
+    void finish(long start) {
+        this.costMillis = System.currentTimeMillis() - start;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("realizations: %d, runners: %d, failures: %d, cost: %dms",
+                getRealizations(), getRunners(), getFailures(), costMillis);
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * @author Rocky Yu
+ * @since 2022/10/19
+ */
+package org.hiforce.lattice.runtime.warmup;
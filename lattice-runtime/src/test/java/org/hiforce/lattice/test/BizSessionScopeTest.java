@@ -0,0 +1,115 @@
+package org.hiforce.lattice.test;
+
+import org.hiforce.lattice.cache.invoke.InvokeCache;
+import org.hiforce.lattice.model.business.BizContext;
+import org.hiforce.lattice.model.business.IBizObject;
+import org.hiforce.lattice.model.business.ITemplate;
+import org.hiforce.lattice.model.context.BizSessionContext;
+import org.hiforce.lattice.model.register.TemplateSpec;
+import org.hiforce.lattice.model.scenario.ScenarioRequest;
+import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.runtime.session.BizSessionScope;
+import org.hiforce.lattice.test.business.BusinessA;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Check the nested sessions restore the effective templates of the outer one when they fail.
+ */
+public class BizSessionScopeTest {
+
+    public static void main(String[] args) {
+        Lattice.getInstance().setSimpleMode(true);
+        Lattice.getInstance().start();
+
+        String result = session(BusinessA.CODE, () -> {
+            BizSessionContext context = BizSessionContext.currentContext();
+            List<TemplateSpec<? extends ITemplate>> outer = context.getEffectiveTemplates().get(BusinessA.CODE);
+            check(null != outer, "outer session templates built");
+
+            failNested(BusinessA.CODE, () -> {
+                check(BizSessionContext.currentContext() == context, "nested session shares the context");
+                check(context.getEffectiveTemplates().get(BusinessA.CODE) != outer, "nested session overlays");
+                throw new IllegalStateException("nested failure");
+            });
+            check(context.getEffectiveTemplates().get(BusinessA.CODE) == outer, "same business restored");
+
+            failNested("business.nested", () -> {
+                check(context.getEffectiveTemplates().containsKey("business.nested"), "nested business added");
+                throw new IllegalStateException("nested failure");
+            });
+            check(!context.getEffectiveTemplates().containsKey("business.nested"), "nested business removed");
+            check(context.getEffectiveTemplates().get(BusinessA.CODE) == outer, "outer business kept");
+            check(InvokeCache.isThreadLocalInit(), "invoke cache kept by the nested sessions");
+            return "done";
+        });
+        check("done".equals(result), "outer session completed");
+        check(!InvokeCache.isThreadLocalInit(), "invoke cache released by the outer session");
+
+        failNested(BusinessA.CODE, () -> {
+            throw new IllegalStateException("outermost failure");
+        });
+        check(!InvokeCache.isThreadLocalInit(), "invoke cache released by the failed outermost session");
+        check(BizSessionContext.currentContext().getEffectiveTemplates().isEmpty(), "effective templates released");
+        check("again".equals(session(BusinessA.CODE, () -> "again")), "next session starts as the outermost");
+        System.out.println("Nested session checks passed.");
+    }
+
+    private static void failNested(String bizCode, Supplier<String> task) {
+        try {
+            session(bizCode, task);
+        } catch (IllegalStateException ex) {
+            if (ex.getMessage().startsWith("Failed:")) {
+                throw ex;
+            }
+            return;
+        }
+        throw new IllegalStateException("Failed: the session of " + bizCode + " not failed");
+    }
+
+    private static String session(String bizCode, Supplier<String> task) {
+        return new BizSessionScope<String, IBizObject>(newBizObject(bizCode)) {
+
+            @Override
+            public ScenarioRequest buildScenarioRequest(IBizObject bizObject) {
+                return (ScenarioRequest) () -> bizObject;
+            }
+
+            @Override
+            protected String execute() {
+                return task.get();
+            }
+        }.invoke();
+    }
+
+    private static IBizObject newBizObject(String bizCode) {
+        BizContext bizContext = new BizContext() {
+
+            private static final long serialVersionUID = -6375391468742130247L;
+
+            @Override
+            public Serializable getBizId() {
+                return 1;
+            }
+
+            @Override
+            public String getBizCode() {
+                return bizCode;
+            }
+
+            @Override
+            public String getScenario() {
+                return null;
+            }
+        };
+        return () -> bizContext;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.hiforce.lattice.test;
+
+import org.hiforce.lattice.runtime.cache.index.CacheDependencyIndex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Check the entries evicted by template, extension and realization class are counted once.
+ */
+public class CacheDependencyIndexTest {
+
+    private static class RealizationA {
+    }
+
+    private static class RealizationX {
+    }
+
+    public static void main(String[] args) {
+        CacheDependencyIndex index = CacheDependencyIndex.getInstance();
+        index.clear();
+        Map<String, Object> runners = new ConcurrentHashMap<>();
+        Map<String, Object> realizations = new ConcurrentHashMap<>();
+        cache(index, runners, "runner.1", "business.a", "ext.a", RealizationA.class);
+        cache(index, runners, "runner.2", "business.a", "ext.b", null);
+        cache(index, runners, "runner.3", "product.x", "ext.a", RealizationX.class);
+        cache(index, realizations, "realization.1", "product.x", "ext.c", RealizationX.class);
+        cache(index, realizations, "realization.2", "business.b", "ext.c", null);
+
+        check(index.evictTemplate("product.x") == 2, "evict the dependents of the product");
+        check(!runners.containsKey("runner.3") && !realizations.containsKey("realization.1"),
+                "the product dependents removed");
+        check(runners.size() == 2 && realizations.size() == 1, "the others kept");
+        check(index.evictTemplate("product.x") == 0, "evicted template not counted twice");
+        check(index.evictRealization(RealizationX.class) == 0, "evicted entries unlinked from the other indexes");
+        check(index.evictExtension("ext.a") == 1 && !runners.containsKey("runner.1"), "evict by extension");
+
+        runners.remove("runner.2");
+        check(index.evictTemplate("business.a") == 0, "entry removed meanwhile not counted");
+        check(index.evictExtension("ext.c") == 1 && realizations.isEmpty(), "evict the last entry");
+        System.out.println("Cache dependency eviction checks passed.");
+    }
+
+    private static void cache(CacheDependencyIndex index, Map<String, Object> owner, String key,
+                              String templateCode, String extCode, Class<?> realizationClass) {
+        owner.put(key, new Object());
+        index.addDependent(CacheDependencyIndex.Dependent.of(owner, key, () -> null != owner.remove(key))
+                .template(templateCode)
+                .extension(extCode)
+                .realization(realizationClass));
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.hiforce.lattice.test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.hiforce.lattice.model.business.TemplateType;
+import org.hiforce.lattice.model.config.BusinessConfig;
+import org.hiforce.lattice.model.config.ExtPriority;
+import org.hiforce.lattice.model.config.ExtPriorityConfig;
+import org.hiforce.lattice.model.register.BusinessSpec;
+import org.hiforce.lattice.model.register.ProductSpec;
+import org.hiforce.lattice.model.register.RealizationSpec;
+import org.hiforce.lattice.model.register.UseCaseSpec;
+import org.hiforce.lattice.runtime.cache.config.ExtPriorityResolver;
+import org.hiforce.lattice.utils.JacksonUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Resolve the business configs of the generated catalogs with the {@link ExtPriorityResolver},
+ * and compare them with the ones resolved by the former per-extension scan.
+ */
+public class ExtPriorityResolverTest {
+
+    private static final int CATALOGS = 200;
+
+    public static void main(String[] args) throws Exception {
+        for (int seed = 0; seed < CATALOGS; seed++) {
+            Catalog catalog = new Catalog(new Random(seed));
+            ExtPriorityResolver resolver = new ExtPriorityResolver(catalog.products, catalog.useCases);
+            List<BusinessConfig> expected = new ArrayList<>();
+            List<BusinessConfig> actual = new ArrayList<>();
+            for (BusinessSpec business : catalog.businesses) {
+                BusinessConfig scanned = newBusinessConfig(business.getCode());
+                for (RealizationSpec realization : business.getRealizations()) {
+                    scanned.getExtensions().addAll(scanBusinessPriorities(catalog, business, realization));
+                }
+                scanInjectUseCasePriorities(catalog, scanned);
+                expected.add(scanned);
+
+                BusinessConfig resolved = newBusinessConfig(business.getCode());
+                resolved.getExtensions().addAll(resolver.resolveBusinessPriorities(business));
+                actual.add(resolved);
+            }
+            resolver.injectUseCasePriorities(actual);
+            check(JacksonUtils.serialize(expected).equals(JacksonUtils.serialize(actual)),
+                    "the resolved configs of catalog " + seed);
+        }
+        System.out.println("Resolved configs of " + CATALOGS + " catalogs are equivalent.");
+    }
+
+    private static BusinessConfig newBusinessConfig(String bizCode) {
+        BusinessConfig config = new BusinessConfig();
+        config.setBizCode(bizCode);
+        return config;
+    }
+
+    private static List<ExtPriorityConfig> scanBusinessPriorities(
+            Catalog catalog, BusinessSpec business, RealizationSpec realization) {
+        List<ExtPriorityConfig> configs = Lists.newArrayList();
+        for (String extCode : realization.getExtensionCodes()) {
+            List<ProductSpec> products = catalog.products.stream()
+                    .filter(p -> p.getRealizations().stream()
+                            .anyMatch(real -> real.getExtensionCodes().contains(extCode)))
+                    .collect(Collectors.toList());
+            ExtPriorityConfig config = new ExtPriorityConfig();
+            config.setExtCode(extCode);
+            config.getPriorities().add(ExtPriority.of(business.getCode(), TemplateType.BUSINESS));
+            configs.add(config);
+            config.getPriorities().addAll(0, products.stream()
+                    .map(p -> ExtPriority.of(p.getCode(), TemplateType.PRODUCT))
+                    .collect(Collectors.toList()));
+        }
+        return configs;
+    }
+
+    private static void scanInjectUseCasePriorities(Catalog catalog, BusinessConfig config) {
+        Map<String, ExtPriorityConfig> useCaseConfigs = Maps.newHashMap();
+        for (UseCaseSpec useCase : catalog.useCases) {
+            for (RealizationSpec realization : useCase.getRealizations()) {
+                for (String extCode : realization.getExtensionCodes()) {
+                    useCaseConfigs.computeIfAbsent(extCode, ExtPriorityConfig::new)
+                            .getPriorities().add(ExtPriority.of(useCase.getCode(), useCase.getType()));
+                }
+            }
+        }
+        useCaseConfigs.forEach((extCode, useCaseConfig) -> {
+            ExtPriorityConfig current = config.getExtPriorityConfigByExtCode(extCode);
+            if (null == current) {
+                config.getExtensions().add(useCaseConfig);
+                return;
+            }
+            List<ExtPriority> merged = Lists.newArrayList();
+            merged.addAll(useCaseConfig.getPriorities());
+            merged.addAll(current.getPriorities());
+            current.setPriorities(merged);
+        });
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+
+    private static class Catalog {
+
+        private final List<ProductSpec> products = new ArrayList<>();
+
+        private final List<UseCaseSpec> useCases = new ArrayList<>();
+
+        private final List<BusinessSpec> businesses = new ArrayList<>();
+
+        Catalog(Random random) {
+            int extensions = 5 + random.nextInt(40);
+            for (int i = 0, size = random.nextInt(8); i < size; i++) {
+                ProductSpec product = new ProductSpec();
+                product.setCode("product." + i);
+                addRealizations(random, extensions, product.getRealizations());
+                products.add(product);
+            }
+            for (int i = 0, size = random.nextInt(8); i < size; i++) {
+                UseCaseSpec useCase = new UseCaseSpec();
+                useCase.setCode("usecase." + i);
+                useCase.setType(TemplateType.USE_CASE);
+                addRealizations(random, extensions, useCase.getRealizations());
+                useCases.add(useCase);
+            }
+            for (int i = 0, size = 1 + random.nextInt(20); i < size; i++) {
+                BusinessSpec business = new BusinessSpec();
+                business.setCode("business." + i);
+                addRealizations(random, extensions, business.getRealizations());
+                businesses.add(business);
+            }
+        }
+
+        private static void addRealizations(Random random, int extensions, List<RealizationSpec> realizations) {
+            for (int i = 0, size = random.nextInt(4); i < size; i++) {
+                RealizationSpec realization = new RealizationSpec();
+                for (int j = 0, codes = random.nextInt(6); j < codes; j++) {
+                    realization.getExtensionCodes().add("ext." + random.nextInt(extensions));
+                }
+                realizations.add(realization);
+            }
+        }
+    }
+}
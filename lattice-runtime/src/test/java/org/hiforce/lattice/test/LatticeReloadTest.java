@@ -0,0 +1,97 @@
+package org.hiforce.lattice.test;
+
+import org.hiforce.lattice.model.business.BizContext;
+import org.hiforce.lattice.model.business.IBizObject;
+import org.hiforce.lattice.model.scenario.ScenarioRequest;
+import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.runtime.LatticeRegistry;
+import org.hiforce.lattice.runtime.session.BizSessionScope;
+import org.hiforce.lattice.test.business.BusinessA;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Check the reload builds a staged registry while the former one keeps serving,
+ * and the sessions started before the swap finish on the former one.
+ */
+public class LatticeReloadTest {
+
+    public static void main(String[] args) {
+        Lattice.getInstance().setSimpleMode(true);
+        Lattice.getInstance().start();
+        LatticeRegistry former = LatticeRegistry.getPublished();
+        check(former.isInitialized(), "started in place");
+
+        LatticeRegistry[] staged = new LatticeRegistry[1];
+        String result = session(() -> {
+            check(LatticeRegistry.current() == former, "session bound to the published registry");
+            Lattice.getInstance().reload(() -> {
+                staged[0] = LatticeRegistry.current();
+                check(staged[0] != former && Lattice.getInstance().isInitialized(), "staged registry ready");
+                check(null != Lattice.getInstance().getRegisteredBusinessByCode(BusinessA.CODE), "staged business");
+                check(CompletableFuture.supplyAsync(() -> LatticeRegistry.getPublished() == former
+                        && Lattice.getInstance().isInitialized()
+                        && null != Lattice.getInstance().getRegisteredBusinessByCode(BusinessA.CODE)).join(),
+                        "the former registry keeps serving the other threads");
+                boolean[] wrapped = new boolean[1];
+                CompletableFuture.runAsync(LatticeRegistry.wrap(
+                        () -> wrapped[0] = LatticeRegistry.current() == staged[0])).join();
+                check(wrapped[0], "wrapped task runs against the staged registry");
+            });
+            check(LatticeRegistry.getPublished() == staged[0], "staged registry published");
+            check(LatticeRegistry.current() == former, "in-flight session kept on the former registry");
+            check(null != Lattice.getInstance().getRegisteredBusinessByCode(BusinessA.CODE), "former business kept");
+            return "done";
+        });
+        check("done".equals(result), "session completed");
+        check(LatticeRegistry.current() == staged[0], "next request on the published registry");
+        check("again".equals(session(() -> "again")), "session on the reloaded registry");
+        System.out.println("Staged reload checks passed.");
+    }
+
+    private static String session(Supplier<String> task) {
+        return new BizSessionScope<String, IBizObject>(newBizObject()) {
+
+            @Override
+            public ScenarioRequest buildScenarioRequest(IBizObject bizObject) {
+                return (ScenarioRequest) () -> bizObject;
+            }
+
+            @Override
+            protected String execute() {
+                return task.get();
+            }
+        }.invoke();
+    }
+
+    private static IBizObject newBizObject() {
+        BizContext bizContext = new BizContext() {
+
+            private static final long serialVersionUID = 2210372866428436312L;
+
+            @Override
+            public Serializable getBizId() {
+                return 1;
+            }
+
+            @Override
+            public String getBizCode() {
+                return BusinessA.CODE;
+            }
+
+            @Override
+            public String getScenario() {
+                return null;
+            }
+        };
+        return () -> bizContext;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+}
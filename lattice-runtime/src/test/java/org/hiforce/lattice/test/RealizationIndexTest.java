@@ -0,0 +1,125 @@
+package org.hiforce.lattice.test;
+
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.model.ability.IBusinessExt;
+import org.hiforce.lattice.model.register.RealizationSpec;
+import org.hiforce.lattice.runtime.ability.register.TemplateRegister;
+import org.hiforce.lattice.runtime.cache.index.RealizationIndex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hiforce.lattice.utils.BizCodeUtils.isCodeMatched;
+
+/**
+ * Look up the realization facades of the generated realizations through the {@link RealizationIndex},
+ * and compare them with the ones found by the former linear scan.
+ */
+public class RealizationIndexTest {
+
+    private static final int ROUNDS = 100;
+
+    private static final List<String> CODES = Arrays.asList(
+            "business.a", "business.b", "business.c", "product.x", "business.*", "*.x");
+
+    private static final List<String> SCENARIOS = Arrays.asList(null, "scenario.1", "scenario.2");
+
+    public static void main(String[] args) {
+        List<RealizationSpec> realizations = TemplateRegister.getInstance().getRealizations();
+        int lookups = 0;
+        for (int seed = 0; seed < ROUNDS; seed++) {
+            Random random = new Random(seed);
+            realizations.clear();
+            for (int i = 0, size = random.nextInt(30); i < size; i++) {
+                realizations.add(newRealization(random));
+            }
+            RealizationIndex.getInstance().invalidate();
+            for (String scenario : SCENARIOS) {
+                for (String templateCode : Arrays.asList("business.a", "business.b", "business.c", "product.x")) {
+                    for (int ext = 0; ext < 6; ext++) {
+                        String extCode = "ext." + ext;
+                        IBusinessExt expected = scanBusinessExtFacade(realizations, scenario, templateCode, extCode);
+                        IBusinessExt actual = RealizationIndex.getInstance()
+                                .findBusinessExtFacade(scenario, templateCode, extCode);
+                        check(expected == actual, String.format("round %d, scenario %s, template %s, extension %s",
+                                seed, scenario, templateCode, extCode));
+                        lookups++;
+                    }
+                }
+            }
+        }
+        realizations.clear();
+        RealizationIndex.getInstance().invalidate();
+        System.out.println("Index lookups equal to the linear scan: " + lookups);
+    }
+
+    private static RealizationSpec newRealization(Random random) {
+        RealizationSpec realization = new RealizationSpec();
+        realization.setCode(CODES.get(random.nextInt(CODES.size())));
+        realization.setScenario(SCENARIOS.get(random.nextInt(SCENARIOS.size())));
+        Set<String> supported = Sets.newHashSet();
+        for (int i = 0, size = 1 + random.nextInt(3); i < size; i++) {
+            String extCode = "ext." + random.nextInt(6);
+            realization.getExtensionCodes().add(extCode);
+            if (random.nextInt(4) > 0) {
+                supported.add(extCode);
+            }
+        }
+        realization.setBusinessExt(random.nextInt(10) == 0 ? null : new StubBusinessExt(supported));
+        return realization;
+    }
+
+    private static IBusinessExt scanBusinessExtFacade(
+            List<RealizationSpec> realizations, String scenario, String templateCode, String extCode) {
+        if (StringUtils.isNotEmpty(scenario)) {
+            for (RealizationSpec realization : realizations) {
+                if (StringUtils.equals(scenario, realization.getScenario())
+                        && isSupported(realization, templateCode, extCode, scenario)) {
+                    return realization.getBusinessExt();
+                }
+            }
+        }
+        for (RealizationSpec realization : realizations) {
+            if (StringUtils.isEmpty(realization.getScenario())
+                    && isSupported(realization, templateCode, extCode, scenario)) {
+                return realization.getBusinessExt();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSupported(RealizationSpec realization, String templateCode, String extCode, String scenario) {
+        IBusinessExt facade = realization.getBusinessExt();
+        return null != facade && isCodeMatched(realization.getCode(), templateCode)
+                && null != facade.getBusinessExtByCode(extCode, scenario);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + message);
+        }
+    }
+
+    private static class StubBusinessExt implements IBusinessExt {
+
+        private final Set<String> supported;
+
+        StubBusinessExt(Set<String> supported) {
+            this.supported = supported;
+        }
+
+        @Override
+        public IBusinessExt getBusinessExtByCode(String extCode, String scenario) {
+            return supported.contains(extCode) ? this : null;
+        }
+
+        @Override
+        public List<IBusinessExt> getAllSubBusinessExt() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package org.hiforce.lattice.dynamic;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.dynamic.classloader.LatticeClassLoader;
-import org.hiforce.lattice.dynamic.destroy.*;
+import org.hiforce.lattice.dynamic.classloader.PluginLeakDetector;
+import org.hiforce.lattice.dynamic.destroy.SpringUninstaller;
 import org.hiforce.lattice.dynamic.installer.*;
+import org.hiforce.lattice.dynamic.model.PluginChangeSet;
 import org.hiforce.lattice.dynamic.model.PluginFileInfo;
+import org.hiforce.lattice.dynamic.model.PluginLoaderStats;
+import org.hiforce.lattice.dynamic.model.SpringBeanInfo;
 import org.hiforce.lattice.dynamic.properties.LatticeDynamicProperties;
+import org.hiforce.lattice.dynamic.utils.PluginJarIndexer;
+import org.hiforce.lattice.dynamic.warmup.PluginWarmUp;
+import org.hiforce.lattice.dynamic.watcher.PluginDirWatcher;
 import org.hiforce.lattice.exception.LatticeRuntimeException;
 import org.hiforce.lattice.message.Message;
 import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.runtime.LatticeRegistry;
+import org.hiforce.lattice.runtime.cache.LatticeRuntimeCache;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
@@ -21,9 +33,15 @@ import org.springframework.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hiforce.lattice.dynamic.classloader.LatticeDynamicClassLoaderBuilder.getPluginClassLoader;
 
 /**
  * @author Rocky Yu
@@ -33,7 +51,7 @@ import java.util.stream.Collectors;
 @Service
 @DependsOn(value = "latticeSpringApplicationContextHolder")
 @SuppressWarnings("unused")
-public class LatticeDynamic implements InitializingBean {
+public class LatticeDynamic implements InitializingBean, DisposableBean {
 
     @Getter
     private static LatticeDynamic instance;
@@ -41,53 +59,127 @@ public class LatticeDynamic implements InitializingBean {
     @Getter
     private final Set<PluginFileInfo> currentFiles = Sets.newConcurrentHashSet();
 
+    private volatile boolean initialized = false;
+
+    /**
+     * The plugins opened by the scan before the init, reused by the init while the files are unchanged.
+     */
+    private static List<PluginFileInfo> scannedFiles;
+
+    private static String scannedStamp;
 
     private LatticeDynamic() {
 
     }
 
     public static List<URL> getLatticePluginUrls() {
-        String[] dirs = LatticeDynamicProperties.getInstance().getPluginDirs();
-        List<URL> urls = Lists.newArrayList();
-        for (String dir : dirs) {
-            urls.addAll(buildJarURLList(new File(dir)));
+        LatticeDynamic dynamic = LatticeDynamic.getInstance();
+        if (null != dynamic && dynamic.initialized) {
+            return dynamic.currentFiles.stream()
+                    .map(PluginFileInfo::getFile)
+                    .sorted()
+                    .map(LatticeDynamic::toURL)
+                    .collect(Collectors.toList());
+        }
+        return scanPluginFiles().stream()
+                .map(LatticeDynamic::toURL)
+                .collect(Collectors.toList());
+    }
+
+    public static Collection<PluginFileInfo> getLatticePluginFiles() {
+        LatticeDynamic dynamic = LatticeDynamic.getInstance();
+        if (null != dynamic && dynamic.initialized) {
+            return dynamic.currentFiles;
         }
-        return urls;
+        return loadScannedFiles();
     }
 
     public void init() {
         currentFiles.clear();
-        URL[] urlArrays = getLatticePluginUrls().toArray(new URL[0]);
-        log.info(">>> Lattice Dynamic Plug-in installed: " + LatticeDynamic.getInstance().getPluginFileInfos());
-        currentFiles.forEach(p -> installPlugin(p, false));
+        List<PluginFileInfo> pluginFiles = loadScannedFiles();
+        releaseScannedFiles();
+        initialized = true;
+        List<InstallResult> results = installPlugins(pluginFiles);
+        log.info(">>> Lattice Dynamic Plug-in installed: " + getPluginFileInfos()
+                + ", failed: " + results.stream().filter(p -> !p.isSuccess()).count());
     }
 
-    private static List<URL> buildJarURLList(File dir) {
-        List<URL> urls = Lists.newArrayList();
-        try {
-            if (!dir.exists() || !dir.isDirectory()) {
-                return Lists.newArrayList();
-            }
-            File[] files = dir.listFiles();
-            if (null == files) {
-                return Lists.newArrayList();
+    /**
+     * Open the plugin files, the digest and the index of each jar are computed only once
+     * for the scans before and at the init.
+     */
+    private static synchronized List<PluginFileInfo> loadScannedFiles() {
+        List<File> files = scanPluginFiles();
+        String stamp = files.stream()
+                .map(p -> p.getPath() + ":" + p.length() + ":" + p.lastModified())
+                .collect(Collectors.joining(","));
+        if (null == scannedFiles || !StringUtils.equals(stamp, scannedStamp)) {
+            scannedFiles = loadFiles(files);
+            scannedStamp = stamp;
+        }
+        return Lists.newArrayList(scannedFiles);
+    }
+
+    private static synchronized void releaseScannedFiles() {
+        scannedFiles = null;
+        scannedStamp = null;
+    }
+
+    private static List<File> scanPluginFiles() {
+        String[] dirs = LatticeDynamicProperties.getInstance().getPluginDirs();
+        List<File> files = Lists.newArrayList();
+        if (null == dirs) {
+            return files;
+        }
+        for (String dir : dirs) {
+            files.addAll(buildJarFileList(new File(dir)));
+        }
+        return files;
+    }
+
+    private static List<File> buildJarFileList(File dir) {
+        if (!dir.exists() || !dir.isDirectory()) {
+            return Lists.newArrayList();
+        }
+        File[] files = dir.listFiles();
+        if (null == files) {
+            return Lists.newArrayList();
+        }
+        List<File> jarFiles = Lists.newArrayList();
+        for (File file : files) {
+            if (file.isDirectory()) {
+                jarFiles.addAll(buildJarFileList(file));
             }
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    urls.addAll(buildJarURLList(file));
-                }
-                if (!file.getPath().endsWith(".jar") && !file.getPath().endsWith(".zip")) {
-                    continue;
-                }
-                LatticeDynamic.getInstance().loadFile(file);
-                urls.add(new URL("file:" + file.getPath()));
+            if (!file.getPath().endsWith(".jar") && !file.getPath().endsWith(".zip")) {
+                continue;
             }
-            return urls;
+            jarFiles.add(file);
+        }
+        return jarFiles;
+    }
+
+    private static URL toURL(File file) {
+        try {
+            return new URL("file:" + file.getPath());
         } catch (Exception ex) {
             throw new LatticeRuntimeException(ex);
         }
     }
 
+    private static List<PluginFileInfo> loadFiles(List<File> files) {
+        return files.parallelStream()
+                .map(file -> {
+                    try {
+                        return new PluginFileInfo(file);
+                    } catch (Exception ex) {
+                        log.error("Lattice dynamic failed to open plugin: " + file.getPath(), ex);
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     private PluginFileInfo copyAndCreatePluginFile(PluginFileInfo source) {
         String firstDir = LatticeDynamicProperties.getInstance().getPluginDirs()[0];
         File destDir = new File(firstDir);
@@ -122,73 +214,259 @@ public class LatticeDynamic implements InitializingBean {
             return;
 
         PluginFileInfo pluginFile = needCopy ? copyAndCreatePluginFile(originFile) : originFile;
+        InstallResult result = doInstallPlugin(pluginFile);
+        if (!result.isSuccess()) {
+            throw new LatticeRuntimeException(Message.of(result.getErrCode(), result.getErrText()));
+        }
+        Lattice.getInstance().reload(() -> PluginWarmUp.warmUp(Lists.newArrayList(pluginFile)));
+        log.info("....... Lattice plugin " + pluginFile.getFile().getName() + "...installed successfully.");
+    }
+
+    /**
+     * Install a batch of plugins and rebuild the Lattice registry only once.
+     * A plugin that fails to install is skipped, the others are not affected.
+     *
+     * @param pluginFiles the plugins already placed in the plugin dirs.
+     * @return the install result of each plugin.
+     */
+    public synchronized List<InstallResult> installPlugins(Collection<PluginFileInfo> pluginFiles) {
+        if (CollectionUtils.isEmpty(pluginFiles)) {
+            return Lists.newArrayList();
+        }
+        List<InstallResult> results = doInstallPlugins(pluginFiles);
+        results.stream().filter(p -> !p.isSuccess())
+                .forEach(p -> log.error(String.format("Lattice plugin %s install failed: [%s] %s",
+                        p.getInstalled().getFile().getName(), p.getErrCode(), p.getErrText())));
+        if (results.stream().anyMatch(InstallResult::isSuccess)) {
+            Lattice.getInstance().reload(() -> PluginWarmUp.warmUp(results.stream().filter(InstallResult::isSuccess)
+                    .map(InstallResult::getInstalled).collect(Collectors.toList())));
+        }
+        return results;
+    }
 
+    private InstallResult doInstallPlugin(PluginFileInfo pluginFile) {
+        return doInstallPlugin(pluginFile, null);
+    }
+
+    /**
+     * @param replaced the installed version upgraded by the plugin, its Spring beans are taken over
+     *                 by the plugin and given back when the install fails.
+     */
+    private InstallResult doInstallPlugin(PluginFileInfo pluginFile, PluginFileInfo replaced) {
+        return new LatticeRegistry().call(() -> installPluginDetached(pluginFile, replaced));
+    }
+
+    /**
+     * The installers register the templates into a detached registry, only to validate them,
+     * the published registry keeps serving unchanged until the reloaded one replaces it.
+     */
+    private InstallResult installPluginDetached(PluginFileInfo pluginFile, PluginFileInfo replaced) {
         log.info("Lattice dynamic install plugin: " + pluginFile.getFile().getName());
+        SpringInstaller springInstaller = new SpringInstaller(replaced);
         List<LatticeInstaller> installers = Lists.newArrayList(
                 new BusinessInstaller(),
                 new ProductInstaller(),
-                new SpringInstaller()
+                springInstaller
         );
 
+        LatticeClassLoader classLoader = getPluginClassLoader().addPlugin(pluginFile);
+        InstallResult result;
         try {
-            URL[] urls = new URL[]{new URL("file:" + pluginFile.getFile().getPath())};
-            try (LatticeClassLoader classLoader = new LatticeClassLoader(urls, LatticeDynamic.class.getClassLoader())) {
-                InstallResult result = installers.stream()
-                        .map(p -> p.install(classLoader, pluginFile))
-                        .filter(p -> !p.isSuccess())
-                        .findFirst().orElse(null);
-                if (null != result) {
-                    throw new LatticeRuntimeException(Message.of(result.getErrCode(), result.getErrText()));
-                }
+            result = installers.stream()
+                    .map(p -> p.install(classLoader, pluginFile))
+                    .filter(p -> !p.isSuccess())
+                    .findFirst().orElse(null);
+            if (null == result) {
                 currentFiles.add(pluginFile);
-                Lattice.getInstance().reload();
-                log.info("....... Lattice plugin " + pluginFile.getFile().getName() + "...installed successfully.");
+                return InstallResult.success(pluginFile);
             }
-        } catch (LatticeRuntimeException ex) {
-            throw ex;
-        } catch (Exception e) {
-            throw new LatticeRuntimeException(e);
+            result.setInstalled(pluginFile);
+        } catch (Throwable th) {
+            result = InstallResult.failed(pluginFile, th);
         }
+        rollbackInstall(classLoader, pluginFile, springInstaller);
+        return result;
     }
 
-    public synchronized void uninstallPlugin(String id) {
-        PluginFileInfo info = currentFiles.stream().filter(p -> StringUtils.equals(id, p.getId()))
-                .findFirst().orElse(null);
-        if (null == info) {
-            return;
+    /**
+     * Install the plugins with one pass of each installer, the installer scans the SPI
+     * files and registers the templates once for all of them.
+     */
+    private List<InstallResult> doInstallPlugins(Collection<PluginFileInfo> pluginFiles) {
+        if (1 == pluginFiles.size()) {
+            return pluginFiles.stream().map(this::doInstallPlugin).collect(Collectors.toList());
         }
+        return new LatticeRegistry().call(() -> installPluginsDetached(pluginFiles));
+    }
 
-        List<LatticeUninstaller> uninstallers = Lists.newArrayList(
-                new BusinessUninstaller(),
-                new ProductUninstaller(),
-                new SpringUninstaller()
+    private List<InstallResult> installPluginsDetached(Collection<PluginFileInfo> pluginFiles) {
+        log.info("Lattice dynamic install plugins: " + pluginFiles.stream()
+                .map(p -> p.getFile().getName()).collect(Collectors.joining(",")));
+        List<LatticeInstaller> installers = Lists.newArrayList(
+                new BusinessInstaller(),
+                new ProductInstaller(),
+                new SpringInstaller()
         );
+        Map<PluginFileInfo, LatticeClassLoader> plugins = Maps.newLinkedHashMap();
+        pluginFiles.forEach(p -> plugins.put(p, getPluginClassLoader().addPlugin(p)));
+
+        Map<PluginFileInfo, InstallResult> failed = Maps.newHashMap();
+        for (LatticeInstaller installer : installers) {
+            Map<PluginFileInfo, LatticeClassLoader> remaining = Maps.newLinkedHashMap(plugins);
+            remaining.keySet().removeAll(failed.keySet());
+            if (remaining.isEmpty()) {
+                break;
+            }
+            try {
+                failed.putAll(installer.install(remaining));
+            } catch (Throwable th) {
+                remaining.keySet().forEach(p -> failed.put(p, InstallResult.failed(p, th)));
+            }
+        }
+        List<InstallResult> results = Lists.newArrayList();
+        plugins.forEach((plugin, classLoader) -> {
+            InstallResult result = failed.get(plugin);
+            if (null == result) {
+                currentFiles.add(plugin);
+                results.add(InstallResult.success(plugin));
+                return;
+            }
+            rollbackInstall(classLoader, plugin, null);
+            results.add(result);
+        });
+        return results;
+    }
 
+    private void rollbackInstall(LatticeClassLoader classLoader, PluginFileInfo pluginFile,
+                                 SpringInstaller springInstaller) {
         try {
-            URL[] urls = new URL[]{new URL("file:" + info.getFile().getPath())};
-            try (LatticeClassLoader classLoader = new LatticeClassLoader(urls, LatticeDynamic.class.getClassLoader())) {
-                DestroyResult result = uninstallers.stream()
-                        .map(p -> p.uninstall(classLoader, info))
-                        .filter(p -> !p.isSuccess())
-                        .findFirst().orElse(null);
-                if (null != result) {
-                    throw new LatticeRuntimeException(Message.of(result.getErrCode(), result.getErrText()));
-                }
+            new SpringUninstaller().uninstall(classLoader, pluginFile);
+            if (null != springInstaller) {
+                springInstaller.restore();
+            }
+        } catch (Exception ex) {
+            log.error("Lattice plugin " + pluginFile.getFile().getName() + " failed to roll back the install.", ex);
+        }
+        getPluginClassLoader().removePlugin(pluginFile.getId());
+    }
+
+    public synchronized void uninstallPlugin(String id) {
+        if (null == getPluginFileById(id)) {
+            return;
+        }
+        PluginChangeSet changeSet = new PluginChangeSet();
+        changeSet.getUninstalls().add(id);
+        applyPluginChanges(changeSet);
+    }
+
+    /**
+     * Apply the detected plugin changes as one batch and rebuild the Lattice registry only once.
+     * The upgraded plugin is installed before its origin version is released, a failed upgrade
+     * keeps the origin version installed. The registry is rebuilt and swapped atomically by
+     * {@link Lattice#reload(Runnable)}, the uninstalled and the origin versions are released
+     * (Spring beans, caches, class loader) only after the reloaded registry is published.
+     *
+     * @param changeSet the plugins to install, upgrade and uninstall.
+     * @return the failed results of the installs and upgrades.
+     */
+    public synchronized List<InstallResult> applyPluginChanges(PluginChangeSet changeSet) {
+        if (changeSet.isEmpty()) {
+            return Lists.newArrayList();
+        }
+        Map<PluginFileInfo, LatticeClassLoader> released = Maps.newLinkedHashMap();
+        Set<PluginFileInfo> uninstalled = Sets.newHashSet();
+        for (String id : changeSet.getUninstalls()) {
+            PluginFileInfo info = getPluginFileById(id);
+            if (null == info) {
+                continue;
             }
+            released.put(info, detachPlugin(info));
+            uninstalled.add(info);
+        }
+        List<InstallResult> results = changeSet.getUpgrades().entrySet().stream()
+                .map(p -> doUpgradePlugin(p.getKey(), p.getValue(), released))
+                .collect(Collectors.toList());
+        if (!changeSet.getInstalls().isEmpty()) {
+            results.addAll(doInstallPlugins(changeSet.getInstalls()));
+        }
+        List<InstallResult> failed = results.stream().filter(p -> !p.isSuccess()).collect(Collectors.toList());
+        failed.forEach(p -> log.error(String.format("Lattice plugin %s install failed: [%s] %s",
+                p.getInstalled().getFile().getName(), p.getErrCode(), p.getErrText())));
+        Lattice.getInstance().reload(() -> PluginWarmUp.warmUp(results.stream().filter(InstallResult::isSuccess)
+                .map(InstallResult::getInstalled).collect(Collectors.toList())));
+        released.forEach((info, classLoader) -> releasePlugin(info, classLoader, uninstalled.contains(info)));
+        return failed;
+    }
+
+    /**
+     * @param released the origin versions to release once the reloaded registry is published.
+     */
+    private InstallResult doUpgradePlugin(String originId, PluginFileInfo pluginFile,
+                                          Map<PluginFileInfo, LatticeClassLoader> released) {
+        PluginFileInfo origin = getPluginFileById(originId);
+        if (null == origin) {
+            return doInstallPlugin(pluginFile);
+        }
+        InstallResult result = doInstallPlugin(pluginFile, origin);
+        if (!result.isSuccess()) {
+            log.error(String.format("Lattice plugin %s upgrade failed, the origin version is kept.",
+                    pluginFile.getFile().getName()));
+            return result;
+        }
+        released.put(origin, detachPlugin(origin));
+        log.info("....... Lattice plugin " + pluginFile.getFile().getName() + "...upgraded successfully.");
+        return result;
+    }
+
+    /**
+     * Leave the plugin out of the reloaded registry, its loader stays open for the published one.
+     */
+    private LatticeClassLoader detachPlugin(PluginFileInfo info) {
+        currentFiles.remove(info);
+        return getPluginClassLoader().detachPlugin(info.getId());
+    }
+
+    /**
+     * Release the plugin no longer referenced by the published registry. Only the caches shared
+     * by the registries are evicted, the reloaded registry was built without the plugin.
+     */
+    private void releasePlugin(PluginFileInfo info, LatticeClassLoader classLoader, boolean delete) {
+        try {
+            new SpringUninstaller().uninstall(classLoader, info);
+            LatticeRuntimeCache runtimeCache = Lattice.getInstance().getRuntimeCache();
+            Stream.concat(Stream.of(classLoader),
+                            info.getBeans().stream().map(SpringBeanInfo::getBeanClass).map(Class::getClassLoader))
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(runtimeCache::clearSharedClassLoaderCache);
+            info.getBeans().clear();
+        } catch (Exception ex) {
+            log.warn("Lattice plugin " + info.getFile().getName() + " failed to release.", ex);
+        }
+        PluginJarIndexer.removeCachedIndex(info.getId());
+        getPluginClassLoader().closePlugin(classLoader);
+        if (delete) {
             info.getFile().delete();
-            currentFiles.remove(info);
-        } catch (LatticeRuntimeException ex) {
-            throw ex;
-        } catch (Exception e) {
-            throw new LatticeRuntimeException(e);
+            log.info("....... Lattice plugin " + info.getFile().getName() + "...uninstalled successfully.");
         }
     }
 
+    public PluginFileInfo getPluginFileById(String id) {
+        return currentFiles.stream().filter(p -> StringUtils.equals(id, p.getId()))
+                .findFirst().orElse(null);
+    }
 
     public void loadFile(File file) {
         currentFiles.add(new PluginFileInfo(file));
     }
 
+    public List<PluginLoaderStats> getPluginLoaderStats() {
+        List<PluginLoaderStats> stats = Lists.newArrayList(
+                getPluginClassLoader().getPluginStats());
+        stats.addAll(PluginLeakDetector.getInstance().getUncollectedPlugins());
+        return stats;
+    }
+
     public String getPluginFileInfos() {
         return currentFiles.stream()
                 .map(p -> p.getFile().getName())
@@ -199,5 +477,13 @@ public class LatticeDynamic implements InitializingBean {
     public void afterPropertiesSet() throws Exception {
         instance = this;
         init();
+        if (LatticeDynamicProperties.getInstance().isPluginWatchEnabled()) {
+            PluginDirWatcher.getInstance().start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        PluginDirWatcher.getInstance().stop();
     }
 }
@@ -1,5 +1,9 @@
 package org.hiforce.lattice.dynamic.classloader;
 
+import lombok.Getter;
+import org.hiforce.lattice.dynamic.model.PluginFileInfo;
+import org.hiforce.lattice.dynamic.model.PluginLoaderStats;
+
 import java.net.URL;
 import java.net.URLClassLoader;
 
@@ -9,7 +13,61 @@ import java.net.URLClassLoader;
  */
 public class LatticeClassLoader extends URLClassLoader {
 
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final LatticePluginClassLoader pluginClassLoader;
+
+    private final PluginFileInfo pluginFile;
+
+    @Getter
+    private final PluginLoaderStats stats;
+
     public LatticeClassLoader(URL[] urls, ClassLoader parent) {
+        this(urls, parent, null, null);
+    }
+
+    public LatticeClassLoader(URL[] urls, ClassLoader parent,
+                              LatticePluginClassLoader pluginClassLoader, PluginFileInfo pluginFile) {
         super(urls, parent);
+        this.pluginClassLoader = pluginClassLoader;
+        this.pluginFile = pluginFile;
+        this.stats = null == pluginFile ? null :
+                new PluginLoaderStats(pluginFile.getId(), pluginFile.getFile().getName());
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        Class<?> c = super.findClass(name);
+        if (null != stats) {
+            stats.recordLoadedClass(pluginFile.getJarIndex().getClassSize(name));
+        }
+        return c;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        try {
+            return super.loadClass(name, resolve);
+        } catch (ClassNotFoundException ex) {
+            if (null == pluginClassLoader) {
+                throw ex;
+            }
+            return pluginClassLoader.loadPluginClass(name, this);
+        }
+    }
+
+    /**
+     * Load the class only from the urls of this loader, without the parent delegation.
+     */
+    Class<?> loadLocalClass(String name) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (null == c) {
+                c = findClass(name);
+            }
+            return c;
+        }
     }
 }
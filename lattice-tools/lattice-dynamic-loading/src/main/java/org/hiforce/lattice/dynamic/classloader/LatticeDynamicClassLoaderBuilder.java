@@ -2,12 +2,9 @@ package org.hiforce.lattice.dynamic.classloader;
 
 import com.google.auto.service.AutoService;
 import lombok.extern.slf4j.Slf4j;
-import org.hiforce.lattice.dynamic.LatticeDynamic;
 import org.hiforce.lattice.spi.classloader.CustomClassLoaderSpi;
 
-import java.net.URL;
-
-import static org.hiforce.lattice.dynamic.LatticeDynamic.getLatticePluginUrls;
+import static org.hiforce.lattice.dynamic.LatticeDynamic.getLatticePluginFiles;
 
 /**
  * @author Rocky Yu
@@ -17,12 +14,16 @@ import static org.hiforce.lattice.dynamic.LatticeDynamic.getLatticePluginUrls;
 @AutoService(CustomClassLoaderSpi.class)
 public class LatticeDynamicClassLoaderBuilder implements CustomClassLoaderSpi {
 
+    private static final LatticePluginClassLoader PLUGIN_CLASS_LOADER =
+            new LatticePluginClassLoader(LatticeDynamicClassLoaderBuilder.class.getClassLoader());
+
     @Override
     public ClassLoader getCustomClassLoader() {
-        URL[] urlArrays = getLatticePluginUrls().toArray(new URL[0]);
-        log.info(">>> Lattice Dynamic Plug-in installed: " + LatticeDynamic.getInstance().getPluginFileInfos());
-        return new LatticeClassLoader(urlArrays, LatticeDynamicClassLoaderBuilder.class.getClassLoader());
+        PLUGIN_CLASS_LOADER.refresh(getLatticePluginFiles());
+        return PLUGIN_CLASS_LOADER;
     }
 
-
+    public static LatticePluginClassLoader getPluginClassLoader() {
+        return PLUGIN_CLASS_LOADER;
+    }
 }
@@ -0,0 +1,209 @@
+package org.hiforce.lattice.dynamic.classloader;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.iterators.IteratorEnumeration;
+import org.hiforce.lattice.dynamic.model.PluginFileInfo;
+import org.hiforce.lattice.dynamic.model.PluginLoaderStats;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Every plugin is loaded by its own isolated {@link LatticeClassLoader}, and the class
+ * is routed to the owning plugin loader via the package index of the plugin jars.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/18
+ */
+@Slf4j
+public class LatticePluginClassLoader extends ClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Map<String, LatticeClassLoader> pluginLoaders = new ConcurrentHashMap<>();
+
+    private volatile Map<String, List<LatticeClassLoader>> packageLoaders = Collections.emptyMap();
+
+    private final Map<String, Class<?>> resolvedClasses = new ConcurrentHashMap<>();
+
+    private final Set<String> missingClasses = ConcurrentHashMap.newKeySet();
+
+    public LatticePluginClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    public synchronized void refresh(Collection<PluginFileInfo> plugins) {
+        Map<String, PluginFileInfo> pluginMap = plugins.stream()
+                .collect(Collectors.toMap(PluginFileInfo::getId, p -> p, (a, b) -> a));
+        Lists.newArrayList(pluginLoaders.keySet()).stream()
+                .filter(p -> !pluginMap.containsKey(p))
+                .forEach(this::removePluginLoader);
+
+        Map<String, List<LatticeClassLoader>> packages = Maps.newHashMap();
+        for (PluginFileInfo plugin : pluginMap.values()) {
+            LatticeClassLoader loader = pluginLoaders.computeIfAbsent(plugin.getId(), k -> newPluginLoader(plugin));
+            plugin.getJarIndex().getPackages()
+                    .forEach(p -> packages.computeIfAbsent(p, k -> Lists.newArrayList()).add(loader));
+        }
+        packageLoaders = packages;
+        resolvedClasses.clear();
+        missingClasses.clear();
+    }
+
+    /**
+     * Open the loader of a plugin not yet refreshed in, the installers load the plugin classes
+     * through it, so the runtime keeps using the same classes after the next refresh.
+     *
+     * @return the loader of the plugin, the existing one if the plugin is already opened.
+     */
+    public synchronized LatticeClassLoader addPlugin(PluginFileInfo plugin) {
+        LatticeClassLoader loader = pluginLoaders.get(plugin.getId());
+        if (null != loader) {
+            return loader;
+        }
+        LatticeClassLoader newLoader = newPluginLoader(plugin);
+        pluginLoaders.put(plugin.getId(), newLoader);
+        Map<String, List<LatticeClassLoader>> packages = Maps.newHashMap();
+        packageLoaders.forEach((k, v) -> packages.put(k, Lists.newArrayList(v)));
+        plugin.getJarIndex().getPackages()
+                .forEach(p -> packages.computeIfAbsent(p, k -> Lists.newArrayList()).add(newLoader));
+        packageLoaders = packages;
+        resolvedClasses.clear();
+        missingClasses.clear();
+        return newLoader;
+    }
+
+    public LatticeClassLoader getPluginLoader(String pluginId) {
+        return pluginLoaders.get(pluginId);
+    }
+
+    public List<PluginLoaderStats> getPluginStats() {
+        return pluginLoaders.values().stream()
+                .map(LatticeClassLoader::getStats)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized void removePlugin(String pluginId) {
+        closePlugin(detachPlugin(pluginId));
+    }
+
+    /**
+     * Stop routing the classes to the plugin without closing its loader, the registry
+     * still published keeps using the plugin until it is released by {@link #closePlugin}.
+     *
+     * @return the detached loader, null if the plugin is not opened.
+     */
+    public synchronized LatticeClassLoader detachPlugin(String pluginId) {
+        LatticeClassLoader loader = pluginLoaders.remove(pluginId);
+        if (null == loader) {
+            return null;
+        }
+        Map<String, List<LatticeClassLoader>> packages = Maps.newHashMap();
+        packageLoaders.forEach((k, v) -> {
+            List<LatticeClassLoader> loaders = v.stream().filter(p -> p != loader).collect(Collectors.toList());
+            if (!loaders.isEmpty()) {
+                packages.put(k, loaders);
+            }
+        });
+        packageLoaders = packages;
+        resolvedClasses.clear();
+        missingClasses.clear();
+        return loader;
+    }
+
+    public void closePlugin(LatticeClassLoader loader) {
+        if (null == loader) {
+            return;
+        }
+        try {
+            loader.close();
+        } catch (IOException e) {
+            log.warn("Lattice dynamic failed to close plugin loader: " + loader.getStats().getPluginId(), e);
+        }
+        PluginLeakDetector.getInstance().watch(loader, loader.getStats());
+    }
+
+    private LatticeClassLoader newPluginLoader(PluginFileInfo plugin) {
+        return new LatticeClassLoader(new URL[]{toURL(plugin)}, getParent(), this, plugin);
+    }
+
+    private void removePluginLoader(String pluginId) {
+        closePlugin(pluginLoaders.remove(pluginId));
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        return loadPluginClass(name, null);
+    }
+
+    Class<?> loadPluginClass(String name, LatticeClassLoader requester) throws ClassNotFoundException {
+        Class<?> c = resolvedClasses.get(name);
+        if (null != c) {
+            return c;
+        }
+        if (missingClasses.contains(name)) {
+            throw new ClassNotFoundException(name);
+        }
+        int idx = name.lastIndexOf('.');
+        String packageName = idx < 0 ? "" : name.substring(0, idx);
+        for (LatticeClassLoader loader : packageLoaders.getOrDefault(packageName, Collections.emptyList())) {
+            if (loader == requester) {
+                continue;
+            }
+            try {
+                c = loader.loadLocalClass(name);
+                resolvedClasses.put(name, c);
+                return c;
+            } catch (ClassNotFoundException ignored) {
+
+            }
+        }
+        if (null == requester) {
+            missingClasses.add(name);
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    @Override
+    protected URL findResource(String name) {
+        for (LatticeClassLoader loader : pluginLoaders.values()) {
+            URL url = loader.findResource(name);
+            if (null != url) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected Enumeration<URL> findResources(String name) throws IOException {
+        List<URL> urls = Lists.newArrayList();
+        for (LatticeClassLoader loader : pluginLoaders.values()) {
+            Enumeration<URL> enumeration = loader.findResources(name);
+            while (enumeration.hasMoreElements()) {
+                urls.add(enumeration.nextElement());
+            }
+        }
+        return new IteratorEnumeration<>(urls.iterator());
+    }
+
+    private static URL toURL(PluginFileInfo plugin) {
+        try {
+            return new URL("file:" + plugin.getFile().getPath());
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.hiforce.lattice.dynamic.classloader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hiforce.lattice.dynamic.model.PluginLoaderStats;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Track the unloaded plugin class loaders via {@link PhantomReference},
+ * a loader still not collected after the full GC is leaked by someone.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/18
+ */
+@Slf4j
+public class PluginLeakDetector {
+
+    private static PluginLeakDetector instance;
+
+    private static final Object lock = new Object();
+
+    private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<>();
+
+    private final Map<Reference<? extends ClassLoader>, PluginLoaderStats> watching = new ConcurrentHashMap<>();
+
+    private PluginLeakDetector() {
+
+    }
+
+    public static PluginLeakDetector getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new PluginLeakDetector();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void watch(ClassLoader classLoader, PluginLoaderStats stats) {
+        stats.setUnloaded(true);
+        watching.put(new PhantomReference<>(classLoader, queue), stats);
+    }
+
+    public List<PluginLoaderStats> getUncollectedPlugins() {
+        expunge();
+        return watching.values().stream()
+                .filter(p -> !p.isCollected())
+                .collect(Collectors.toList());
+    }
+
+    private void expunge() {
+        Reference<? extends ClassLoader> reference;
+        while (null != (reference = queue.poll())) {
+            PluginLoaderStats stats = watching.remove(reference);
+            if (null != stats) {
+                stats.setCollected(true);
+                log.info("Lattice plugin class loader collected: " + stats);
+            }
+        }
+    }
+}
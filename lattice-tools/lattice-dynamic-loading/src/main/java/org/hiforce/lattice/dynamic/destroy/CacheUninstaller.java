@@ -0,0 +1,34 @@
+package org.hiforce.lattice.dynamic.destroy;
+
+import org.hiforce.lattice.dynamic.classloader.LatticeClassLoader;
+import org.hiforce.lattice.dynamic.model.PluginFileInfo;
+import org.hiforce.lattice.dynamic.model.SpringBeanInfo;
+import org.hiforce.lattice.runtime.Lattice;
+import org.hiforce.lattice.runtime.cache.LatticeRuntimeCache;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.hiforce.lattice.dynamic.classloader.LatticeDynamicClassLoaderBuilder.getPluginClassLoader;
+
+/**
+ * Purge the Lattice caches which are keyed by the classes of the plugin.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/18
+ */
+public class CacheUninstaller implements LatticeUninstaller {
+
+    @Override
+    public DestroyResult uninstall(LatticeClassLoader classLoader, PluginFileInfo fileInfo) {
+        LatticeRuntimeCache runtimeCache = Lattice.getInstance().getRuntimeCache();
+        Stream.concat(
+                        Stream.of(classLoader, getPluginClassLoader().getPluginLoader(fileInfo.getId())),
+                        fileInfo.getBeans().stream().map(SpringBeanInfo::getBeanClass).map(Class::getClassLoader))
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(runtimeCache::clearClassLoaderCache);
+        fileInfo.getBeans().clear();
+        return DestroyResult.success();
+    }
+}
@@ -1,5 +1,6 @@
 package org.hiforce.lattice.dynamic.installer;
 
+import com.google.common.collect.Maps;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.hiforce.lattice.dynamic.classloader.LatticeClassLoader;
@@ -11,9 +12,12 @@ import org.hiforce.lattice.model.register.RealizationSpec;
 import org.hiforce.lattice.runtime.ability.register.TemplateRegister;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static org.hiforce.lattice.dynamic.classloader.LatticeDynamicClassLoaderBuilder.getPluginClassLoader;
+import static org.hiforce.lattice.dynamic.utils.DynamicUtils.groupByPlugin;
 import static org.hiforce.lattice.dynamic.utils.DynamicUtils.isPluginDefined;
 import static org.hiforce.lattice.runtime.Lattice.getServiceProviderClasses;
 
@@ -63,4 +67,47 @@ public class BusinessInstaller implements LatticeInstaller {
         }
         return InstallResult.success(fileInfo);
     }
+
+    /**
+     * Scan the SPI files once for all the plugins and register their templates in one call,
+     * if the batch fails the plugins are installed one by one to find out the failed ones.
+     */
+    @Override
+    public Map<PluginFileInfo, InstallResult> install(Map<PluginFileInfo, LatticeClassLoader> plugins) {
+        Map<PluginFileInfo, Set<Class>> templates = groupByPlugin(
+                getServiceProviderClasses(IBusiness.class.getName(), getPluginClassLoader()), plugins);
+        if (templates.isEmpty()) {
+            return Maps.newHashMap();
+        }
+        Map<PluginFileInfo, Set<Class>> realizations = groupByPlugin(
+                getServiceProviderClasses(IBusinessExt.class.getName(), getPluginClassLoader()), plugins);
+        realizations.keySet().retainAll(templates.keySet());
+        try {
+            List<RealizationSpec> installed = TemplateRegister.getInstance().registerRealizations(
+                    realizations.values().stream().flatMap(Set::stream).collect(Collectors.toSet()));
+            log.info("---> realization installed: " + installed.stream()
+                    .filter(p -> null != p.getBusinessExt())
+                    .map(p -> p.getBusinessExt().getClass().getName())
+                    .collect(Collectors.joining(",")));
+
+            List<BusinessSpec> specs = TemplateRegister.getInstance().registerBusinesses(
+                    templates.values().stream().flatMap(Set::stream).collect(Collectors.toSet()));
+            for (BusinessSpec spec : specs) {
+                templates.forEach((plugin, classes) -> {
+                    if (classes.contains(spec.getBusinessClass())) {
+                        plugin.getBizCodes().add(spec.getCode());
+                    }
+                });
+            }
+            log.info("---> business installed: " + specs.stream()
+                    .map(p -> String.format("[%s]-%s", p.getCode(), p.getName()))
+                    .collect(Collectors.joining(",")));
+            return Maps.newHashMap();
+        } catch (Exception ex) {
+            log.warn("Lattice dynamic failed to install the business in batch: " + ex.getMessage(), ex);
+            Map<PluginFileInfo, LatticeClassLoader> remaining = Maps.newLinkedHashMap(plugins);
+            remaining.keySet().retainAll(templates.keySet());
+            return LatticeInstaller.super.install(remaining);
+        }
+    }
 }
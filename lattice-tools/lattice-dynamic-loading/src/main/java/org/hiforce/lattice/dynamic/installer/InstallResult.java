@@ -3,6 +3,8 @@ package org.hiforce.lattice.dynamic.installer;
 import lombok.Getter;
 import lombok.Setter;
 import org.hiforce.lattice.dynamic.model.PluginFileInfo;
+import org.hiforce.lattice.exception.LatticeRuntimeException;
+import org.hiforce.lattice.message.Message;
 
 import java.io.Serializable;
 
@@ -33,4 +35,22 @@ public class InstallResult implements Serializable {
         result.installed = model;
         return result;
     }
+
+    public static InstallResult failed(PluginFileInfo model, String errCode, String errText) {
+        InstallResult result = new InstallResult();
+        result.success = false;
+        result.installed = model;
+        result.errCode = errCode;
+        result.errText = errText;
+        return result;
+    }
+
+    public static InstallResult failed(PluginFileInfo model, Throwable th) {
+        if (th instanceof LatticeRuntimeException) {
+            Message message = ((LatticeRuntimeException) th).getErrorMessage();
+            return failed(model, message.getCode(), message.getText());
+        }
+        Message message = Message.code("LATTICE-DYNAMIC-0003", model.getFile().getName(), th.getMessage());
+        return failed(model, message.getCode(), message.getText());
+    }
 }
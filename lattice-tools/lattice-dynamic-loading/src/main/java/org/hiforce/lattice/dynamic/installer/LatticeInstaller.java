@@ -1,8 +1,11 @@
 package org.hiforce.lattice.dynamic.installer;
 
+import com.google.common.collect.Maps;
 import org.hiforce.lattice.dynamic.classloader.LatticeClassLoader;
 import org.hiforce.lattice.dynamic.model.PluginFileInfo;
 
+import java.util.Map;
+
 /**
  * @author Rocky Yu
  * @since 2022/10/13
@@ -10,4 +13,27 @@ import org.hiforce.lattice.dynamic.model.PluginFileInfo;
 public interface LatticeInstaller {
 
     InstallResult install(LatticeClassLoader classLoader, PluginFileInfo fileInfo);
+
+    /**
+     * Install the plugins in one pass, the default installs them one by one.
+     *
+     * @param plugins the plugins and their own loaders.
+     * @return the failed results, keyed by the plugin.
+     */
+    default Map<PluginFileInfo, InstallResult> install(Map<PluginFileInfo, LatticeClassLoader> plugins) {
+        Map<PluginFileInfo, InstallResult> failed = Maps.newHashMap();
+        plugins.forEach((plugin, classLoader) -> {
+            InstallResult result;
+            try {
+                result = install(classLoader, plugin);
+            } catch (Throwable th) {
+                result = InstallResult.failed(plugin, th);
+            }
+            if (!result.isSuccess()) {
+                result.setInstalled(plugin);
+                failed.put(plugin, result);
+            }
+        });
+        return failed;
+    }
 }
@@ -1,13 +1,14 @@
 package org.hiforce.lattice.dynamic.installer;
 
+import com.google.common.collect.Lists;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.dynamic.classloader.LatticeClassLoader;
 import org.hiforce.lattice.dynamic.model.PluginFileInfo;
 import org.hiforce.lattice.dynamic.model.SpringBeanInfo;
+import org.hiforce.lattice.dynamic.utils.PluginJarIndexer;
 import org.hiforce.lattice.dynamic.utils.SpringUtils;
 import org.hiforce.lattice.runtime.utils.SpringApplicationContextHolder;
-import org.hiforce.lattice.utils.LatticeAnnotationUtils;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
@@ -16,18 +17,36 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
+import java.util.stream.Stream;
 
 /**
  * @author Rocky Yu
  * @since 2022/10/17
  */
 public class SpringInstaller implements LatticeInstaller {
+
+    /**
+     * The installed version replaced by the new plugin, its Spring beans
+     * with the same name are taken over by the new plugin.
+     */
+    private final PluginFileInfo replaced;
+
+    private final List<SpringBeanInfo> takenOver = Lists.newArrayList();
+
+    public SpringInstaller() {
+        this(null);
+    }
+
+    public SpringInstaller(PluginFileInfo replaced) {
+        this.replaced = replaced;
+    }
+
     @Override
     public InstallResult install(LatticeClassLoader classLoader, PluginFileInfo fileInfo) {
         try {
@@ -40,11 +59,9 @@ public class SpringInstaller implements LatticeInstaller {
     }
 
     private void installSpringBeans(LatticeClassLoader classLoader, PluginFileInfo fileInfo) {
-        List<Class<?>> classList = fileInfo.getJarFile().stream()
-                .map(ZipEntry::getName)
-                .filter(p -> StringUtils.endsWith(p, ".class"))
-                .map(p -> StringUtils.replace(p, "/", "."))
-                .map(p -> StringUtils.replace(p, ".class", ""))
+        List<Class<?>> classList = Stream.of(Service.class, Repository.class)
+                .flatMap(p -> fileInfo.getJarIndex().getAnnotatedClasses(p).stream())
+                .distinct()
                 .map(p -> loadClass(classLoader, p))
                 .filter(this::hasSpringAnnotation)
                 .collect(Collectors.toList());
@@ -52,17 +69,15 @@ public class SpringInstaller implements LatticeInstaller {
             return;
         }
         for (Class<?> targetClass : classList) {
+            takeOver(p -> !p.isMvc() && StringUtils.equals(p.getBeanName(), targetClass.getSimpleName()))
+                    .forEach(p -> SpringUtils.removeBean(p.getBeanName()));
             Object bean = SpringUtils.registerBean(targetClass.getSimpleName(), targetClass);
             fileInfo.getBeans().add(SpringBeanInfo.of(targetClass.getSimpleName(), targetClass, bean, false));
         }
     }
 
     private void installSpringMVC(LatticeClassLoader classLoader, PluginFileInfo fileInfo) throws Exception {
-        List<Class<?>> classList = fileInfo.getJarFile().stream()
-                .map(ZipEntry::getName)
-                .filter(p -> StringUtils.endsWith(p, ".class"))
-                .map(p -> StringUtils.replace(p, "/", "."))
-                .map(p -> StringUtils.replace(p, ".class", ""))
+        List<Class<?>> classList = fileInfo.getJarIndex().getAnnotatedClasses(RestController.class).stream()
                 .map(p -> loadClass(classLoader, p))
                 .filter(this::hasSpringMVCAnnotation)
                 .collect(Collectors.toList());
@@ -74,12 +89,14 @@ public class SpringInstaller implements LatticeInstaller {
         Field field = RequestMappingHandlerMapping.class.getDeclaredField("config");
         field.setAccessible(true);
         RequestMappingInfo.BuilderConfiguration configuration = (RequestMappingInfo.BuilderConfiguration) field.get(mapping);
+        takeOver(SpringBeanInfo::isMvc).forEach(p -> p.getMappingInfos().forEach(mapping::unregisterMapping));
 
         for (Class<?> targetClass : classList) {
             Object bean = targetClass.newInstance();
             SpringApplicationContextHolder.getContext().getAutowireCapableBeanFactory().autowireBean(bean);
 
             SpringBeanInfo beanInfo = SpringBeanInfo.of(targetClass.getSimpleName(), targetClass, bean, true);
+            fileInfo.getBeans().add(beanInfo);
             Method[] methods = targetClass.getDeclaredMethods();
 
             for (Method method : methods) {
@@ -98,12 +115,48 @@ public class SpringInstaller implements LatticeInstaller {
                 builder.options(configuration);
 
                 RequestMappingInfo mappingInfo = builder.build();
+                mapping.registerMapping(mappingInfo, bean, method);
                 beanInfo.getMappingInfos().add(mappingInfo);
+                beanInfo.getHandlerMethods().put(mappingInfo, method);
+            }
+        }
+    }
 
-                mapping.registerMapping(mappingInfo, bean, method);
+    /**
+     * Give the taken over beans back to the replaced version, after the beans
+     * of the failed new version have been uninstalled.
+     */
+    public void restore() {
+        if (takenOver.isEmpty()) {
+            return;
+        }
+        RequestMappingHandlerMapping mapping = null;
+        for (SpringBeanInfo info : takenOver) {
+            if (!info.isMvc()) {
+                info.setBean(SpringUtils.registerBean(info.getBeanName(), info.getBeanClass()));
+                continue;
+            }
+            if (null == mapping) {
+                mapping = SpringApplicationContextHolder.getSpringBean(RequestMappingHandlerMapping.class);
+            }
+            for (Map.Entry<RequestMappingInfo, Method> entry : info.getHandlerMethods().entrySet()) {
+                mapping.registerMapping(entry.getKey(), info.getBean(), entry.getValue());
             }
-            fileInfo.getBeans().add(beanInfo);
         }
+        replaced.getBeans().addAll(takenOver);
+        takenOver.clear();
+    }
+
+    private List<SpringBeanInfo> takeOver(Predicate<SpringBeanInfo> predicate) {
+        if (null == replaced) {
+            return Lists.newArrayList();
+        }
+        List<SpringBeanInfo> beans = replaced.getBeans().stream()
+                .filter(predicate)
+                .collect(Collectors.toList());
+        replaced.getBeans().removeAll(beans);
+        takenOver.addAll(beans);
+        return beans;
     }
 
     private Class<?> loadClass(LatticeClassLoader classLoader, String className) {
@@ -114,17 +167,15 @@ public class SpringInstaller implements LatticeInstaller {
         }
     }
 
+    /**
+     * The composed stereotypes are matched at any depth, as they are indexed by the {@link PluginJarIndexer}.
+     */
     private boolean hasSpringAnnotation(Class<?> targetClass) {
-        Annotation annotation = LatticeAnnotationUtils.getAnnotation(targetClass, Service.class);
-        if (null != annotation) {
-            return true;
-        }
-        annotation = LatticeAnnotationUtils.getAnnotation(targetClass, Repository.class);
-        return null != annotation;
+        return AnnotatedElementUtils.hasAnnotation(targetClass, Service.class)
+                || AnnotatedElementUtils.hasAnnotation(targetClass, Repository.class);
     }
 
     private boolean hasSpringMVCAnnotation(Class<?> targetClass) {
-        Annotation annotation = LatticeAnnotationUtils.getAnnotation(targetClass, RestController.class);
-        return null != annotation;
+        return AnnotatedElementUtils.hasAnnotation(targetClass, RestController.class);
     }
 }
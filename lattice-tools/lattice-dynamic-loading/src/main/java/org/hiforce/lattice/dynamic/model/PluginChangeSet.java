@@ -0,0 +1,40 @@
+package org.hiforce.lattice.dynamic.model;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/18
+ */
+public class PluginChangeSet implements Serializable {
+
+    private static final long serialVersionUID = -4187372153604541208L;
+
+    @Getter
+    private final List<PluginFileInfo> installs = Lists.newArrayList();
+
+    /**
+     * origin plugin id -> the new version of the plugin.
+     */
+    @Getter
+    private final Map<String, PluginFileInfo> upgrades = Maps.newLinkedHashMap();
+
+    @Getter
+    private final List<String> uninstalls = Lists.newArrayList();
+
+    public boolean isEmpty() {
+        return installs.isEmpty() && upgrades.isEmpty() && uninstalls.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("install: %d, upgrade: %d, uninstall: %d",
+                installs.size(), upgrades.size(), uninstalls.size());
+    }
+}
@@ -4,16 +4,16 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import lombok.Getter;
 import lombok.Setter;
-import org.apache.commons.io.FileUtils;
+import org.hiforce.lattice.dynamic.utils.PluginJarIndexer;
 
 import java.io.File;
-import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.jar.JarFile;
 
 /**
  * @author Rocky Yu
@@ -25,6 +25,8 @@ public class PluginFileInfo implements Serializable {
 
     private final static String[] strHex = {"0", "1", "2", "3", "4", "5",
             "6", "7", "8", "9", "a", "b", "c", "d", "e", "f"};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     @Getter
     @Setter
     private String id;
@@ -39,7 +41,7 @@ public class PluginFileInfo implements Serializable {
     private final Set<String> bizCodes = Sets.newHashSet();
 
     @Getter
-    private final JarFile jarFile;
+    private final PluginJarIndex jarIndex;
 
     @Getter
     private final List<SpringBeanInfo> beans = Lists.newArrayList();
@@ -47,18 +49,21 @@ public class PluginFileInfo implements Serializable {
     public PluginFileInfo(File file) {
         this.file = file;
         buildMD5Value();
-        try {
-            jarFile = new JarFile(file);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        jarIndex = PluginJarIndexer.index(file, id);
     }
 
     private void buildMD5Value() {
         StringBuilder sb = new StringBuilder();
         try {
             MessageDigest digest = MessageDigest.getInstance("MD5");
-            byte[] bytes = digest.digest(FileUtils.readFileToByteArray(file));
+            try (InputStream is = Files.newInputStream(file.toPath())) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            byte[] bytes = digest.digest();
             for (int aByte : bytes) {
                 int d = aByte;
                 if (d < 0) {
@@ -0,0 +1,60 @@
+package org.hiforce.lattice.dynamic.model;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The class entries of a plugin jar, grouped by package,
+ * and the classes which declared the indexed annotations.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/17
+ */
+public class PluginJarIndex implements Serializable {
+
+    private static final long serialVersionUID = -3372014390217398416L;
+
+    @Getter
+    private final String id;
+
+    @Getter
+    private final Map<String, Set<String>> packageClasses = Maps.newHashMap();
+
+    @Getter
+    private final Map<String, Set<String>> annotatedClasses = Maps.newHashMap();
+
+    private final Map<String, Long> classSizes = Maps.newHashMap();
+
+    public PluginJarIndex(String id) {
+        this.id = id;
+    }
+
+    public Set<String> getPackages() {
+        return packageClasses.keySet();
+    }
+
+    public Set<String> getAnnotatedClasses(Class<? extends Annotation> annotationClass) {
+        return annotatedClasses.getOrDefault(annotationClass.getName(), Sets.newHashSet());
+    }
+
+    public long getClassSize(String className) {
+        return classSizes.getOrDefault(className, 0L);
+    }
+
+    public void addClass(String className, long size) {
+        classSizes.put(className, size);
+        int idx = className.lastIndexOf('.');
+        String packageName = idx < 0 ? "" : className.substring(0, idx);
+        packageClasses.computeIfAbsent(packageName, k -> Sets.newHashSet()).add(className);
+    }
+
+    public void addAnnotatedClass(String annotationClassName, String className) {
+        annotatedClasses.computeIfAbsent(annotationClassName, k -> Sets.newHashSet()).add(className);
+    }
+}
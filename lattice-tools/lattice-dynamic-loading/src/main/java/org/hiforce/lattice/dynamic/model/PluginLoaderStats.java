@@ -0,0 +1,62 @@
+package org.hiforce.lattice.dynamic.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The classes loaded by a plugin class loader. The metaspace used by the plugin
+ * is estimated by the class file bytes of the loaded classes.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/18
+ */
+public class PluginLoaderStats implements Serializable {
+
+    private static final long serialVersionUID = 2479301638466930128L;
+
+    @Getter
+    private final String pluginId;
+
+    @Getter
+    private final String fileName;
+
+    private final AtomicInteger loadedClassCount = new AtomicInteger();
+
+    private final AtomicLong loadedClassBytes = new AtomicLong();
+
+    @Getter
+    @Setter
+    private volatile boolean unloaded;
+
+    @Getter
+    @Setter
+    private volatile boolean collected;
+
+    public PluginLoaderStats(String pluginId, String fileName) {
+        this.pluginId = pluginId;
+        this.fileName = fileName;
+    }
+
+    public void recordLoadedClass(long classBytes) {
+        loadedClassCount.incrementAndGet();
+        loadedClassBytes.addAndGet(classBytes);
+    }
+
+    public int getLoadedClassCount() {
+        return loadedClassCount.get();
+    }
+
+    public long getLoadedClassBytes() {
+        return loadedClassBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[classes=%d, bytes=%d, unloaded=%s, collected=%s]",
+                fileName, getLoadedClassCount(), getLoadedClassBytes(), unloaded, collected);
+    }
+}
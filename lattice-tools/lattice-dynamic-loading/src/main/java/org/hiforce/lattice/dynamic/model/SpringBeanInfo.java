@@ -1,12 +1,15 @@
 package org.hiforce.lattice.dynamic.model;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Rocky Yu
@@ -35,6 +38,12 @@ public class SpringBeanInfo implements Serializable {
     @Getter
     private final List<RequestMappingInfo> mappingInfos = Lists.newArrayList();
 
+    /**
+     * mapping -> the handler method, used to register the mapping again when the bean is restored.
+     */
+    @Getter
+    private final Map<RequestMappingInfo, Method> handlerMethods = Maps.newLinkedHashMap();
+
     public static SpringBeanInfo of(String beanName, Class<?> beanClass, Object bean, boolean mvc) {
         SpringBeanInfo info = new SpringBeanInfo();
         info.beanName = beanName;
@@ -13,6 +13,12 @@ public class LatticeDynamicProperties {
 
     private String[] pluginDirs;
 
+    private Boolean pluginWatchEnabled;
+
+    private Integer pluginWatchDebounceMillis;
+
+    private Integer pluginWarmUpIterations;
+
     private LatticeDynamicProperties() {
 
     }
@@ -35,4 +41,28 @@ public class LatticeDynamicProperties {
         }
         return pluginDirs;
     }
+
+    public boolean isPluginWatchEnabled() {
+        if (null == pluginWatchEnabled) {
+            pluginWatchEnabled = Boolean.parseBoolean(
+                    DynamicApplicationProperties.getValueString("lattice.plugin.watch.enabled"));
+        }
+        return pluginWatchEnabled;
+    }
+
+    public int getPluginWatchDebounceMillis() {
+        if (null == pluginWatchDebounceMillis) {
+            int value = DynamicApplicationProperties.getValueInt("lattice.plugin.watch.debounce");
+            pluginWatchDebounceMillis = value <= 0 ? 500 : value;
+        }
+        return pluginWatchDebounceMillis;
+    }
+
+    public int getPluginWarmUpIterations() {
+        if (null == pluginWarmUpIterations) {
+            String value = DynamicApplicationProperties.getValueString("lattice.plugin.warmup.iterations");
+            pluginWarmUpIterations = StringUtils.isEmpty(value) ? 1 : Integer.parseInt(value.trim());
+        }
+        return pluginWarmUpIterations;
+    }
 }
@@ -1,8 +1,14 @@
 package org.hiforce.lattice.dynamic.utils;
 
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.dynamic.classloader.LatticeClassLoader;
 import org.hiforce.lattice.dynamic.model.PluginFileInfo;
 
+import java.util.Map;
+import java.util.Set;
+
 /**
  * @author Rocky Yu
  * @since 2022/10/13
@@ -15,4 +21,21 @@ public class DynamicUtils {
                 .getLocation().getPath();
         return StringUtils.equals(path, fileInfo.getFile().getPath());
     }
+
+    /**
+     * Group the classes by the plugin whose loader defined them, the classes of the others are dropped.
+     */
+    public static Map<PluginFileInfo, Set<Class>> groupByPlugin(Set<Class> classSet,
+                                                                Map<PluginFileInfo, LatticeClassLoader> plugins) {
+        Map<ClassLoader, PluginFileInfo> owners = Maps.newIdentityHashMap();
+        plugins.forEach((k, v) -> owners.put(v, k));
+        Map<PluginFileInfo, Set<Class>> classes = Maps.newLinkedHashMap();
+        for (Class targetClass : classSet) {
+            PluginFileInfo owner = owners.get(targetClass.getClassLoader());
+            if (null != owner) {
+                classes.computeIfAbsent(owner, k -> Sets.newHashSet()).add(targetClass);
+            }
+        }
+        return classes;
+    }
 }
@@ -0,0 +1,166 @@
+package org.hiforce.lattice.dynamic.utils;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+import org.hiforce.lattice.dynamic.model.PluginJarIndex;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build the {@link PluginJarIndex} of a plugin jar in a single pass over its entries.
+ * The annotations are detected from the class-file constant pool, so no class is defined here.
+ * The annotation types of the jar referencing an indexed annotation are composed stereotypes,
+ * the classes annotated by them are indexed under the referenced annotation as well.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/17
+ */
+@Slf4j
+public class PluginJarIndexer {
+
+    private static final Map<String, String> INDEXED_ANNOTATIONS = Stream.of(
+                    Service.class, Repository.class, RestController.class)
+            .collect(Collectors.toMap(p -> "L" + p.getName().replace('.', '/') + ";", Class::getName));
+
+    private static final Map<String, PluginJarIndex> CACHED_INDEXES = new ConcurrentHashMap<>();
+
+    private static final int CLASS_MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_ANNOTATION = 0x2000;
+
+    public static PluginJarIndex index(File file, String id) {
+        return CACHED_INDEXES.computeIfAbsent(id, k -> buildIndex(file, id));
+    }
+
+    public static void removeCachedIndex(String id) {
+        CACHED_INDEXES.remove(id);
+    }
+
+    private static PluginJarIndex buildIndex(File file, String id) {
+        PluginJarIndex index = new PluginJarIndex(id);
+        Map<String, Set<String>> classTypes = Maps.newHashMap();
+        Map<String, Set<String>> annotationTypes = Maps.newHashMap();
+        try (JarFile jarFile = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".class")
+                        || name.endsWith("module-info.class") || name.startsWith("META-INF/")) {
+                    continue;
+                }
+                String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                index.addClass(className, Math.max(entry.getSize(), 0));
+                Set<String> types = Sets.newHashSet();
+                try (InputStream is = jarFile.getInputStream(entry)) {
+                    boolean annotationType = readReferencedTypes(is, types);
+                    (annotationType ? annotationTypes : classTypes).put(className, types);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        Map<String, Set<String>> stereotypes = resolveStereotypes(annotationTypes);
+        classTypes.forEach((className, types) -> types.stream()
+                .map(stereotypes::get)
+                .filter(Objects::nonNull)
+                .flatMap(Set::stream)
+                .forEach(annotation -> index.addAnnotatedClass(annotation, className)));
+        return index;
+    }
+
+    /**
+     * @return the indexed annotations keyed by the descriptor of the annotation types referencing them,
+     * directly or through the other composed annotation types of the jar.
+     */
+    private static Map<String, Set<String>> resolveStereotypes(Map<String, Set<String>> annotationTypes) {
+        Map<String, Set<String>> stereotypes = Maps.newHashMap();
+        INDEXED_ANNOTATIONS.forEach((k, v) -> stereotypes.put(k, Sets.newHashSet(v)));
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<String, Set<String>> entry : annotationTypes.entrySet()) {
+                String descriptor = "L" + entry.getKey().replace('.', '/') + ";";
+                Set<String> resolved = stereotypes.computeIfAbsent(descriptor, k -> Sets.newHashSet());
+                for (String type : entry.getValue()) {
+                    if (!descriptor.equals(type) && stereotypes.containsKey(type)) {
+                        changed |= resolved.addAll(stereotypes.get(type));
+                    }
+                }
+            }
+        }
+        return stereotypes;
+    }
+
+    /**
+     * Collect the type descriptors in the constant pool, the annotations among them.
+     *
+     * @return whether the class is an annotation type.
+     */
+    private static boolean readReferencedTypes(InputStream is, Set<String> types) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != CLASS_MAGIC) {
+            return false;
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int count = in.readUnsignedShort();
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1:
+                    String value = in.readUTF();
+                    if (value.length() > 2 && value.charAt(0) == 'L' && value.endsWith(";")) {
+                        types.add(value);
+                    }
+                    break;
+                case 7:
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    in.skipBytes(2);
+                    break;
+                case 15:
+                    in.skipBytes(3);
+                    break;
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    in.skipBytes(4);
+                    break;
+                case 5:
+                case 6:
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    log.warn("Lattice dynamic unknown constant pool tag: " + tag);
+                    return false;
+            }
+        }
+        return (in.readUnsignedShort() & ACC_ANNOTATION) != 0;
+    }
+}
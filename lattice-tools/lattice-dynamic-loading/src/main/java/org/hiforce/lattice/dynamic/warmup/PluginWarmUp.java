@@ -0,0 +1,69 @@
+package org.hiforce.lattice.dynamic.warmup;
+
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.hiforce.lattice.dynamic.model.PluginFileInfo;
+import org.hiforce.lattice.dynamic.properties.LatticeDynamicProperties;
+import org.hiforce.lattice.model.scenario.ScenarioRequest;
+import org.hiforce.lattice.runtime.spi.LatticeRuntimeSpiFactory;
+import org.hiforce.lattice.runtime.warmup.LatticeWarmUp;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Warm up the businesses and products of the new installed plugins, against the
+ * reloaded registry before it is ready for the requests, see {@link org.hiforce.lattice.runtime.Lattice#reload(Runnable)}.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/19
+ */
+@Slf4j
+public class PluginWarmUp {
+
+    public static void warmUp(Collection<PluginFileInfo> plugins) {
+        Set<String> bizCodes = Sets.newHashSet();
+        Set<String> templateCodes = Sets.newHashSet();
+        for (PluginFileInfo plugin : plugins) {
+            bizCodes.addAll(plugin.getBizCodes());
+            templateCodes.addAll(plugin.getBizCodes());
+            templateCodes.addAll(plugin.getProductCodes());
+        }
+        if (templateCodes.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int resolved = LatticeWarmUp.getInstance().warmUpRealizations(p -> templateCodes.contains(p.getCode()));
+        int executed = runWarmUpRequests(bizCodes);
+        log.info(String.format(">>> Lattice plugin warm-up finished, resolved: %d, executed: %d, cost: %dms",
+                resolved, executed, System.currentTimeMillis() - start));
+    }
+
+    private static int runWarmUpRequests(Set<String> bizCodes) {
+        int iterations = LatticeDynamicProperties.getInstance().getPluginWarmUpIterations();
+        if (iterations <= 0 || bizCodes.isEmpty()) {
+            return 0;
+        }
+        int executed = 0;
+        for (PluginWarmUpSpi spi : LatticeRuntimeSpiFactory.getInstance()
+                .getCustomServiceProviders(PluginWarmUpSpi.class)) {
+            List<ScenarioRequest> requests = spi.getWarmUpRequests(bizCodes);
+            if (CollectionUtils.isEmpty(requests)) {
+                continue;
+            }
+            for (int i = 0; i < iterations; i++) {
+                for (ScenarioRequest request : requests) {
+                    try {
+                        spi.warmUp(request);
+                        executed++;
+                    } catch (Throwable th) {
+                        log.warn("Lattice plugin warm-up request failed: " + th.getMessage(), th);
+                    }
+                }
+            }
+        }
+        return executed;
+    }
+}
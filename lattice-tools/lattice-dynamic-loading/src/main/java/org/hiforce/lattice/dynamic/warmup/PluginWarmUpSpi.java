@@ -0,0 +1,26 @@
+package org.hiforce.lattice.dynamic.warmup;
+
+import org.hiforce.lattice.model.scenario.ScenarioRequest;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Rocky Yu
+ * @since 2022/10/19
+ */
+public interface PluginWarmUpSpi {
+
+    /**
+     * @param bizCodes the business codes installed by the plugins.
+     * @return the warm-up requests of the businesses.
+     */
+    List<ScenarioRequest> getWarmUpRequests(Set<String> bizCodes);
+
+    /**
+     * Execute the warm-up request through the abilities.
+     *
+     * @param request the warm-up request.
+     */
+    void warmUp(ScenarioRequest request);
+}
@@ -0,0 +1,199 @@
+package org.hiforce.lattice.dynamic.watcher;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+import org.hiforce.lattice.dynamic.LatticeDynamic;
+import org.hiforce.lattice.dynamic.model.PluginChangeSet;
+import org.hiforce.lattice.dynamic.model.PluginFileInfo;
+import org.hiforce.lattice.dynamic.properties.LatticeDynamicProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watch the plugin dirs, the file events are debounced and applied
+ * to {@link LatticeDynamic} as one batch on the watcher thread.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/18
+ */
+@Slf4j
+public class PluginDirWatcher implements Runnable {
+
+    private static PluginDirWatcher instance;
+
+    private static final Object lock = new Object();
+
+    private final Map<WatchKey, Path> watchKeys = Maps.newConcurrentMap();
+
+    private WatchService watchService;
+
+    private Thread thread;
+
+    private volatile boolean running = false;
+
+    private PluginDirWatcher() {
+
+    }
+
+    public static PluginDirWatcher getInstance() {
+        if (null == instance) {
+            synchronized (lock) {
+                if (null == instance) {
+                    instance = new PluginDirWatcher();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        String[] dirs = LatticeDynamicProperties.getInstance().getPluginDirs();
+        if (null == dirs || 0 == dirs.length) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (String dir : dirs) {
+                registerDir(Paths.get(dir));
+            }
+        } catch (IOException ex) {
+            log.error("Lattice plugin watcher failed to start.", ex);
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "lattice-plugin-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info(">>> Lattice plugin watcher started: " + String.join(",", dirs));
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+
+        }
+        thread.interrupt();
+        watchKeys.clear();
+    }
+
+    private void registerDir(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                watchKeys.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        long debounce = LatticeDynamicProperties.getInstance().getPluginWatchDebounceMillis();
+        Set<Path> changed = Sets.newLinkedHashSet();
+        while (running) {
+            try {
+                WatchKey key = changed.isEmpty() ?
+                        watchService.take() : watchService.poll(debounce, TimeUnit.MILLISECONDS);
+                if (null == key) {
+                    applyChanges(changed);
+                    changed.clear();
+                    continue;
+                }
+                collectChanges(key, changed);
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                break;
+            } catch (Throwable th) {
+                log.error("Lattice plugin watcher failed to apply changes.", th);
+                changed.clear();
+            }
+        }
+    }
+
+    private void collectChanges(WatchKey key, Set<Path> changed) throws IOException {
+        Path dir = watchKeys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || null == dir) {
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                registerDir(path);
+                continue;
+            }
+            if (isPluginFile(path)) {
+                changed.add(path.toAbsolutePath().normalize());
+            }
+        }
+        if (!key.reset()) {
+            watchKeys.remove(key);
+        }
+    }
+
+    private void applyChanges(Set<Path> changed) {
+        LatticeDynamic dynamic = LatticeDynamic.getInstance();
+        Map<Path, PluginFileInfo> current = Maps.newHashMap();
+        dynamic.getCurrentFiles().forEach(p -> current.put(p.getFile().toPath().toAbsolutePath().normalize(), p));
+
+        PluginChangeSet changeSet = new PluginChangeSet();
+        for (Path path : changed) {
+            PluginFileInfo origin = current.get(path);
+            File file = path.toFile();
+            if (!file.exists()) {
+                if (null != origin) {
+                    changeSet.getUninstalls().add(origin.getId());
+                }
+                continue;
+            }
+            PluginFileInfo pluginFile;
+            try {
+                pluginFile = new PluginFileInfo(file);
+            } catch (Exception ex) {
+                log.warn("Lattice plugin watcher skipped the unreadable plugin: " + path, ex);
+                continue;
+            }
+            if (dynamic.getCurrentFiles().contains(pluginFile)) {
+                continue;
+            }
+            if (null == origin) {
+                changeSet.getInstalls().add(pluginFile);
+            } else {
+                changeSet.getUpgrades().put(origin.getId(), pluginFile);
+            }
+        }
+        if (changeSet.isEmpty()) {
+            return;
+        }
+        log.info(">>> Lattice plugin watcher apply changes: " + changeSet);
+        dynamic.applyPluginChanges(changeSet);
+    }
+
+    private boolean isPluginFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".jar") || name.endsWith(".zip");
+    }
+}
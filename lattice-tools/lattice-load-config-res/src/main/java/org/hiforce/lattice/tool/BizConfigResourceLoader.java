@@ -3,16 +3,22 @@ package org.hiforce.lattice.tool;
 import com.google.auto.service.AutoService;
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.hiforce.lattice.model.config.BusinessConfig;
 import org.hiforce.lattice.spi.config.BusinessConfigLoadSpi;
 import org.hiforce.lattice.utils.JacksonUtils;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 /**
  * @author Rocky Yu
@@ -25,6 +31,8 @@ public class BizConfigResourceLoader implements BusinessConfigLoadSpi {
 
     private ClassLoader classLoader;
 
+    private final CompiledConfigCache compiledCache = CompiledConfigCache.fromSystemProperties();
+
     @Override
     public void setClassLoader(ClassLoader classLoader) {
         this.classLoader = classLoader;
@@ -37,32 +45,71 @@ public class BizConfigResourceLoader implements BusinessConfigLoadSpi {
 
     @Override
     public List<BusinessConfig> loadBusinessConfigs(List<String> bizCodes) {
-        List<BusinessConfig> configs = Lists.newArrayList();
-        for (String bizCode : bizCodes) {
-            InputStream is = null;
-            try {
-                String resourceFile = String.format("lattice/lattice-%s.json", bizCode);
+        if (null == bizCodes || bizCodes.isEmpty()) {
+            return Lists.newArrayList();
+        }
+        ClassLoader loader = Optional.ofNullable(classLoader).orElse(Thread.currentThread().getContextClassLoader());
+        if (bizCodes.size() == 1) {
+            return Optional.ofNullable(loadBusinessConfig(loader, bizCodes.get(0)))
+                    .map(Lists::newArrayList).orElseGet(Lists::newArrayList);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(bizCodes.size(), Runtime.getRuntime().availableProcessors()), r -> {
+                    Thread thread = new Thread(r, "lattice-config-load");
+                    thread.setDaemon(true);
+                    thread.setContextClassLoader(loader);
+                    return thread;
+                });
+        try {
+            List<CompletableFuture<BusinessConfig>> futures = bizCodes.stream()
+                    .map(p -> CompletableFuture.supplyAsync(() -> loadBusinessConfig(loader, p), executor))
+                    .collect(Collectors.toList());
+            return futures.stream().map(CompletableFuture::join)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        } finally {
+            executor.shutdown();
+        }
+    }
 
-                is = Optional.ofNullable(classLoader).orElse(Thread.currentThread().getContextClassLoader()).
-                        getResourceAsStream(resourceFile);
-                String jsonStr = getStringByInputStream(is);
-                if (StringUtils.isEmpty(jsonStr)) {
-                    continue;
-                }
-                log.warn("Lattice business [{}] local config file: {} found!", bizCode, resourceFile);
-                BusinessConfig businessConfig = JacksonUtils.deserializeIgnoreException(jsonStr, BusinessConfig.class);
-                configs.add(businessConfig);
-                log.warn("Lattice business [{}] local config loaded!", bizCode);
-            } finally {
-                try {
-                    if (null != is) {
-                        is.close();
-                    }
-                } catch (Exception ignored) {
-                }
+    private BusinessConfig loadBusinessConfig(ClassLoader loader, String bizCode) {
+        String resourceFile = String.format("lattice/lattice-%s.json", bizCode);
+        byte[] content;
+        try (InputStream is = loader.getResourceAsStream(resourceFile)) {
+            if (null == is) {
+                return null;
+            }
+            content = readFully(is);
+        } catch (IOException e) {
+            log.error("Lattice business [{}] failed to read local config file: {}", bizCode, resourceFile, e);
+            return null;
+        }
+        if (content.length == 0) {
+            return null;
+        }
+        log.warn("Lattice business [{}] local config file: {} found!", bizCode, resourceFile);
+        byte[] hash = null == compiledCache ? null : CompiledConfigCache.hash(content);
+        BusinessConfig businessConfig = null == hash ? null : compiledCache.get(hash);
+        if (null == businessConfig) {
+            businessConfig = JacksonUtils.deserializeIgnoreException(content, BusinessConfig.class);
+            if (null != businessConfig && null != hash) {
+                compiledCache.put(hash, businessConfig);
             }
         }
-        return configs;
+        if (null != businessConfig) {
+            log.warn("Lattice business [{}] local config loaded!", bizCode);
+        }
+        return businessConfig;
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
     }
 
     public static String getStringByInputStream(InputStream inputStream) {
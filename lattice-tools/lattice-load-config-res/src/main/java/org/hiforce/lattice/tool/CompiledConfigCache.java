@@ -0,0 +1,337 @@
+package org.hiforce.lattice.tool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.model.business.TemplateType;
+import org.hiforce.lattice.model.config.BusinessConfig;
+import org.hiforce.lattice.model.config.ExtPriority;
+import org.hiforce.lattice.model.config.ExtPriorityConfig;
+import org.hiforce.lattice.model.config.ProductConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The compiled binary cache of the business config resources, keyed by the SHA-256 of the
+ * resource content. An unchanged resource is restored from here without any JSON parsing.
+ * <p>
+ * The entries use a dedicated binary layout instead of Java serialization, so a tampered
+ * cache directory can not inject arbitrary objects. Every entry is signed by an HMAC with the
+ * key kept in the cache directory, readable by the owner only. The entries not owned by the
+ * current user or not matching the magic, format version, resource hash or HMAC are ignored.
+ * <p>
+ * Disabled by default, enabled by {@link #ENABLED_KEY}, in the <code>~/.lattice/config-cache</code>
+ * directory unless configured by {@link #DIR_KEY}.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+@Slf4j
+public class CompiledConfigCache {
+
+    public static final String ENABLED_KEY = "lattice.config.cache.enabled";
+
+    public static final String DIR_KEY = "lattice.config.cache.dir";
+
+    private static final int MAGIC = 0x4C434643;//LCFC
+
+    private static final int VERSION = 2;
+
+    private static final String SUFFIX = ".lcc";
+
+    private static final String KEY_FILE = ".key";
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final Set<PosixFilePermission> OWNER_ONLY =
+            EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+
+    private final Path directory;
+
+    private volatile SecretKeySpec key;
+
+    private volatile boolean untrusted;
+
+    public CompiledConfigCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the cache configured by the system properties, or null if disabled.
+     */
+    public static CompiledConfigCache fromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_KEY, "false"))) {
+            return null;
+        }
+        String dir = System.getProperty(DIR_KEY);
+        if (StringUtils.isBlank(dir)) {
+            dir = System.getProperty("user.home") + File.separator + ".lattice" + File.separator + "config-cache";
+        }
+        return new CompiledConfigCache(Paths.get(dir));
+    }
+
+    public static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public BusinessConfig get(byte[] hash) {
+        Path file = directory.resolve(toHex(hash) + SUFFIX);
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+            return null;
+        }
+        try {
+            SecretKeySpec macKey = getKey();
+            if (null == macKey || !isOwned(file)) {
+                return null;
+            }
+            byte[] data = Files.readAllBytes(file);
+            int macLength = Mac.getInstance(MAC_ALGORITHM).getMacLength();
+            if (data.length <= macLength) {
+                return null;
+            }
+            byte[] mac = Arrays.copyOfRange(data, data.length - macLength, data.length);
+            if (!MessageDigest.isEqual(mac, sign(macKey, data, data.length - macLength))) {
+                log.warn("[Lattice] Ignored the compiled config not signed by this cache: {}", file);
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - macLength));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            byte[] entryHash = new byte[in.readUnsignedByte()];
+            in.readFully(entryHash);
+            if (!Arrays.equals(hash, entryHash)) {
+                return null;
+            }
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            return decode(payload);
+        } catch (Exception e) {
+            log.warn("[Lattice] Ignored the broken compiled config: {}, {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(byte[] hash, BusinessConfig config) {
+        Path file = directory.resolve(toHex(hash) + SUFFIX);
+        Path tmp = null;
+        try {
+            SecretKeySpec macKey = getKey();
+            if (null == macKey) {
+                return;
+            }
+            byte[] payload = encode(config);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 96);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeByte(hash.length);
+                out.write(hash);
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+            byte[] data = bytes.toByteArray();
+            tmp = createOwnerOnlyFile("compile");
+            Files.write(tmp, data);
+            Files.write(tmp, sign(macKey, data, data.length), StandardOpenOption.APPEND);
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (Exception e) {
+            log.warn("[Lattice] Failed to write the compiled config: {}, {}", file, e.getMessage());
+            if (null != tmp) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the HMAC key of the cache, created on the first use, or null if the cache directory is not trusted.
+     */
+    private SecretKeySpec getKey() {
+        if (null != key || untrusted) {
+            return key;
+        }
+        synchronized (this) {
+            if (null != key || untrusted) {
+                return key;
+            }
+            try {
+                createOwnerOnlyDirectory();
+                Path file = directory.resolve(KEY_FILE);
+                if (!Files.exists(file, LinkOption.NOFOLLOW_LINKS)) {
+                    byte[] secret = new byte[32];
+                    new SecureRandom().nextBytes(secret);
+                    Path tmp = createOwnerOnlyFile("key");
+                    Files.write(tmp, secret);
+                    try {
+                        Files.move(tmp, file);
+                    } catch (FileAlreadyExistsException ex) {
+                        Files.deleteIfExists(tmp);
+                    }
+                }
+                if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS) || !isOwned(file) || !isOwnerOnly(file)) {
+                    throw new IOException("the key file is not a regular file readable by the current user only.");
+                }
+                key = new SecretKeySpec(Files.readAllBytes(file), MAC_ALGORITHM);
+            } catch (Exception e) {
+                untrusted = true;
+                log.warn("[Lattice] The compiled config cache disabled, directory: {}, {}", directory, e.getMessage());
+            }
+            return key;
+        }
+    }
+
+    private static byte[] sign(SecretKeySpec macKey, byte[] data, int length) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(macKey);
+        mac.update(data, 0, length);
+        return mac.doFinal();
+    }
+
+    private boolean isOwned(Path file) throws IOException {
+        UserPrincipal owner = Files.getOwner(file, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal current = FileSystems.getDefault().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        return owner.equals(current);
+    }
+
+    private static boolean isOwnerOnly(Path file) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+        return null == view || OWNER_ONLY.containsAll(view.readAttributes().permissions());
+    }
+
+    private void createOwnerOnlyDirectory() throws IOException {
+        if (isPosix()) {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+        if (!isOwned(directory)) {
+            throw new IOException("the directory is not owned by the current user.");
+        }
+    }
+
+    private Path createOwnerOnlyFile(String prefix) throws IOException {
+        return isPosix() ? Files.createTempFile(directory, prefix, ".tmp", PosixFilePermissions.asFileAttribute(OWNER_ONLY))
+                : Files.createTempFile(directory, prefix, ".tmp");
+    }
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static byte[] encode(BusinessConfig config) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, config.getBizCode());
+            out.writeInt(config.getPriority());
+            out.writeBoolean(config.isAutoBuild());
+            out.writeInt(config.getProducts().size());
+            for (ProductConfig product : config.getProducts()) {
+                writeString(out, product.getCode());
+            }
+            out.writeInt(null == config.getExtensions() ? -1 : config.getExtensions().size());
+            if (null != config.getExtensions()) {
+                for (ExtPriorityConfig extension : config.getExtensions()) {
+                    writeString(out, extension.getExtCode());
+                    out.writeInt(null == extension.getPriorities() ? -1 : extension.getPriorities().size());
+                    if (null == extension.getPriorities()) {
+                        continue;
+                    }
+                    for (ExtPriority priority : extension.getPriorities()) {
+                        writeString(out, priority.getCode());
+                        writeString(out, null == priority.getType() ? null : priority.getType().name());
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static BusinessConfig decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        BusinessConfig config = new BusinessConfig();
+        config.setBizCode(readString(in));
+        config.setPriority(in.readInt());
+        config.setAutoBuild(in.readBoolean());
+        int products = in.readInt();
+        for (int i = 0; i < products; i++) {
+            ProductConfig product = new ProductConfig();
+            product.setCode(readString(in));
+            config.getProducts().add(product);
+        }
+        int extensions = in.readInt();
+        for (int i = 0; i < extensions; i++) {
+            ExtPriorityConfig extension = new ExtPriorityConfig(readString(in));
+            int priorities = in.readInt();
+            if (priorities < 0) {
+                extension.setPriorities(null);
+            }
+            for (int j = 0; j < priorities; j++) {
+                String code = readString(in);
+                String type = readString(in);
+                extension.getPriorities().add(ExtPriority.of(code, null == type ? null : TemplateType.valueOf(type)));
+            }
+            config.getExtensions().add(extension);
+        }
+        if (in.available() > 0) {
+            throw new IOException("Trailing bytes in the compiled config.");
+        }
+        return config;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(null != value);
+        if (null != value) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder builder = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,204 @@
+package org.hiforce.lattice.tool;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hiforce.lattice.model.config.BusinessConfig;
+import org.hiforce.lattice.spi.config.BusinessConfigListener;
+import org.hiforce.lattice.spi.config.BusinessConfigLoadSpi;
+import org.hiforce.lattice.utils.JacksonUtils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load the business configs from the local directory configured by {@link #DIR_KEY}, and push
+ * the changes of the <code>lattice-&lt;bizCode&gt;.json</code> files to the subscriber.
+ * The local file config takes precedence over the classpath resource config.
+ *
+ * @author Rocky Yu
+ * @since 2022/10/21
+ */
+@Slf4j
+@SuppressWarnings("unused")
+@AutoService(BusinessConfigLoadSpi.class)
+public class LocalFileBizConfigLoader implements BusinessConfigLoadSpi {
+
+    public static final String DIR_KEY = "lattice.config.local.dir";
+
+    private static final Pattern FILE_PATTERN = Pattern.compile("lattice-(.+)\\.json");
+
+    private final Path directory;
+
+    private final Map<String, byte[]> loadedHashes = new ConcurrentHashMap<>();
+
+    private ClassLoader classLoader;
+
+    private volatile Set<String> subscribedBizCodes = ConcurrentHashMap.newKeySet();
+
+    private volatile BusinessConfigListener listener;
+
+    private Thread watcher;
+
+    public LocalFileBizConfigLoader() {
+        this(System.getProperty(DIR_KEY));
+    }
+
+    public LocalFileBizConfigLoader(String directory) {
+        this.directory = StringUtils.isBlank(directory) ? null : Paths.get(directory);
+    }
+
+    @Override
+    public void setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public int getPriority() {
+        return 50;
+    }
+
+    @Override
+    public List<BusinessConfig> loadBusinessConfigs(List<String> bizCodes) {
+        List<BusinessConfig> configs = Lists.newArrayList();
+        if (null == directory) {
+            return configs;
+        }
+        for (String bizCode : bizCodes) {
+            byte[] content = readConfigFile(bizCode);
+            if (null == content) {
+                continue;
+            }
+            BusinessConfig config = JacksonUtils.deserializeIgnoreException(content, BusinessConfig.class);
+            if (null != config) {
+                loadedHashes.put(bizCode, CompiledConfigCache.hash(content));
+                configs.add(config);
+                log.warn("Lattice business [{}] local file config loaded from: {}", bizCode, directory);
+            }
+        }
+        return configs;
+    }
+
+    @Override
+    public synchronized void subscribe(List<String> bizCodes, BusinessConfigListener listener) {
+        if (null == directory) {
+            return;
+        }
+        Set<String> subscribed = ConcurrentHashMap.newKeySet();
+        subscribed.addAll(bizCodes);
+        this.subscribedBizCodes = subscribed;
+        this.listener = listener;
+        if (null != watcher) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watcher = new Thread(() -> watch(watchService), "lattice-config-watcher");
+            watcher.setDaemon(true);
+            watcher.setContextClassLoader(classLoader);
+            watcher.start();
+        } catch (IOException e) {
+            log.error("[Lattice] failed to watch the local config directory: " + directory, e);
+        }
+    }
+
+    /**
+     * Re-check all the subscribed config files, and push the changed ones.
+     */
+    public void refresh() {
+        subscribedBizCodes.forEach(this::refresh);
+    }
+
+    private void watch(WatchService watchService) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    refresh();
+                    continue;
+                }
+                Matcher matcher = FILE_PATTERN.matcher(event.context().toString());
+                if (matcher.matches()) {
+                    refresh(matcher.group(1));
+                }
+            }
+            if (!key.reset()) {
+                log.warn("[Lattice] the local config directory is no longer watched: {}", directory);
+                return;
+            }
+        }
+    }
+
+    private synchronized void refresh(String bizCode) {
+        BusinessConfigListener current = this.listener;
+        if (null == current || !subscribedBizCodes.contains(bizCode)) {
+            return;
+        }
+        try {
+            if (!Files.exists(getConfigFile(bizCode))) {
+                if (null != loadedHashes.remove(bizCode)) {
+                    current.onChanged(bizCode, null);
+                }
+                return;
+            }
+            byte[] content = readConfigFile(bizCode);
+            if (null == content) {
+                return;//being truncated and rewritten, wait for the next event.
+            }
+            byte[] hash = CompiledConfigCache.hash(content);
+            if (Arrays.equals(hash, loadedHashes.get(bizCode))) {
+                return;
+            }
+            BusinessConfig config = JacksonUtils.deserializeIgnoreException(content, BusinessConfig.class);
+            if (null == config) {
+                return;//maybe partially written, wait for the next event.
+            }
+            loadedHashes.put(bizCode, hash);
+            current.onChanged(bizCode, config);
+        } catch (Exception e) {
+            log.error("[Lattice] failed to apply the local config change of business: " + bizCode, e);
+        }
+    }
+
+    private Path getConfigFile(String bizCode) {
+        return directory.resolve(String.format("lattice-%s.json", bizCode));
+    }
+
+    private byte[] readConfigFile(String bizCode) {
+        Path file = getConfigFile(bizCode);
+        try {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            byte[] content = Files.readAllBytes(file);
+            return content.length == 0 ? null : content;
+        } catch (IOException e) {
+            log.warn("[Lattice] failed to read the local config file: {}, {}", file, e.getMessage());
+            return null;
+        }
+    }
+}